@@ -0,0 +1,100 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.api.dto.CreatePixKeyRequest;
+import br.com.itau.pixkeys.api.dto.PixKeyResponse;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.validation.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho em memória de uma requisição, antes de tocar no Mongo:
+ * JSON -> CreatePixKeyRequest (inclui {@code AccountType.from}) -> validação -> PixKey
+ * -> PixKeyResponse -> JSON. Cada etapa também é medida isoladamente.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestPathBenchmark {
+
+    // "poupança" exercita a normalização Unicode do @JsonCreator
+    @Param({"corrente", "poupança"})
+    String accountType;
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private KeyValidatorFactory factory;
+
+    private byte[] requestJson;
+    private CreatePixKeyRequest request;
+    private PixKey entity;
+    private PixKeyResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        // mesmo builder usado pelo Spring Boot (JavaTimeModule, datas ISO-8601)
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = mapper.readerFor(CreatePixKeyRequest.class);
+        responseWriter = mapper.writerFor(PixKeyResponse.class);
+        factory = new SimpleKeyValidatorFactory(List.of(
+                new EmailKeyValidator(), new PhoneKeyValidator(),
+                new CpfKeyValidator(), new CnpjKeyValidator(), new RandomKeyValidator()
+        ));
+
+        requestJson = """
+                {"keyType":"CPF","keyValue":"529.982.247-25","accountType":"%s",
+                 "agency":"1250","account":"00001234","holderName":"Ana","holderSurname":"Silva"}
+                """.formatted(accountType).getBytes(StandardCharsets.UTF_8);
+        request = requestReader.readValue(requestJson);
+        entity = toEntity(request);
+        response = PixKeyResponse.from(entity);
+    }
+
+    @Benchmark
+    public CreatePixKeyRequest deserializeRequest() throws Exception {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public PixKey validateAndCreate() {
+        return toEntity(request);
+    }
+
+    @Benchmark
+    public PixKeyResponse mapResponse() {
+        return PixKeyResponse.from(entity);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws Exception {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] fullPath() throws Exception {
+        CreatePixKeyRequest req = requestReader.readValue(requestJson);
+        return responseWriter.writeValueAsBytes(PixKeyResponse.from(toEntity(req)));
+    }
+
+    private PixKey toEntity(CreatePixKeyRequest req) {
+        KeyValidationResult result = factory.check(req.keyType(), req.keyValue());
+        if (!result.isValid()) {
+            throw new IllegalStateException(result.message());
+        }
+        return PixKey.create(
+                req.keyType(), req.keyValue(),
+                req.accountType(), req.agency(), req.account(),
+                req.holderName(), req.holderSurname()
+        );
+    }
+}
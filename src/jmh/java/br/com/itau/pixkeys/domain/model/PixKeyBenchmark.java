@@ -0,0 +1,52 @@
+package br.com.itau.pixkeys.domain.model;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das transições do agregado: criação (UUID + normalização), inativação e troca de conta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PixKeyBenchmark {
+
+    private PixKey active;
+
+    @Setup
+    public void setup() {
+        active = PixKey.create(
+                KeyType.EMAIL, "ana.silva+pix@exemplo.com.br",
+                AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva"
+        );
+    }
+
+    @Benchmark
+    public PixKey create() {
+        return PixKey.create(
+                KeyType.EMAIL, " ana.silva+pix@exemplo.com.br ",
+                AccountType.CHECKING, "1250", "00001234",
+                " Ana ", null
+        );
+    }
+
+    @Benchmark
+    public PixKey inactivate() {
+        return active.inactivate();
+    }
+
+    @Benchmark
+    public PixKey updateAccount() {
+        return active.updateAccount(
+                AccountType.SAVINGS, "2222", "00002222",
+                " Ana Paula ", " Silva "
+        );
+    }
+}
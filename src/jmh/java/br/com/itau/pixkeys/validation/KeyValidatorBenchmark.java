@@ -0,0 +1,88 @@
+package br.com.itau.pixkeys.validation;
+
+import br.com.itau.pixkeys.domain.KeyType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão e alocação de cada KeyValidator com entradas válidas, mascaradas e inválidas.
+ *
+ * {@code check} mede o caminho sem exceção; {@code validate} inclui o custo da exceção
+ * quando o valor é rejeitado.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyValidatorBenchmark {
+
+    @Param({"EMAIL", "PHONE", "CPF", "CNPJ", "RANDOM"})
+    KeyType type;
+
+    @Param({"VALID", "MASKED", "INVALID"})
+    String input;
+
+    private KeyValidator validator;
+    private String value;
+
+    @Setup
+    public void setup() {
+        validator = switch (type) {
+            case EMAIL -> new EmailKeyValidator();
+            case PHONE -> new PhoneKeyValidator();
+            case CPF -> new CpfKeyValidator();
+            case CNPJ -> new CnpjKeyValidator();
+            case RANDOM -> new RandomKeyValidator();
+        };
+        value = sample(type, input);
+    }
+
+    @Benchmark
+    public KeyValidationResult check() {
+        return validator.check(value);
+    }
+
+    @Benchmark
+    public void validate(Blackhole bh) {
+        try {
+            validator.validate(value);
+        } catch (RuntimeException e) {
+            bh.consume(e);
+        }
+    }
+
+    // "MASKED" = como o canal costuma enviar (máscara de documento ou espaços nas pontas)
+    static String sample(KeyType type, String input) {
+        return switch (type) {
+            case EMAIL -> switch (input) {
+                case "VALID" -> "ana.silva+pix@exemplo.com.br";
+                case "MASKED" -> "  ana.silva+pix@exemplo.com.br  ";
+                default -> "ana.silva@exemplo";
+            };
+            case PHONE -> switch (input) {
+                case "VALID" -> "+5511987654321";
+                case "MASKED" -> " +5511987654321 ";
+                default -> "+55 (11) 98765-4321";
+            };
+            case CPF -> switch (input) {
+                case "VALID" -> "52998224725";
+                case "MASKED" -> "529.982.247-25";
+                default -> "529.982.247-24";
+            };
+            case CNPJ -> switch (input) {
+                case "VALID" -> "12345678000195";
+                case "MASKED" -> "12.345.678/0001-95";
+                default -> "12.345.678/0001-96";
+            };
+            case RANDOM -> switch (input) {
+                case "VALID" -> "Ab01".repeat(8);
+                case "MASKED" -> "  " + "Ab01".repeat(8) + "  ";
+                default -> "550e8400-e29b-41d4-a716-446655440000";
+            };
+        };
+    }
+}
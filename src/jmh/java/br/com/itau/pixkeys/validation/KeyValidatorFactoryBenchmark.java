@@ -0,0 +1,45 @@
+package br.com.itau.pixkeys.validation;
+
+import br.com.itau.pixkeys.domain.KeyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do despacho da Strategy em {@link SimpleKeyValidatorFactory#get} e do
+ * fluxo completo despacho + validação usado pelo service.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyValidatorFactoryBenchmark {
+
+    @Param({"EMAIL", "PHONE", "CPF", "CNPJ", "RANDOM"})
+    KeyType type;
+
+    private SimpleKeyValidatorFactory factory;
+    private String value;
+
+    @Setup
+    public void setup() {
+        factory = new SimpleKeyValidatorFactory(List.of(
+                new EmailKeyValidator(), new PhoneKeyValidator(),
+                new CpfKeyValidator(), new CnpjKeyValidator(), new RandomKeyValidator()
+        ));
+        value = KeyValidatorBenchmark.sample(type, "MASKED");
+    }
+
+    @Benchmark
+    public KeyValidator get() {
+        return factory.get(type);
+    }
+
+    @Benchmark
+    public KeyValidationResult getAndCheck() {
+        return factory.check(type, value);
+    }
+}
@@ -1,13 +1,25 @@
 package br.com.itau.pixkeys;
 
+import br.com.itau.pixkeys.application.job.PixKeyImportRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class PixKeysApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(PixKeysApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(PixKeysApplication.class, args);
+
+		// modo importação (--pix-keys.import.file=...): o runner já importou ao subir; encerra com o exit code dele
+		PixKeyImportRunner importRunner = context.getBeanProvider(PixKeyImportRunner.class).getIfAvailable();
+		if (importRunner != null && importRunner.exitWhenDone()) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
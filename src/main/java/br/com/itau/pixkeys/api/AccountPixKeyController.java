@@ -0,0 +1,63 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.api.dto.AccountHolderUpdateResponse;
+import br.com.itau.pixkeys.api.dto.AccountInactivationResponse;
+import br.com.itau.pixkeys.api.dto.AccountPixKeysResponse;
+import br.com.itau.pixkeys.api.dto.UpdateAccountHolderRequest;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operações sobre as chaves de uma conta (agência+conta).
+ */
+@RestController
+@RequestMapping("/accounts/{agency}/{account}")
+public class AccountPixKeyController {
+
+    private final PixKeyService service;
+
+    public AccountPixKeyController(PixKeyService service) {
+        this.service = service;
+    }
+
+    /** Chaves da conta em formato compacto (ativas primeiro, mais recentes antes); {@code status} opcional. */
+    @GetMapping("/pix-keys")
+    public ResponseEntity<AccountPixKeysResponse> list(
+            @PathVariable @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String agency,
+            @PathVariable @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String account,
+            @RequestParam(required = false) KeyStatus status
+    ) {
+        return ResponseEntity.ok(AccountPixKeysResponse.from(agency, account, service.listAccountKeys(agency, account, status)));
+    }
+
+    /** Encerramento de conta: inativa todas as chaves ativas e devolve as afetadas (200 mesmo se nenhuma). */
+    @PostMapping("/pix-keys:inactivate")
+    public ResponseEntity<AccountInactivationResponse> inactivateAll(
+            @PathVariable @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String agency,
+            @PathVariable @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String account
+    ) {
+        return ResponseEntity.ok(AccountInactivationResponse.from(service.inactivateAllOfAccount(agency, account)));
+    }
+
+    /** Troca de titular: nome/sobrenome aplicados a todas as chaves ativas da conta (200 mesmo se nenhuma). */
+    @PutMapping("/holder")
+    public ResponseEntity<AccountHolderUpdateResponse> updateHolder(
+            @PathVariable @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String agency,
+            @PathVariable @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String account,
+            @Valid @RequestBody UpdateAccountHolderRequest body
+    ) {
+        return ResponseEntity.ok(AccountHolderUpdateResponse.from(
+                service.updateHolderOfAccount(agency, account, body.holderName(), body.holderSurname())));
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.api.dto.AgencyConsolidationRequest;
+import br.com.itau.pixkeys.api.dto.AgencyConsolidationStatusResponse;
+import br.com.itau.pixkeys.application.job.AgencyConsolidationJob;
+import br.com.itau.pixkeys.infrastructure.repository.AccountMapping;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+/**
+ * Jobs de consolidação de agências (assíncronos: 202 + Location para acompanhar o progresso).
+ * Sem mapeamento no nível da classe: o verbo {@code :resume} fica colado ao ID.
+ */
+@RestController
+public class AgencyConsolidationController {
+
+    private static final String BASE = "/jobs/agency-consolidations";
+    private static final Pattern CSV_LINE = Pattern.compile("\\s*(\\d{4})\\s*,\\s*(\\d{8})\\s*,\\s*(\\d{4})\\s*,\\s*(\\d{8})\\s*");
+
+    private final AgencyConsolidationJob job;
+
+    public AgencyConsolidationController(AgencyConsolidationJob job) {
+        this.job = job;
+    }
+
+    @PostMapping(path = BASE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AgencyConsolidationStatusResponse> submit(@Valid @RequestBody AgencyConsolidationRequest body) {
+        return accepted(job.submit(body.toMappings()));
+    }
+
+    /**
+     * Arquivo {@code agenciaOrigem,contaOrigem,agenciaDestino,contaDestino} por linha (cabeçalho opcional),
+     * lido em streaming: o arquivo nunca é carregado inteiro em memória.
+     */
+    @PostMapping(path = BASE, consumes = "text/csv")
+    public ResponseEntity<AgencyConsolidationStatusResponse> submitCsv(InputStream body) {
+        var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return accepted(job.submit(csvMappings(reader)));
+    }
+
+    @GetMapping(BASE + "/{id}")
+    public AgencyConsolidationStatusResponse status(@PathVariable String id) {
+        return job.find(id)
+                .map(j -> AgencyConsolidationStatusResponse.from(j, Instant.now()))
+                .orElseThrow(() -> new NotFoundException("job não encontrado"));
+    }
+
+    /** Retoma do último checkpoint (ex.: após falha); idempotente se já estiver rodando ou concluído. */
+    @PostMapping(BASE + "/{id}:resume")
+    public ResponseEntity<AgencyConsolidationStatusResponse> resume(@PathVariable String id) {
+        status(id); // 404 se não existir
+        job.resume(id);
+        return accepted(id);
+    }
+
+    private ResponseEntity<AgencyConsolidationStatusResponse> accepted(String id) {
+        var body = job.find(id).map(j -> AgencyConsolidationStatusResponse.from(j, Instant.now())).orElse(null);
+        return ResponseEntity.accepted().location(URI.create(BASE + "/" + id)).body(body);
+    }
+
+    static Iterator<AccountMapping> csvMappings(BufferedReader reader) {
+        return new Iterator<>() {
+            private long lineNo;
+            private long seq;
+            private AccountMapping next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lineNo++;
+                        if (line.isBlank()) continue;
+                        var m = CSV_LINE.matcher(line);
+                        if (!m.matches()) {
+                            if (lineNo == 1) continue; // cabeçalho
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    "linha " + lineNo + ": esperado agencia(4),conta(8),agencia(4),conta(8)");
+                        }
+                        next = new AccountMapping(++seq, new AccountRef(m.group(1), m.group(2)),
+                                new AccountRef(m.group(3), m.group(4)));
+                        return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public AccountMapping next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                AccountMapping m = next;
+                next = null;
+                return m;
+            }
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package br.com.itau.pixkeys.api;
 
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
+import br.com.itau.pixkeys.infrastructure.repository.MongoLimiterRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +34,25 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(pd);
     }
 
+    // 409 — versão informada (If-Match) não confere ou alteração concorrente
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleConflict(OptimisticLockingFailureException ex) {
+        var pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Conflito de versão");
+        pd.setDetail(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+    }
+
+    // 503 — limite de chamadas simultâneas ao Mongo esgotado (pix-keys.mongo-limiter); o cliente pode tentar de novo.
+    // Só a rejeição do limitador: outras falhas transitórias do Mongo não são sobrecarga deste serviço
+    @ExceptionHandler(MongoLimiterRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleOverloaded(MongoLimiterRejectedException ex) {
+        var pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        pd.setTitle("Serviço sobrecarregado");
+        pd.setDetail(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(pd);
+    }
+
     // 400 — erro de validação do DTO (permanece como está)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ProblemDetail> handleValidation(MethodArgumentNotValidException ex) {
@@ -0,0 +1,45 @@
+package br.com.itau.pixkeys.api;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ETag das chaves a partir do {@code version} (controle otimista): leituras devolvem {@code ETag: "<version>"}
+ * e escritas aceitam o mesmo valor em {@code If-Match} — entre aspas ou, por compatibilidade, o número puro.
+ * {@code If-Match} usa comparação forte (RFC 9110 §13.1.1): uma tag fraca ({@code W/"3"}) nunca confere.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /** {@code "<version>"}, ou {@code null} para chaves sem versão (sem header). */
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Versão esperada no {@code If-Match}; {@code null} quando ausente ou {@code *} (qualquer versão).
+     *
+     * @throws ResponseStatusException 400 se não for uma única entity tag numérica
+     * @throws OptimisticLockingFailureException 409 (mesma convenção de versão divergente) para tag fraca
+     */
+    static Long parseIfMatch(String header) {
+        if (header == null || header.isBlank()) return null;
+        String tag = header.strip();
+        if (tag.equals("*")) return null;
+        if (tag.startsWith("W/")) {
+            throw new OptimisticLockingFailureException("If-Match com tag fraca nunca confere (comparação forte): " + header);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "If-Match deve ser uma única versão, ex.: \"3\": " + header);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.api.dto.BatchCreatePixKeyRequest;
+import br.com.itau.pixkeys.api.dto.BatchCreatePixKeyResponse;
+import br.com.itau.pixkeys.api.dto.BatchGetItemResponse;
+import br.com.itau.pixkeys.api.dto.BatchGetPixKeysRequest;
+import br.com.itau.pixkeys.api.dto.BatchGetPixKeysResponse;
+import br.com.itau.pixkeys.api.dto.BatchItemResponse;
+import br.com.itau.pixkeys.api.dto.CreatePixKeyRequest;
+import br.com.itau.pixkeys.application.service.BatchCreateItem;
+import br.com.itau.pixkeys.application.service.BatchCreateResult;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Operações em lote sobre chaves (métodos customizados no estilo {@code recurso:verbo}).
+ */
+@RestController
+public class PixKeyBatchController {
+
+    private final PixKeyService service;
+    private final Validator validator;
+
+    public PixKeyBatchController(PixKeyService service, Validator validator) {
+        this.service = service;
+        this.validator = validator;
+    }
+
+    @PostMapping("/pix-keys:batch")
+    public ResponseEntity<BatchCreatePixKeyResponse> createBatch(@Valid @RequestBody BatchCreatePixKeyRequest req) {
+        List<CreatePixKeyRequest> items = req.items();
+        BatchItemResponse[] out = new BatchItemResponse[items.size()];
+
+        // Bean Validation por item: os inválidos recebem 400 e não seguem para o service
+        List<BatchCreateItem> valid = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CreatePixKeyRequest item = items.get(i);
+            if (item == null) {
+                out[i] = BatchItemResponse.invalid(i, Map.of());
+                continue;
+            }
+            Set<ConstraintViolation<CreatePixKeyRequest>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                Map<String, String> fields = new LinkedHashMap<>();
+                violations.forEach(v -> fields.put(v.getPropertyPath().toString(), v.getMessage()));
+                out[i] = BatchItemResponse.invalid(i, fields);
+                continue;
+            }
+            valid.add(new BatchCreateItem(
+                    item.keyType(), item.keyValue(),
+                    item.accountType(), item.agency(), item.account(),
+                    item.holderName(), item.holderSurname()
+            ));
+            positions.add(i);
+        }
+
+        if (!valid.isEmpty()) {
+            List<BatchCreateResult> results = service.createAll(valid);
+            for (int j = 0; j < results.size(); j++) {
+                out[positions.get(j)] = toResponse(positions.get(j), results.get(j));
+            }
+        }
+        return ResponseEntity.ok(BatchCreatePixKeyResponse.of(Arrays.asList(out)));
+    }
+
+    /**
+     * Busca até 100 chaves por ID ou por valor (somente ativas, como o GET by-value) em um único {@code $in},
+     * compartilhando o cache das buscas unitárias. Sempre 200: o que não existir vem com {@code found=false}.
+     */
+    @PostMapping("/pix-keys:batchGet")
+    public ResponseEntity<BatchGetPixKeysResponse> batchGet(@Valid @RequestBody BatchGetPixKeysRequest req) {
+        boolean byId = req.ids() != null && !req.ids().isEmpty();
+        List<String> refs = byId ? req.ids() : req.keyValues();
+        List<Optional<PixKey>> found = byId
+                ? service.findAllByIds(refs)
+                : service.findAllActiveByKeyValues(refs);
+
+        List<BatchGetItemResponse> items = new ArrayList<>(refs.size());
+        for (int i = 0; i < refs.size(); i++) {
+            items.add(BatchGetItemResponse.of(refs.get(i), found.get(i)));
+        }
+        return ResponseEntity.ok(BatchGetPixKeysResponse.of(items));
+    }
+
+    private static BatchItemResponse toResponse(int index, BatchCreateResult r) {
+        return switch (r.outcome()) {
+            case CREATED -> BatchItemResponse.created(index, r.id());
+            case REJECTED -> BatchItemResponse.rejected(index, 422, r.reason());
+            case FAILED -> BatchItemResponse.rejected(index, 500, r.reason());
+            case UNKNOWN -> BatchItemResponse.unknown(index, r.id(), r.reason());
+        };
+    }
+}
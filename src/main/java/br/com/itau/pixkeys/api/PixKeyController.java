@@ -2,16 +2,37 @@ package br.com.itau.pixkeys.api;
 
 import br.com.itau.pixkeys.api.dto.CreatePixKeyRequest;
 import br.com.itau.pixkeys.api.dto.CreatePixKeyResponse;
+import br.com.itau.pixkeys.api.dto.HolderMatchResponse;
+import br.com.itau.pixkeys.api.dto.PageToken;
+import br.com.itau.pixkeys.api.dto.PixKeyPageResponse;
 import br.com.itau.pixkeys.api.dto.PixKeyResponse;
 import br.com.itau.pixkeys.api.dto.UpdatePixKeyAccountRequest;
+import br.com.itau.pixkeys.application.service.HolderIndexUnavailableException;
+import br.com.itau.pixkeys.application.service.InvalidSearchException;
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+import br.com.itau.pixkeys.application.service.PixKeyQuery;
 import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
 import io.swagger.v3.oas.annotations.Hidden;
+import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
+import java.time.Instant;
+import java.util.List;
 
 @RestController
 @RequestMapping("/pix-keys")
@@ -36,28 +57,107 @@ public class PixKeyController {
     }
 
     @PostMapping("/{id}:inactivate")
-    public ResponseEntity<PixKeyResponse> inactivate(@PathVariable String id) {
-        PixKey updated = service.inactivate(id);
-        return ResponseEntity.ok(PixKeyResponse.from(updated));
+    public ResponseEntity<PixKeyResponse> inactivate(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        PixKey updated = service.inactivate(id, EntityTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(updated.version())).body(PixKeyResponse.from(updated));
+    }
+
+    /**
+     * Busca filtrada, da mais recente para a mais antiga. Os filtros são opcionais, mas só as combinações com índice
+     * para essa ordem são aceitas (400 nas demais; ver {@link PixKeyQuery}).
+     * Paginação por chave: {@code nextPageToken} da resposta vai em {@code pageToken}; toda página custa o mesmo.
+     */
+    @GetMapping
+    public ResponseEntity<PixKeyPageResponse> search(
+            @RequestParam(required = false) KeyType keyType,
+            @RequestParam(required = false) KeyStatus status,
+            @RequestParam(required = false) @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String agency,
+            @RequestParam(required = false) @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String account,
+            @RequestParam(required = false) String holderName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit,
+            @RequestParam(required = false) String pageToken
+    ) {
+        try {
+            PixKeyPage.Position after = PageToken.decode(pageToken);
+            var query = new PixKeyQuery(status, keyType, agency, account, holderName, createdFrom, createdTo);
+            return ResponseEntity.ok(PixKeyPageResponse.from(service.search(query, after, limit)));
+        } catch (InvalidSearchException e) { // token inválido ou combinação de filtros sem índice
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Busca por prefixo do nome do titular ("nome sobrenome") entre as chaves ativas, sem diferenciar acentos nem maiúsculas:
+     * {@code prefix=joao s} encontra "João Silva". Ordenada pelo nome normalizado; paginação por chave como
+     * na busca filtrada. O antigo parâmetro {@code status} é recusado com 400, em vez de ignorado: só há
+     * índice das ativas.
+     */
+    @GetMapping("/by-holder")
+    public ResponseEntity<PixKeyPageResponse> searchByHolder(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit,
+            @RequestParam(required = false) String pageToken,
+            @Parameter(hidden = true) @RequestParam(required = false) String status
+    ) {
+        if (status != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "status não é aceito: a busca por titular considera só chaves ativas");
+        }
+        try {
+            HolderPage.Position after = PageToken.decodeHolder(pageToken);
+            return ResponseEntity.ok(PixKeyPageResponse.from(service.searchByHolderPrefix(prefix, after, limit)));
+        } catch (InvalidSearchException e) { // token inválido ou prefixo curto demais
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Busca aproximada por titular para análise de fraude: tolera erros de digitação, acentos e partes do nome
+     * ausentes ({@code name=Joao Silva} encontra "João da Silva"). Somente chaves ativas, da mais parecida para
+     * a menos parecida. 503 enquanto o índice em memória não terminou a carga.
+     */
+    @GetMapping("/holder-matches")
+    public ResponseEntity<List<HolderMatchResponse>> holderMatches(
+            @RequestParam @Size(min = 3, max = 200, message = "name deve ter de 3 a 200 caracteres") String name,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit
+    ) {
+        try {
+            return ResponseEntity.ok(service.findHolderMatches(name, limit).stream().map(HolderMatchResponse::from).toList());
+        } catch (HolderIndexUnavailableException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<PixKeyResponse> getById(@PathVariable String id) {
         var k = service.findById(id);
+        return ResponseEntity.ok().eTag(EntityTags.of(k.version())).body(PixKeyResponse.from(k));
+    }
+
+    @GetMapping("/by-value/{keyValue}")
+    public ResponseEntity<PixKeyResponse> getByKeyValue(@PathVariable String keyValue) {
+        var k = service.findActiveByKeyValue(keyValue);
         return ResponseEntity.ok(PixKeyResponse.from(k));
     }
 
     @PutMapping("/{id}/account")
     public ResponseEntity<PixKeyResponse> updateAccount(
             @PathVariable String id,
-            @Valid @RequestBody UpdatePixKeyAccountRequest req
+            @Valid @RequestBody UpdatePixKeyAccountRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         var updated = service.updateAccount(
                 id,
                 req.accountType(), req.agency(), req.account(),
-                req.holderName(), req.holderSurname()
+                req.holderName(), req.holderSurname(),
+                EntityTags.parseIfMatch(ifMatch)
         );
-        return ResponseEntity.ok(PixKeyResponse.from(updated));
+        return ResponseEntity.ok().eTag(EntityTags.of(updated.version())).body(PixKeyResponse.from(updated));
     }
 
     @Hidden
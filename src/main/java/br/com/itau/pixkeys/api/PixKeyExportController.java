@@ -0,0 +1,87 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.api.dto.PixKeyResponse;
+import br.com.itau.pixkeys.application.service.PixKeyExport;
+import br.com.itau.pixkeys.application.service.PixKeyQuery;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exportação completa das chaves em NDJSON (um {@link PixKeyResponse} por linha), escrita direto do cursor
+ * para a resposta: memória constante, independente do tamanho da coleção.
+ */
+@RestController
+public class PixKeyExportController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final PixKeyService service;
+    private final ObjectWriter writer;
+
+    public PixKeyExportController(PixKeyService service, ObjectMapper mapper) {
+        this.service = service;
+        this.writer = mapper.writerFor(PixKeyResponse.class);
+    }
+
+    /**
+     * Filtros opcionais: {@code status}, {@code keyType} e intervalo {@code createdFrom} (inclusivo) /
+     * {@code createdTo} (exclusivo). Com {@code parallelism > 1} as faixas de {@code _id} são lidas em
+     * paralelo e as linhas saem intercaladas (sem ordem). Os cursores são reservados antes do 200: sem vaga
+     * no limitador a resposta é 503, nunca um NDJSON truncado.
+     */
+    @GetMapping(path = "/pix-keys:export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) KeyStatus status,
+            @RequestParam(required = false) KeyType keyType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+            @RequestParam(defaultValue = "1") @Min(1) @Max(PixKeyService.MAX_EXPORT_PARALLELISM) int parallelism
+    ) {
+        PixKeyQuery query = new PixKeyQuery(status, keyType, null, null, null, createdFrom, createdTo);
+        PixKeyExport export = service.openExport(query, parallelism); // ainda na thread da requisição
+        StreamingResponseBody body = out -> {
+            try (export) {
+                OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+                Lock lock = new ReentrantLock();
+                export.writeTo(key -> writeLine(buffered, lock, PixKeyResponse.from(key)));
+                buffered.flush();
+            }
+        };
+        return ResponseEntity.ok().header("Content-Type", NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Lock lock, PixKeyResponse row) {
+        try {
+            byte[] json = writer.writeValueAsBytes(row); // serializa fora do lock (faixas paralelas)
+            // Lock em vez de synchronized: escrita bloqueante dentro de synchronized prende a virtual thread ao carrier
+            lock.lock();
+            try {
+                out.write(json);
+                out.write('\n');
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.util.List;
+
+public record AccountHolderUpdateResponse(int updated, List<PixKeyResponse> keys) {
+
+    public static AccountHolderUpdateResponse from(List<PixKey> keys) {
+        return new AccountHolderUpdateResponse(keys.size(), keys.stream().map(PixKeyResponse::from).toList());
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.util.List;
+
+public record AccountInactivationResponse(int inactivated, List<PixKeyResponse> keys) {
+
+    public static AccountInactivationResponse from(List<PixKey> keys) {
+        return new AccountInactivationResponse(keys.size(), keys.stream().map(PixKeyResponse::from).toList());
+    }
+}
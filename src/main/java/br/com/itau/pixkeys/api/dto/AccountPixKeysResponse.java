@@ -0,0 +1,23 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.infrastructure.repository.AccountKeySummary;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Chaves de uma conta em formato compacto: só o que a tela de listagem mostra (agência/conta vão uma vez).
+ */
+public record AccountPixKeysResponse(String agency, String account, List<Item> keys) {
+
+    public record Item(String id, KeyType keyType, String keyValue, KeyStatus status, Instant createdAt) {
+    }
+
+    public static AccountPixKeysResponse from(String agency, String account, List<AccountKeySummary> keys) {
+        return new AccountPixKeysResponse(agency, account, keys.stream()
+                .map(k -> new Item(k.id(), k.keyType(), k.keyValue(), k.status(), k.createdAt()))
+                .toList());
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.infrastructure.repository.AccountMapping;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Corpo JSON do POST /jobs/agency-consolidations. Para arquivos grandes, usar o envio em text/csv.
+ */
+public record AgencyConsolidationRequest(
+
+        @NotEmpty
+        @Size(max = AgencyConsolidationRequest.MAX_MAPPINGS)
+        List<@NotNull @Valid Mapping> mappings
+) {
+    public static final int MAX_MAPPINGS = 10_000;
+
+    public record Mapping(
+            @NotNull @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String fromAgency,
+            @NotNull @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String fromAccount,
+            @NotNull @Pattern(regexp = "\\d{4}", message = "agencia deve ter 4 digitos") String toAgency,
+            @NotNull @Pattern(regexp = "\\d{8}", message = "conta deve ter 8 digitos") String toAccount
+    ) {
+    }
+
+    public Iterator<AccountMapping> toMappings() {
+        Iterator<Mapping> it = mappings.iterator();
+        return new Iterator<>() {
+            private long seq;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public AccountMapping next() {
+                Mapping m = it.next();
+                return new AccountMapping(++seq, new AccountRef(m.fromAgency(), m.fromAccount()),
+                        new AccountRef(m.toAgency(), m.toAccount()));
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progresso de uma consolidação. {@code keysPerSecond} considera o tempo decorrido desde o início
+ * (até o fim, se já finalizada).
+ */
+public record AgencyConsolidationStatusResponse(
+        String id,
+        ConsolidationJob.Status status,
+        long totalMappings,
+        long appliedMappings,
+        double progress,
+        long movedKeys,
+        long rejectedKeys,
+        List<String> rejectedSample,
+        double keysPerSecond,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt,
+        String error
+) {
+    public static AgencyConsolidationStatusResponse from(ConsolidationJob job, Instant now) {
+        double progress = job.totalMappings() == 0 ? 0 : (double) job.checkpointSeq() / job.totalMappings();
+        Instant end = job.finishedAt() != null ? job.finishedAt() : now;
+        long millis = job.startedAt() == null ? 0 : Duration.between(job.startedAt(), end).toMillis();
+        double rate = millis <= 0 ? 0 : job.movedKeys() * 1000.0 / millis;
+        return new AgencyConsolidationStatusResponse(job.id(), job.status(), job.totalMappings(),
+                job.checkpointSeq(), progress, job.movedKeys(), job.rejectedKeys(),
+                job.rejectedSample() == null ? List.of() : job.rejectedSample(), rate,
+                job.startedAt(), job.updatedAt(), job.finishedAt(), job.error());
+    }
+}
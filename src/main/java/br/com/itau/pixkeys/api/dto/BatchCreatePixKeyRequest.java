@@ -0,0 +1,19 @@
+package br.com.itau.pixkeys.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Corpo do POST /pix-keys:batch. Os itens são validados um a um pelo controller
+ * (um item inválido vira 400 só para ele, sem derrubar o lote).
+ */
+public record BatchCreatePixKeyRequest(
+
+        @NotEmpty
+        @Size(max = BatchCreatePixKeyRequest.MAX_ITEMS)
+        List<CreatePixKeyRequest> items
+) {
+    public static final int MAX_ITEMS = 1000;
+}
@@ -0,0 +1,11 @@
+package br.com.itau.pixkeys.api.dto;
+
+import java.util.List;
+
+public record BatchCreatePixKeyResponse(int created, int rejected, List<BatchItemResponse> items) {
+
+    public static BatchCreatePixKeyResponse of(List<BatchItemResponse> items) {
+        int created = (int) items.stream().filter(i -> i.status() == 201).count();
+        return new BatchCreatePixKeyResponse(created, items.size() - created, items);
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Optional;
+
+/**
+ * Um item do batchGet, na posição do pedido: {@code ref} é o ID/valor enviado e
+ * {@code found=false} marca explicitamente o que não foi encontrado.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchGetItemResponse(String ref, boolean found, PixKeyResponse key) {
+
+    public static BatchGetItemResponse of(String ref, Optional<PixKey> key) {
+        return new BatchGetItemResponse(ref, key.isPresent(), key.map(PixKeyResponse::from).orElse(null));
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.itau.pixkeys.api.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Corpo do POST /pix-keys:batchGet: informe {@code ids} OU {@code keyValues} (não ambos).
+ */
+public record BatchGetPixKeysRequest(
+
+        @Size(max = BatchGetPixKeysRequest.MAX_ITEMS)
+        List<@NotBlank String> ids,
+
+        @Size(max = BatchGetPixKeysRequest.MAX_ITEMS)
+        List<@NotBlank String> keyValues
+) {
+    public static final int MAX_ITEMS = 100;
+
+    @AssertTrue(message = "informe ids ou keyValues (não ambos)")
+    public boolean isExactlyOneSelector() {
+        return isEmpty(ids) != isEmpty(keyValues);
+    }
+
+    private static boolean isEmpty(List<String> list) {
+        return list == null || list.isEmpty();
+    }
+}
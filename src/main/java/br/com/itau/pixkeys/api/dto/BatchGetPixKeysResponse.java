@@ -0,0 +1,11 @@
+package br.com.itau.pixkeys.api.dto;
+
+import java.util.List;
+
+public record BatchGetPixKeysResponse(int found, int notFound, List<BatchGetItemResponse> items) {
+
+    public static BatchGetPixKeysResponse of(List<BatchGetItemResponse> items) {
+        int found = (int) items.stream().filter(BatchGetItemResponse::found).count();
+        return new BatchGetPixKeysResponse(found, items.size() - found, items);
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.itau.pixkeys.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Resultado de um item do lote: {@code status} segue a semântica do endpoint unitário
+ * (201 criada, 400 payload inválido, 422 regra de negócio, 500 falha de escrita, 503 gravação sem confirmação —
+ * o {@code id} permite conferir com {@code GET /pix-keys/{id}}; reenviar o item é seguro: se ele foi gravado,
+ * volta como 422 de chave já cadastrada).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResponse(
+        int index,
+        int status,
+        String id,
+        String detail,
+        Map<String, String> fields
+) {
+    public static BatchItemResponse created(int index, String id) {
+        return new BatchItemResponse(index, 201, id, null, null);
+    }
+
+    public static BatchItemResponse invalid(int index, Map<String, String> fields) {
+        return new BatchItemResponse(index, 400, null, "Erro de validação", fields);
+    }
+
+    public static BatchItemResponse rejected(int index, int status, String detail) {
+        return new BatchItemResponse(index, status, null, detail, null);
+    }
+
+    public static BatchItemResponse unknown(int index, String id, String detail) {
+        return new BatchItemResponse(index, 503, id, detail, null);
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.application.service.HolderMatch;
+
+public record HolderMatchResponse(double score, PixKeyResponse key) {
+
+    public static HolderMatchResponse from(HolderMatch match) {
+        return new HolderMatchResponse(match.score(), PixKeyResponse.from(match.key()));
+    }
+}
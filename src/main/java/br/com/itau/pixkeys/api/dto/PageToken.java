@@ -0,0 +1,66 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.InvalidSearchException;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Token opaco de continuação da busca paginada (base64url de {@code v1:<createdAt em ms>:<id>}; na busca por
+ * titular, {@code h1:<id>:<holderSearch>}). O cliente só repassa o valor recebido; o formato pode mudar sem
+ * quebrar a API.
+ */
+public final class PageToken {
+
+    private static final String VERSION = "v1";
+    private static final String HOLDER_VERSION = "h1";
+
+    private PageToken() {
+    }
+
+    public static String encode(PixKeyPage.Position cursor) {
+        if (cursor == null) return null;
+        String raw = VERSION + ":" + cursor.createdAt().toEpochMilli() + ":" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws InvalidSearchException se o token não foi gerado por {@link #encode} */
+    public static PixKeyPage.Position decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+                throw new InvalidSearchException("pageToken inválido");
+            }
+            return new PixKeyPage.Position(Instant.ofEpochMilli(Long.parseLong(parts[1])), parts[2]);
+        } catch (IllegalArgumentException e) { // inclui NumberFormatException e base64 inválido
+            throw new InvalidSearchException("pageToken inválido", e);
+        }
+    }
+
+    public static String encode(HolderPage.Position cursor) {
+        if (cursor == null) return null;
+        // id (UUID) antes do nome: o nome pode conter ':'
+        String raw = HOLDER_VERSION + ":" + cursor.id() + ":" + cursor.holderSearch();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws InvalidSearchException se o token não foi gerado por {@link #encode(HolderPage.Position)} */
+    public static HolderPage.Position decodeHolder(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3 || !HOLDER_VERSION.equals(parts[0]) || parts[1].isEmpty()) {
+                throw new InvalidSearchException("pageToken inválido");
+            }
+            return new HolderPage.Position(parts[2], parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchException("pageToken inválido", e);
+        }
+    }
+}
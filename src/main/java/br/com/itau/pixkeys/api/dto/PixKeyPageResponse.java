@@ -0,0 +1,22 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+
+import java.util.List;
+
+/**
+ * @param nextPageToken repassar em {@code pageToken} para a próxima página; {@code null} na última
+ */
+public record PixKeyPageResponse(List<PixKeyResponse> items, String nextPageToken) {
+
+    public static PixKeyPageResponse from(PixKeyPage page) {
+        return new PixKeyPageResponse(page.items().stream().map(PixKeyResponse::from).toList(),
+                PageToken.encode(page.next()));
+    }
+
+    public static PixKeyPageResponse from(HolderPage page) {
+        return new PixKeyPageResponse(page.items().stream().map(PixKeyResponse::from).toList(),
+                PageToken.encode(page.next()));
+    }
+}
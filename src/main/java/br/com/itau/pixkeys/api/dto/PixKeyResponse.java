@@ -18,12 +18,14 @@ public record PixKeyResponse(
         String holderSurname,
         KeyStatus status,
         Instant createdAt,
-        Instant inactivatedAt
+        Instant inactivatedAt,
+        Long version
 ) {
     public static PixKeyResponse from(PixKey k) {
         return new PixKeyResponse(
                 k.id(), k.keyType(), k.keyValue(), k.accountType(), k.agency(), k.account(),
-                k.holderName(), k.holderSurname(), k.status(), k.createdAt(), k.inactivatedAt()
+                k.holderName(), k.holderSurname(), k.status(), k.createdAt(), k.inactivatedAt(),
+                k.version()
         );
     }
 }
@@ -0,0 +1,9 @@
+package br.com.itau.pixkeys.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record UpdateAccountHolderRequest(
+        @NotBlank @Size(max=30) String holderName,
+        @Size(max=45) String holderSurname
+) {}
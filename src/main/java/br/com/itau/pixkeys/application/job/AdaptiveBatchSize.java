@@ -0,0 +1,37 @@
+package br.com.itau.pixkeys.application.job;
+
+import java.time.Duration;
+
+/**
+ * Tamanho de lote ajustado pela latência observada (AIMD): lote acima da latência alvo cai pela metade;
+ * lote cheio abaixo do alvo cresce um passo ({@code min}). Converge para o maior lote que o banco
+ * absorve dentro do alvo e recua rápido quando ele começa a sofrer.
+ */
+final class AdaptiveBatchSize {
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private int current;
+
+    AdaptiveBatchSize(int initial, int min, int max, Duration target) {
+        if (min < 1 || max < min) throw new IllegalArgumentException("esperado 1 <= min <= max");
+        this.min = min;
+        this.max = max;
+        this.targetNanos = target.toNanos();
+        this.current = Math.clamp(initial, min, max);
+    }
+
+    int current() {
+        return current;
+    }
+
+    /** Registra um lote gravado; lotes parciais (fim do arquivo) só podem reduzir o tamanho. */
+    void record(int size, long elapsedNanos) {
+        if (elapsedNanos > targetNanos) {
+            current = Math.max(min, current / 2);
+        } else if (size >= current) {
+            current = Math.min(max, current + min);
+        }
+    }
+}
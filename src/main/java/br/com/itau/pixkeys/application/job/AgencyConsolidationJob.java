@@ -0,0 +1,309 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.cache.PixKeyCache;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.AccountMapping;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJob;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJobStore;
+import br.com.itau.pixkeys.infrastructure.repository.KeyMove;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Consolidação de agências: move todas as chaves das contas antigas para as novas, em massa.
+ *
+ * Fluxo por lote de mapeamentos: um cursor percorre as chaves das contas de origem, as vagas das ativas são
+ * reservadas nos destinos antes de qualquer escrita (o mesmo contador usado pelo cadastro, então o limite de 5
+ * vale também contra cadastros simultâneos), as trocas saem em bulk {@code $set} limitados e, no fim, as vagas
+ * são acertadas pelo que de fato mudou de conta; ao fim do lote o checkpoint é gravado. Um job interrompido é
+ * retomado do último checkpoint (no start da aplicação ou via API) por uma única instância, que detém a posse
+ * (lease); se a queda for entre a reserva e o acerto, as contas do lote refeito têm as vagas recalculadas
+ * pelas ativas antes de reservar de novo.
+ */
+@Component
+public class AgencyConsolidationJob implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AgencyConsolidationJob.class);
+
+    private static final int LOAD_CHUNK = 1_000;
+
+    private final ConsolidationJobStore store;
+    private final PixKeyRepository repo;
+    private final PixKeyCache cache;
+    private final PixKeysProperties.Consolidation cfg;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<String> runningHere = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "agency-consolidation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Counter movedKeys;
+    private Counter rejectedKeys;
+    private Counter appliedMappings;
+    private Timer bulkWrite;
+
+    public AgencyConsolidationJob(ConsolidationJobStore store, PixKeyRepository repo, PixKeyCache cache,
+                                  PixKeysProperties properties) {
+        this.store = store;
+        this.repo = repo;
+        this.cache = cache;
+        this.cfg = properties.getConsolidation();
+    }
+
+    /**
+     * Recebe os mapeamentos (consumidos em streaming e gravados em blocos) e agenda a execução.
+     * Em erro na carga o job é marcado como FAILED e a exceção é propagada.
+     *
+     * @return ID do job
+     */
+    public String submit(Iterator<AccountMapping> mappings) {
+        String jobId = UUID.randomUUID().toString();
+        store.createJob(jobId, Instant.now());
+        long total = 0;
+        try {
+            List<AccountMapping> chunk = new ArrayList<>(LOAD_CHUNK);
+            while (mappings.hasNext()) {
+                chunk.add(mappings.next());
+                if (chunk.size() == LOAD_CHUNK) {
+                    store.appendMappings(jobId, chunk);
+                    total += chunk.size();
+                    chunk.clear();
+                }
+            }
+            store.appendMappings(jobId, chunk);
+            total += chunk.size();
+        } catch (RuntimeException e) {
+            store.finish(jobId, ConsolidationJob.Status.FAILED, e.getMessage());
+            throw e;
+        }
+        store.markLoaded(jobId, total);
+        log.info("consolidação {}: {} mapeamentos carregados", jobId, total);
+        resume(jobId);
+        return jobId;
+    }
+
+    public Optional<ConsolidationJob> find(String jobId) {
+        return store.findJob(jobId);
+    }
+
+    /** Agenda a (re)execução a partir do último checkpoint; ignorado se já estiver rodando nesta instância. */
+    public void resume(String jobId) {
+        if (runningHere.add(jobId)) {
+            executor.execute(() -> runOwned(jobId));
+        }
+    }
+
+    /**
+     * Retoma jobs interrompidos (queda/deploy) cujo lease expirou; os que caíram ainda na carga (LOADING sem
+     * progresso há mais de um lease) não têm de onde retomar e são marcados como FAILED.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeInterrupted() {
+        try {
+            long failed = store.failStaleLoading(Instant.now().minus(cfg.getLease()));
+            if (failed > 0) log.warn("consolidação: {} job(s) com carga interrompida marcados como FAILED", failed);
+            store.findRunningJobIds().forEach(this::resume);
+        } catch (RuntimeException e) {
+            log.warn("não foi possível procurar consolidações interrompidas", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow(); // o lote em andamento é refeito na retomada (operações idempotentes)
+    }
+
+    private void runOwned(String jobId) {
+        try {
+            if (!store.tryAcquire(jobId, instanceId, cfg.getLease())) {
+                log.info("consolidação {}: em execução em outra instância ou já finalizada", jobId);
+                return;
+            }
+            run(jobId);
+        } catch (RuntimeException e) {
+            log.error("consolidação {}: interrompida; retomável do último checkpoint", jobId, e);
+            store.release(jobId, instanceId, e.getMessage());
+        } finally {
+            runningHere.remove(jobId);
+        }
+    }
+
+    void run(String jobId) {
+        long checkpoint = store.findJob(jobId).orElseThrow().checkpointSeq();
+        List<AccountMapping> batch;
+        boolean first = true;
+        while (!(batch = store.loadMappings(jobId, checkpoint, cfg.getMappingsPerBatch())).isEmpty()) {
+            if (first) {
+                // o dono anterior pode ter caído com este lote entre a reserva e o acerto das vagas
+                reconcileSlots(accountsOf(batch));
+                first = false;
+            }
+            BatchResult result = apply(batch);
+            checkpoint = batch.get(batch.size() - 1).seq();
+            if (!store.checkpoint(jobId, instanceId, checkpoint, result.moved(), result.rejectedIds(), cfg.getLease())) {
+                log.warn("consolidação {}: posse perdida no seq {}; outra instância continua", jobId, checkpoint);
+                return;
+            }
+            appliedMappings.increment(batch.size());
+        }
+        store.finish(jobId, ConsolidationJob.Status.COMPLETED, null);
+        log.info("consolidação {}: concluída", jobId);
+    }
+
+    /** Aplica um lote de mapeamentos; reaplicar o mesmo lote (retomada) não move nada duas vezes. */
+    BatchResult apply(List<AccountMapping> batch) {
+        Map<AccountRef, AccountRef> targetOf = new LinkedHashMap<>();
+        for (AccountMapping m : batch) {
+            targetOf.putIfAbsent(m.from(), m.to()); // origem repetida: vale o primeiro mapeamento
+        }
+
+        // 1) Cursor nas contas de origem; as escritas só começam depois (não altera o que o cursor percorre)
+        List<PixKey> candidates = new ArrayList<>();
+        Map<AccountRef, Integer> requested = new HashMap<>();
+        store.forEachKeyOf(targetOf.keySet(), key -> {
+            AccountRef to = targetOf.get(new AccountRef(key.agency(), key.account()));
+            if (to == null || to.equals(new AccountRef(key.agency(), key.account()))) return;
+            candidates.add(key);
+            if (!key.isInactive()) requested.merge(to, 1, Integer::sum);
+        });
+
+        // 2) Vagas das ativas reservadas nos destinos antes de mover; o que não couber fica na origem
+        Map<AccountRef, Integer> granted = repo.reserveAccountSlots(requested, PixKeyService.ACCOUNT_KEYS_LIMIT);
+        Map<AccountRef, Integer> left = new HashMap<>(granted);
+        List<PixKey> toMove = new ArrayList<>();
+        List<PixKey> activeMoves = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        for (PixKey key : candidates) {
+            if (!key.isInactive()) {
+                AccountRef to = targetOf.get(new AccountRef(key.agency(), key.account()));
+                if (left.merge(to, -1, Integer::sum) < 0) {
+                    rejected.add(key.id());
+                    continue;
+                }
+                activeMoves.add(key);
+            }
+            toMove.add(key);
+        }
+
+        // 3) Bulk $set em blocos limitados; as vagas são acertadas mesmo se um bloco falhar
+        long moved = 0;
+        boolean confirmed = false;
+        try {
+            for (int from = 0; from < toMove.size(); from += cfg.getWriteBatchSize()) {
+                List<PixKey> slice = toMove.subList(from, Math.min(from + cfg.getWriteBatchSize(), toMove.size()));
+                List<KeyMove> moves = slice.stream()
+                        .map(k -> new KeyMove(k.id(), new AccountRef(k.agency(), k.account()),
+                                targetOf.get(new AccountRef(k.agency(), k.account())), k.status()))
+                        .toList();
+                moved += bulkWrite.record(() -> store.moveKeys(moves));
+                slice.forEach(cache::invalidate);
+            }
+            confirmed = true;
+        } finally {
+            if (confirmed) {
+                settleSlots(targetOf, granted, activeMoves);
+            } else {
+                // bloco sem confirmação: parte das trocas pode ainda chegar; recalcula em vez de descontar
+                reconcileSlots(accountsOf(batch));
+            }
+        }
+
+        movedKeys.increment(moved);
+        rejectedKeys.increment(rejected.size());
+        if (!rejected.isEmpty()) {
+            log.warn("consolidação: {} chave(s) mantidas na origem por limite no destino", rejected.size());
+        }
+        return new BatchResult(moved, rejected);
+    }
+
+    /**
+     * 4) Confere onde as ativas admitidas estão agora: cada uma que chegou ao destino libera uma vaga na origem;
+     * as reservas no destino que não viraram troca (chave inativada ou alterada no meio) são devolvidas.
+     */
+    private void settleSlots(Map<AccountRef, AccountRef> targetOf, Map<AccountRef, Integer> granted,
+                             List<PixKey> activeMoves) {
+        Map<AccountRef, Integer> release = new HashMap<>(granted);
+        Map<String, AccountRef> now;
+        try {
+            now = store.findAccountsOf(activeMoves.stream().map(PixKey::id).toList());
+        } catch (RuntimeException e) {
+            Set<AccountRef> accounts = new HashSet<>(granted.keySet());
+            activeMoves.forEach(k -> accounts.add(new AccountRef(k.agency(), k.account())));
+            reconcileSlots(accounts);
+            throw e;
+        }
+        for (PixKey key : activeMoves) {
+            AccountRef from = new AccountRef(key.agency(), key.account());
+            AccountRef to = targetOf.get(from);
+            if (!to.equals(now.get(key.id()))) continue;
+            release.merge(to, -1, Integer::sum);
+            release.merge(from, 1, Integer::sum);
+        }
+        release.values().removeIf(n -> n <= 0);
+        if (!release.isEmpty()) repo.releaseAccountSlots(release);
+    }
+
+    private static Set<AccountRef> accountsOf(List<AccountMapping> batch) {
+        Set<AccountRef> accounts = new HashSet<>();
+        batch.forEach(m -> {
+            accounts.add(m.from());
+            accounts.add(m.to());
+        });
+        return accounts;
+    }
+
+    // Melhor esforço: uma conta que falhar aqui é recalculada de novo na retomada do lote
+    private void reconcileSlots(Set<AccountRef> accounts) {
+        for (AccountRef a : accounts) {
+            try {
+                repo.reconcileAccountSlots(a.agency(), a.account());
+            } catch (RuntimeException e) {
+                log.warn("consolidação: vagas da conta {}/{} não recalculadas", a.agency(), a.account(), e);
+            }
+        }
+    }
+
+    record BatchResult(long moved, List<String> rejectedIds) {
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String p = "pix-keys.consolidation.";
+        movedKeys = Counter.builder(p + "keys").tag("result", "moved").register(registry);
+        rejectedKeys = Counter.builder(p + "keys").tag("result", "rejected").register(registry);
+        appliedMappings = Counter.builder(p + "mappings").register(registry);
+        bulkWrite = Timer.builder(p + "bulk-write").publishPercentiles(0.5, 0.99).register(registry);
+        Gauge.builder(p + "running", runningHere, Set::size).register(registry);
+    }
+}
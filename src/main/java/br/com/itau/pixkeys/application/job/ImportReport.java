@@ -0,0 +1,24 @@
+package br.com.itau.pixkeys.application.job;
+
+import java.time.Duration;
+
+/**
+ * Resultado de uma importação.
+ *
+ * @param lines    linhas lidas do arquivo (inclui cabeçalho e linhas em branco)
+ * @param rejected linhas recusadas por formato ou regra de negócio (listadas no arquivo de rejeições)
+ * @param failed   linhas que não foram gravadas por erro de escrita (também no arquivo de rejeições)
+ * @param unknown  linhas com gravação sem confirmação: podem estar no banco; vão para o arquivo de rejeições
+ *                 com o {@code id} para conferência (reimportá-las é seguro: as gravadas voltam como duplicadas)
+ */
+public record ImportReport(long lines, long created, long rejected, long failed, long unknown, Duration elapsed) {
+
+    public double recordsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : (created + rejected + failed + unknown) * 1000.0 / millis;
+    }
+
+    public boolean clean() {
+        return rejected == 0 && failed == 0 && unknown == 0;
+    }
+}
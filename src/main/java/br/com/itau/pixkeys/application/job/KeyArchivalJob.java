@@ -0,0 +1,155 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.ArchivalRun;
+import br.com.itau.pixkeys.infrastructure.repository.KeyArchiveStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Arquivamento agendado: move as chaves inativadas há mais que a retenção de pix_keys para pix_keys_archive.
+ *
+ * Cada lote (keyset em inactivatedAt, _id pelo índice parcial idx_inactivated) é copiado em bulk para o
+ * arquivo, removido da coleção quente e registrado no checkpoint; entre lotes há uma pausa fixa para não
+ * disputar o banco com o tráfego online. Uma passada interrompida é retomada do checkpoint (no start da
+ * aplicação ou no próximo agendamento) por uma única instância, que detém a posse (lease).
+ */
+@Component
+public class KeyArchivalJob implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyArchivalJob.class);
+
+    private final KeyArchiveStore store;
+    private final PixKeysProperties.Archive cfg;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicBoolean runningHere = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "key-archival");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Counter archivedKeys;
+    private Counter skippedKeys;
+    private Timer bulkWrite;
+
+    public KeyArchivalJob(KeyArchiveStore store, PixKeysProperties properties) {
+        this.store = store;
+        this.cfg = properties.getArchive();
+    }
+
+    /** Agenda uma passada; ignorado se desabilitado ou se já houver uma rodando nesta instância. */
+    @Scheduled(cron = "${pix-keys.archive.cron:0 30 3 * * *}")
+    public void trigger() {
+        if (cfg.isEnabled() && runningHere.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    runNow();
+                } finally {
+                    runningHere.set(false);
+                }
+            });
+        }
+    }
+
+    /** Retoma a passada interrompida (queda/deploy) sem esperar o próximo agendamento. */
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeInterrupted() {
+        try {
+            if (cfg.isEnabled() && store.hasInterruptedRun()) trigger();
+        } catch (RuntimeException e) {
+            log.warn("não foi possível procurar arquivamento interrompido", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow(); // o lote em andamento é refeito na retomada (cópia por upsert, remoção condicional)
+    }
+
+    /**
+     * Executa uma passada na thread atual (a partir do checkpoint, se houver um interrompido).
+     *
+     * @return chaves arquivadas nesta execução (0 se outra instância detém a posse)
+     */
+    public long runNow() {
+        try {
+            Optional<ArchivalRun> acquired = store.tryAcquire(instanceId, cfg.getLease(),
+                    Instant.now().minus(cfg.getRetention()));
+            if (acquired.isEmpty()) {
+                log.info("arquivamento: em execução em outra instância");
+                return 0;
+            }
+            return run(acquired.get());
+        } catch (RuntimeException e) {
+            log.error("arquivamento: interrompido; retomável do último checkpoint", e);
+            store.release(instanceId, e.getMessage());
+            return 0;
+        }
+    }
+
+    long run(ArchivalRun run) {
+        long archived = 0;
+        List<Document> batch;
+        do {
+            batch = store.loadBatch(run, cfg.getBatchSize());
+            if (batch.isEmpty()) break;
+            List<Document> docs = batch;
+            long removed = bulkWrite.record(() -> store.archive(docs));
+            Document last = batch.get(batch.size() - 1);
+            run = run.advance(last.getDate("inactivatedAt").toInstant(), last.getString("_id"), removed);
+            if (!store.checkpoint(instanceId, run, removed, cfg.getLease())) {
+                log.warn("arquivamento: posse perdida em {}; outra instância continua", run.lastId());
+                return archived + removed;
+            }
+            archived += removed;
+            archivedKeys.increment(removed);
+            skippedKeys.increment(batch.size() - removed); // alteradas durante a cópia: ficam para a próxima passada
+        } while (batch.size() == cfg.getBatchSize() && pause());
+        if (Thread.currentThread().isInterrupted()) return archived;
+        store.finish(instanceId);
+        log.info("arquivamento: concluído, {} chave(s) nesta execução, {} na passada", archived, run.archivedKeys());
+        return archived;
+    }
+
+    /** @return {@code false} se a thread foi interrompida (desligamento): a passada fica para a retomada */
+    private boolean pause() {
+        try {
+            Thread.sleep(cfg.getPauseBetweenBatches());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            store.release(instanceId, "interrompido");
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String p = "pix-keys.archive.";
+        archivedKeys = Counter.builder(p + "keys").tag("result", "archived").register(registry);
+        skippedKeys = Counter.builder(p + "keys").tag("result", "skipped").register(registry);
+        bulkWrite = Timer.builder(p + "bulk-write").publishPercentiles(0.5, 0.99).register(registry);
+        Gauge.builder(p + "running", runningHere, r -> r.get() ? 1 : 0).register(registry);
+    }
+}
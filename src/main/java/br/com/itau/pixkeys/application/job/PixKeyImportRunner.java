@@ -0,0 +1,57 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Modo importação: com {@code --pix-keys.import.file=<arquivo>} a aplicação importa o arquivo ao subir.
+ * O exit code (0 sem rejeições, 2 com rejeições) é usado pelo {@code PixKeysApplication} para encerrar.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pix-keys.import", name = "file")
+public class PixKeyImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(PixKeyImportRunner.class);
+
+    private final PixKeyImporter importer;
+    private final PixKeysProperties.Import cfg;
+    private volatile int exitCode;
+
+    public PixKeyImportRunner(PixKeyImporter importer, PixKeysProperties properties) {
+        this.importer = importer;
+        this.cfg = properties.getImport();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path input = Path.of(cfg.getFile());
+        Path rejects = cfg.getRejectFile() != null
+                ? Path.of(cfg.getRejectFile())
+                : input.resolveSibling(input.getFileName() + ".rejects.ndjson");
+
+        ImportReport report = importer.importFile(input, rejects);
+        log.info("importação: {} gravadas, {} rejeitadas, {} falhas, {} sem confirmação em {} ({} registros/s); "
+                        + "rejeições em {}",
+                report.created(), report.rejected(), report.failed(), report.unknown(), report.elapsed(),
+                Math.round(report.recordsPerSecond()), rejects);
+        exitCode = report.clean() ? 0 : 2;
+    }
+
+    public boolean exitWhenDone() {
+        return cfg.isExitWhenDone();
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
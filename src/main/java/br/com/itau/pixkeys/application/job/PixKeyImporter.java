@@ -0,0 +1,360 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.api.dto.CreatePixKeyRequest;
+import br.com.itau.pixkeys.application.service.BatchCreateItem;
+import br.com.itau.pixkeys.application.service.BatchCreateResult;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
+import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de chaves a partir de arquivo NDJSON (mesmo JSON do POST /pix-keys, um por linha)
+ * ou CSV ({@code keyType,keyValue,accountType,agency,account,holderName,holderSurname}, cabeçalho opcional).
+ *
+ * Pipeline com memória limitada: a leitura agrupa as linhas em blocos, os blocos são validados em paralelo
+ * (Bean Validation + {@code KeyValidator} do tipo) e uma única thread de escrita consome os blocos na ordem
+ * do arquivo, gravando lotes pelo {@link PixKeyService#createAllValidated} (unicidade e limite por conta em
+ * consultas por conjunto, bulk insert não ordenado). O tamanho do lote se ajusta à latência de escrita.
+ * Toda linha rejeitada vai para o arquivo de rejeições com o motivo.
+ */
+@Component
+public class PixKeyImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PixKeyImporter.class);
+
+    static final List<String> CSV_COLUMNS =
+            List.of("keyType", "keyValue", "accountType", "agency", "account", "holderName", "holderSurname");
+
+    private static final long PROGRESS_EVERY = 100_000;
+
+    /** Marca de fim do arquivo na fila de blocos. */
+    private static final Future<List<ParsedLine>> END = CompletableFuture.completedFuture(null);
+
+    private final PixKeyService service;
+    private final KeyValidatorFactory factory;
+    private final Validator validator;
+    private final ObjectMapper mapper;
+    private final PixKeysProperties.Import cfg;
+
+    public PixKeyImporter(PixKeyService service, KeyValidatorFactory factory, Validator validator,
+                          ObjectMapper mapper, PixKeysProperties properties) {
+        this.service = service;
+        this.factory = factory;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.cfg = properties.getImport();
+    }
+
+    public ImportReport importFile(Path input, Path rejectFile) throws IOException {
+        boolean csv = input.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        int threads = cfg.getValidationThreads() > 0
+                ? cfg.getValidationThreads()
+                : Runtime.getRuntime().availableProcessors();
+        long started = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8);
+             ExecutorService validation = Executors.newFixedThreadPool(threads, named("pix-keys-import-validate-"));
+             ExecutorService writing = Executors.newSingleThreadExecutor(named("pix-keys-import-write-"))) {
+
+            // Fila limitada: a leitura bloqueia quando validação/escrita ficam para trás (memória constante)
+            BlockingQueue<Future<List<ParsedLine>>> pending = new ArrayBlockingQueue<>(threads * 2);
+            BatchWriter writer = new BatchWriter(rejects);
+            Future<?> writerDone = writing.submit(() -> writer.drain(pending));
+            try {
+                List<String> columns = csv ? CSV_COLUMNS : null;
+                List<RawLine> chunk = new ArrayList<>(cfg.getChunkSize());
+                long lineNo = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNo++;
+                    if (line.isBlank()) continue;
+                    if (csv && lineNo == 1 && isCsvHeader(line)) {
+                        columns = Arrays.stream(splitCsv(line)).map(String::strip).toList();
+                        continue;
+                    }
+                    chunk.add(new RawLine(lineNo, line));
+                    if (chunk.size() == cfg.getChunkSize()) {
+                        enqueue(pending, validation.submit(validate(chunk, columns)), writerDone);
+                        chunk = new ArrayList<>(cfg.getChunkSize());
+                    }
+                }
+                if (!chunk.isEmpty()) enqueue(pending, validation.submit(validate(chunk, columns)), writerDone);
+                enqueue(pending, END, writerDone);
+                await(writerDone);
+
+                ImportReport report = writer.report(lineNo, Duration.ofNanos(System.nanoTime() - started));
+                log.info("importação de {} concluída: {}", input, report);
+                return report;
+            } finally {
+                writerDone.cancel(true); // no-op se já terminou; senão libera a escrita presa na fila
+            }
+        }
+    }
+
+    private Callable<List<ParsedLine>> validate(List<RawLine> chunk, List<String> columns) {
+        return () -> {
+            List<ParsedLine> out = new ArrayList<>(chunk.size());
+            for (RawLine raw : chunk) out.add(parse(raw, columns));
+            return out;
+        };
+    }
+
+    ParsedLine parse(RawLine raw, List<String> csvColumns) {
+        CreatePixKeyRequest req;
+        try {
+            req = csvColumns == null
+                    ? mapper.readValue(raw.text(), CreatePixKeyRequest.class)
+                    : mapper.convertValue(csvRecord(raw.text(), csvColumns), CreatePixKeyRequest.class);
+        } catch (JsonProcessingException e) {
+            return ParsedLine.rejected(raw, "registro ilegível: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return ParsedLine.rejected(raw, "registro ilegível: " + e.getMessage().lines().findFirst().orElse(""));
+        }
+        if (req == null) return ParsedLine.rejected(raw, "registro vazio");
+
+        Set<ConstraintViolation<CreatePixKeyRequest>> violations = validator.validate(req);
+        if (!violations.isEmpty()) {
+            String reason = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return ParsedLine.rejected(raw, reason);
+        }
+        KeyValidationResult check = factory.check(req.keyType(), req.keyValue());
+        if (!check.isValid()) return ParsedLine.rejected(raw, check.message());
+
+        return new ParsedLine(raw, new BatchCreateItem(
+                req.keyType(), req.keyValue(),
+                req.accountType(), req.agency(), req.account(),
+                req.holderName(), req.holderSurname()
+        ), null);
+    }
+
+    private static Map<String, String> csvRecord(String line, List<String> columns) {
+        String[] fields = splitCsv(line);
+        if (fields.length != columns.size()) {
+            throw new IllegalArgumentException("esperadas " + columns.size() + " colunas, encontradas " + fields.length);
+        }
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            String value = fields[i].strip();
+            record.put(columns.get(i), value.isEmpty() ? null : value);
+        }
+        return record;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return Arrays.stream(splitCsv(line)).anyMatch(f -> f.strip().equalsIgnoreCase("keyType"));
+    }
+
+    /** Separa por vírgula respeitando campos entre aspas ({@code ""} dentro das aspas vira {@code "}). */
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>(CSV_COLUMNS.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    /** Entrega o bloco à escrita; se a escrita morreu, para a leitura com o erro dela. */
+    private static void enqueue(BlockingQueue<Future<List<ParsedLine>>> pending, Future<List<ParsedLine>> chunk,
+                                Future<?> writerDone) throws IOException {
+        try {
+            while (!pending.offer(chunk, 200, TimeUnit.MILLISECONDS)) {
+                if (writerDone.isDone()) {
+                    await(writerDone);
+                    throw new IllegalStateException("escrita encerrada antes do fim do arquivo");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("importação interrompida", e);
+        }
+    }
+
+    private static void await(Future<?> writerDone) throws IOException {
+        try {
+            writerDone.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("importação interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> new Thread(r, prefix + n.incrementAndGet());
+    }
+
+    record RawLine(long number, String text) {
+    }
+
+    /** Linha validada: {@code item} quando aceita, {@code reason} quando rejeitada. */
+    record ParsedLine(RawLine raw, BatchCreateItem item, String reason) {
+        static ParsedLine rejected(RawLine raw, String reason) {
+            return new ParsedLine(raw, null, reason);
+        }
+    }
+
+    /** Consome os blocos validados na ordem do arquivo; roda sempre em uma única thread. */
+    private final class BatchWriter {
+
+        private final BufferedWriter rejects;
+        private final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(
+                cfg.getInitialBatchSize(), cfg.getMinBatchSize(), cfg.getMaxBatchSize(), cfg.getTargetBatchLatency());
+        private long created;
+        private long rejected;
+        private long failed;
+        private long unknown;
+        private long processed;
+
+        BatchWriter(BufferedWriter rejects) {
+            this.rejects = rejects;
+        }
+
+        Void drain(BlockingQueue<Future<List<ParsedLine>>> pending) throws Exception {
+            List<ParsedLine> buffer = new ArrayList<>(batchSize.current());
+            List<ParsedLine> chunk;
+            while ((chunk = pending.take().get()) != null) {
+                for (ParsedLine line : chunk) {
+                    if (line.reason() != null) {
+                        rejected++;
+                        reject(line, line.reason());
+                        continue;
+                    }
+                    buffer.add(line);
+                    if (buffer.size() >= batchSize.current()) {
+                        flush(buffer);
+                        buffer.clear();
+                    }
+                }
+            }
+            if (!buffer.isEmpty()) flush(buffer);
+            rejects.flush();
+            return null;
+        }
+
+        private void flush(List<ParsedLine> buffer) throws IOException {
+            List<BatchCreateItem> items = buffer.stream().map(ParsedLine::item).toList();
+            long t0 = System.nanoTime();
+            List<BatchCreateResult> results;
+            try {
+                results = service.createAllValidated(items);
+            } catch (RuntimeException e) {
+                // só propaga falha anterior à reserva de vagas (leitura de unicidade): nada do lote foi gravado;
+                // vai inteiro para as rejeições e o próximo lote é menor. Da reserva em diante o resultado vem
+                // por item (FAILED, UNKNOWN), mesmo que a compensação de vagas falhe depois do bulk
+                batchSize.record(items.size(), Long.MAX_VALUE);
+                log.warn("importação: falha ao gravar lote de {} linhas", items.size(), e);
+                for (ParsedLine line : buffer) reject(line, "falha ao gravar: " + e.getMessage());
+                failed += items.size();
+                progress(items.size());
+                return;
+            }
+            batchSize.record(items.size(), System.nanoTime() - t0);
+
+            for (int i = 0; i < results.size(); i++) {
+                BatchCreateResult result = results.get(i);
+                switch (result.outcome()) {
+                    case CREATED -> created++;
+                    case REJECTED -> {
+                        rejected++;
+                        reject(buffer.get(i), result.reason());
+                    }
+                    case FAILED -> {
+                        failed++;
+                        reject(buffer.get(i), result.reason());
+                    }
+                    case UNKNOWN -> {
+                        unknown++;
+                        reject(buffer.get(i), result.reason() + " (id " + result.id() + ")");
+                    }
+                }
+            }
+            progress(items.size());
+        }
+
+        private void progress(int written) {
+            long before = processed;
+            processed += written;
+            if (before / PROGRESS_EVERY != processed / PROGRESS_EVERY) {
+                log.info("importação: {} gravadas, {} rejeitadas, {} falhas (lote atual: {})",
+                        created, rejected, failed, batchSize.current());
+            }
+        }
+
+        private void reject(ParsedLine line, String reason) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("line", line.raw().number());
+            row.put("reason", reason);
+            row.put("record", line.raw().text());
+            rejects.write(mapper.writeValueAsString(row));
+            rejects.newLine();
+        }
+
+        ImportReport report(long lines, Duration elapsed) {
+            return new ImportReport(lines, created, rejected, failed, unknown, elapsed);
+        }
+    }
+}
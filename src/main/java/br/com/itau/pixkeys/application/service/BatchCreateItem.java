@@ -0,0 +1,17 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyType;
+
+/**
+ * Um item da criação em lote (mesmos dados do {@link PixKeyService#create}).
+ */
+public record BatchCreateItem(
+        KeyType keyType,
+        String keyValue,
+        AccountType accountType,
+        String agency,
+        String account,
+        String holderName,
+        String holderSurname
+) {}
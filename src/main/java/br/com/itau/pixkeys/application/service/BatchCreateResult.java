@@ -0,0 +1,33 @@
+package br.com.itau.pixkeys.application.service;
+
+/**
+ * Resultado de um item da criação em lote, na mesma posição do item enviado.
+ *
+ * @param id     ID gerado, quando {@link Outcome#CREATED} ou {@link Outcome#UNKNOWN} (para conferir depois)
+ * @param reason motivo da rejeição/falha, caso contrário
+ */
+public record BatchCreateResult(Outcome outcome, String id, String reason) {
+
+    public enum Outcome {
+        CREATED,   // gravada
+        REJECTED,  // regra de negócio (validador, duplicidade, limite por conta)
+        FAILED,    // erro de escrita não relacionado à regra
+        UNKNOWN    // a escrita falhou sem confirmação e a conferência não achou a chave: pode ter sido gravada
+    }
+
+    static BatchCreateResult created(String id) {
+        return new BatchCreateResult(Outcome.CREATED, id, null);
+    }
+
+    static BatchCreateResult rejected(String reason) {
+        return new BatchCreateResult(Outcome.REJECTED, null, reason);
+    }
+
+    static BatchCreateResult failed(String reason) {
+        return new BatchCreateResult(Outcome.FAILED, null, reason);
+    }
+
+    static BatchCreateResult unknown(String id, String reason) {
+        return new BatchCreateResult(Outcome.UNKNOWN, id, reason);
+    }
+}
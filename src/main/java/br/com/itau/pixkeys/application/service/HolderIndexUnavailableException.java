@@ -0,0 +1,11 @@
+package br.com.itau.pixkeys.application.service;
+
+/**
+ * O índice de titulares em memória ainda não terminou a carga inicial (ou está desligado): a busca aproximada
+ * não tem como responder nesta instância agora.
+ */
+public class HolderIndexUnavailableException extends RuntimeException {
+    public HolderIndexUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+/**
+ * Chave encontrada na busca aproximada por titular.
+ *
+ * @param score semelhança (0..1] entre o titular da chave e o nome buscado
+ */
+public record HolderMatch(PixKey key, double score) {
+}
@@ -0,0 +1,22 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Uma página da busca por prefixo do titular.
+ *
+ * @param next posição para pedir a próxima página ({@code null} na última)
+ */
+public record HolderPage(List<PixKey> items, Position next) {
+
+    /** Última chave entregue ({@code holderSearch} asc, {@code id} asc). */
+    public record Position(String holderSearch, String id) {
+        public Position {
+            Objects.requireNonNull(holderSearch, "holderSearch");
+            Objects.requireNonNull(id, "id");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package br.com.itau.pixkeys.application.service;
+
+/**
+ * Parâmetros de busca que o cliente precisa corrigir: combinação de filtros sem índice, prefixo do titular curto
+ * demais ou token de página que não foi gerado pela API.
+ */
+public class InvalidSearchException extends RuntimeException {
+    public InvalidSearchException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
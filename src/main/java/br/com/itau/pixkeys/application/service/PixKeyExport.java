@@ -0,0 +1,80 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.IdRange;
+import br.com.itau.pixkeys.infrastructure.repository.MongoConcurrencyLimiter.StreamPermits;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyFilter;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Exportação aberta por {@link PixKeyService#openExport}: as permissões de cursor de todas as faixas já estão
+ * reservadas, então {@link #writeTo} não espera pelo limitador. Deve ser fechada (devolve as permissões).
+ */
+public class PixKeyExport implements AutoCloseable {
+
+    private final PixKeyRepository repo;
+    private final PixKeyFilter filter;
+    private final int parts;
+    private final int batchSize;
+    private final StreamPermits permits;
+
+    PixKeyExport(PixKeyRepository repo, PixKeyFilter filter, int parts, int batchSize, StreamPermits permits) {
+        this.repo = repo;
+        this.filter = filter;
+        this.parts = parts;
+        this.batchSize = batchSize;
+        this.permits = permits;
+    }
+
+    /**
+     * Entrega cada chave do filtro ao {@code sink}. Com mais de uma faixa não há ordem garantida e o
+     * {@code sink} precisa ser thread-safe; uma falha em qualquer faixa interrompe as demais.
+     */
+    public void writeTo(Consumer<PixKey> sink) {
+        if (parts == 1) {
+            permits.run(() -> repo.forEach(filter, IdRange.all(), batchSize, sink));
+            return;
+        }
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        Consumer<PixKey> guarded = k -> {
+            if (aborted.get()) throw new CancellationException("exportação interrompida");
+            sink.accept(k);
+        };
+        // uma virtual thread por faixa: o trabalho é espera de I/O (cursor e escrita da resposta)
+        try (ExecutorService pool = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("pix-keys-export-", 1).factory())) {
+            CompletionService<Void> scans = new ExecutorCompletionService<>(pool);
+            IdRange.split(parts).forEach(range -> scans.submit(() -> {
+                permits.run(() -> repo.forEach(filter, range, batchSize, guarded)); // permissão já reservada
+                return null;
+            }));
+            for (int done = 0; done < parts; done++) {
+                try {
+                    scans.take().get(); // na ordem de término: a primeira falha já interrompe as demais
+                } catch (ExecutionException e) {
+                    aborted.set(true);
+                    throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    aborted.set(true);
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("exportação interrompida");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        permits.close();
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Uma página da busca de chaves.
+ *
+ * @param next posição para pedir a próxima página ({@code null} na última)
+ */
+public record PixKeyPage(List<PixKey> items, Position next) {
+
+    /** Última chave entregue ({@code createdAt} desc, {@code id} desc): a próxima página começa logo depois dela. */
+    public record Position(Instant createdAt, String id) {
+        public Position {
+            Objects.requireNonNull(createdAt, "createdAt");
+            Objects.requireNonNull(id, "id");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyFilter;
+
+import java.time.Instant;
+
+/**
+ * Filtros da busca e da exportação de chaves, como chegam da API; cada campo não nulo restringe o resultado.
+ *
+ * @param holderName  nome do titular (igualdade)
+ * @param createdFrom início do intervalo de {@code createdAt} (inclusivo)
+ * @param createdTo   fim do intervalo de {@code createdAt} (exclusivo)
+ */
+public record PixKeyQuery(
+        KeyStatus status,
+        KeyType keyType,
+        String agency,
+        String account,
+        String holderName,
+        Instant createdFrom,
+        Instant createdTo
+) {
+
+    public static PixKeyQuery none() {
+        return new PixKeyQuery(null, null, null, null, null, null, null);
+    }
+
+    /**
+     * A busca paginada ordena por {@code createdAt} desc, {@code _id} desc; só são aceitas as combinações com um
+     * índice que entrega essa ordem sem varrer a coleção:
+     * <ul>
+     *   <li>{@code agency} + {@code account}, com quaisquer outros filtros (idx_account_active / idx_account_inactive;
+     *       poucas chaves por conta);</li>
+     *   <li>{@code keyType} + {@code status}, com ou sem intervalo de {@code createdAt} (idx_type_status_created);</li>
+     *   <li>só o intervalo de {@code createdAt}, ou nenhum filtro (idx_created).</li>
+     * </ul>
+     *
+     * @throws InvalidSearchException para as demais (ex.: {@code keyType} sem {@code status}, {@code holderName} sem a conta)
+     */
+    void requireIndexed() {
+        if (agency != null || account != null) {
+            if (agency == null || account == null) {
+                throw new InvalidSearchException("agency e account devem ser informados juntos");
+            }
+            return;
+        }
+        if (holderName != null) {
+            throw new InvalidSearchException("holderName exige agency e account (para titular, use /pix-keys/by-holder)");
+        }
+        if ((keyType == null) != (status == null)) {
+            throw new InvalidSearchException("keyType e status devem ser informados juntos (ou com agency e account)");
+        }
+    }
+
+    PixKeyFilter toFilter() {
+        return new PixKeyFilter(status, keyType, agency, account, holderName, createdFrom, createdTo);
+    }
+}
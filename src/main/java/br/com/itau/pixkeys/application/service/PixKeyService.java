@@ -3,77 +3,525 @@ package br.com.itau.pixkeys.application.service;
 import br.com.itau.pixkeys.api.NotFoundException;
 import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
+import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.AccountUpdate;
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import br.com.itau.pixkeys.domain.model.HolderUpdate;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.cache.HolderTrigramIndex;
+import br.com.itau.pixkeys.infrastructure.cache.KeyValueBloomFilter;
+import br.com.itau.pixkeys.infrastructure.cache.PixKeyCache;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties.CreateMode;
+import br.com.itau.pixkeys.infrastructure.repository.AccountInactivation;
+import br.com.itau.pixkeys.infrastructure.repository.AccountKeySummary;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import br.com.itau.pixkeys.infrastructure.repository.BulkInsertResult;
+import br.com.itau.pixkeys.infrastructure.repository.HolderCursor;
+import br.com.itau.pixkeys.infrastructure.repository.IdRange;
+import br.com.itau.pixkeys.infrastructure.repository.KeysetCursor;
+import br.com.itau.pixkeys.infrastructure.repository.MongoConcurrencyLimiter;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyFilter;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
 @Service
 public class PixKeyService {
 
-    private static final int ACCOUNT_KEYS_LIMIT = 5;
+    private static final Logger log = LoggerFactory.getLogger(PixKeyService.class);
+
+    /** Máximo de chaves ATIVAS por agência+conta. */
+    public static final int ACCOUNT_KEYS_LIMIT = 5;
+    /** Menor prefixo aceito na busca por titular (prefixos curtos varreriam boa parte do índice). */
+    public static final int MIN_HOLDER_PREFIX = 2;
+    /** Teto do {@code parallelism} da exportação: uma faixa de {@code _id} por leitura paralela. */
+    public static final int MAX_EXPORT_PARALLELISM = IdRange.MAX_PARTS;
+
+    private static final String DUPLICATE_KEY_VALUE = "chave já cadastrada para outro correntista";
+    private static final String ACCOUNT_LIMIT_REACHED = "limite de chaves por conta atingido";
 
     private final KeyValidatorFactory factory;
     private final PixKeyRepository repo;
+    private final PixKeysProperties properties;
+    private final PixKeyCache cache;
+    private final KeyValueBloomFilter bloomFilter;
+    private final HolderTrigramIndex holderIndex;
+    private final MongoConcurrencyLimiter limiter;
 
-    public PixKeyService(KeyValidatorFactory factory, PixKeyRepository repo) {
+    public PixKeyService(KeyValidatorFactory factory, PixKeyRepository repo,
+                         PixKeysProperties properties, PixKeyCache cache,
+                         KeyValueBloomFilter bloomFilter, HolderTrigramIndex holderIndex,
+                         MongoConcurrencyLimiter limiter) {
         this.factory = factory;
         this.repo = repo;
+        this.properties = properties;
+        this.cache = cache;
+        this.bloomFilter = bloomFilter;
+        this.holderIndex = holderIndex;
+        this.limiter = limiter;
     }
 
     /**
      * Cria a chave aplicando regras de negócio e retorna o ID gerado.
+     * A unicidade é garantida pelo índice uk_key_value: no modo OPTIMISTIC não há consulta prévia.
      */
     public String create(
             KeyType keyType, String keyValue,
             AccountType accountType, String agency, String account,
             String holderName, String holderSurname
     ) {
-        // 1) Validação (delegada à Strategy)
-        factory.forType(keyType).validate(keyValue);
-
-        // 2) Unicidade global
-        if (repo.findByKeyValue(keyValue).isPresent()) {
-            throw new BusinessRuleViolationException("chave já cadastrada para outro correntista");
-        }
-
-        // 3) Limite por conta
-        long current = repo.countByAgencyAndAccount(agency, account);
-        if (current >= ACCOUNT_KEYS_LIMIT) {
-            throw new BusinessRuleViolationException("limite de chaves por conta atingido");
+        // 1) Validação (delegada à Strategy) sem exceção no validador; rejeição vira 422 sem stack trace
+        KeyValidationResult validation = factory.check(keyType, keyValue);
+        if (!validation.isValid()) {
+            throw BusinessRuleViolationException.withoutStackTrace(validation.message());
         }
 
-        // 4) Persistência
         PixKey entity = PixKey.create(
                 keyType, keyValue, accountType, agency, account, holderName, holderSurname
         );
-        return repo.save(entity).id();
+
+        // 2) Unicidade global (só no modo CHECK_FIRST; no OPTIMISTIC quem decide é o índice).
+        //    O Bloom filter pula a consulta quando o valor certamente não foi visto.
+        if (properties.getCreate().getMode() == CreateMode.CHECK_FIRST) {
+            checkKeyValueNotTaken(entity.keyValue());
+        }
+
+        // 3) Limite por conta: reserva atômica de vaga (O(1), correta sob concorrência)
+        if (!repo.tryReserveAccountSlot(entity.agency(), entity.account(), ACCOUNT_KEYS_LIMIT)) {
+            throw accountLimitReached();
+        }
+
+        // 4) Persistência: insert (nunca upsert); corrida/duplicidade vira 422 pelo uk_key_value.
+        //    A vaga só é devolvida quando a chave certamente não foi gravada (ver settleUnconfirmed).
+        PixKey created;
+        try {
+            created = repo.insert(entity);
+        } catch (DuplicateKeyException e) {
+            repo.releaseAccountSlot(entity.agency(), entity.account());
+            throw duplicateKeyValue();
+        } catch (RuntimeException e) {
+            created = settleUnconfirmed(entity, e);
+        }
+        cache.put(created); // sobrescreve um eventual "não encontrada" em cache para este valor
+        bloomFilter.put(created.keyValue());
+        holderIndex.accept(created);
+        return created.id();
+    }
+
+    /**
+     * Insert que falhou sem dizer se gravou (timeout, write concern, erro de rede): a leitura por {@code _id}
+     * (gerado aqui) decide. Gravada, segue como criada; ausente, a vaga é devolvida e o erro propaga. Se nem a
+     * leitura responder, o contador da conta é recalculado pelas ativas em vez de adivinhar.
+     */
+    private PixKey settleUnconfirmed(PixKey entity, RuntimeException failure) {
+        Optional<PixKey> stored;
+        try {
+            stored = repo.findById(entity.id());
+        } catch (RuntimeException readFailure) {
+            failure.addSuppressed(readFailure);
+            reconcileSlots(new AccountRef(entity.agency(), entity.account()));
+            throw failure;
+        }
+        if (stored.isPresent()) return stored.get();
+        repo.releaseAccountSlot(entity.agency(), entity.account());
+        throw failure;
+    }
+
+    // Melhor esforço: se o recálculo também falhar, o próximo caminho ambíguo da conta tenta de novo
+    private void reconcileSlots(AccountRef account) {
+        try {
+            repo.reconcileAccountSlots(account.agency(), account.account());
+        } catch (RuntimeException e) {
+            log.warn("vagas da conta {}/{} não recalculadas", account.agency(), account.account(), e);
+        }
+    }
+
+    private void checkKeyValueNotTaken(String keyValue) {
+        if (!bloomFilter.mightContain(keyValue)) {
+            return;
+        }
+        if (repo.existsByKeyValue(keyValue)) {
+            throw duplicateKeyValue();
+        }
+        bloomFilter.recordFalsePositive();
+    }
+
+    /**
+     * Criação em lote: valida cada item, checa unicidade e limite por conta para o lote inteiro
+     * (consultas por conjunto) e grava tudo em um único bulk insert não ordenado.
+     * Cada item tem o seu resultado, na mesma ordem da entrada; um item rejeitado não afeta os demais.
+     * Só falhas anteriores à reserva de vagas (leitura de unicidade) propagam; daí em diante, inclusive na
+     * compensação de vagas depois do bulk, o resultado vem por item.
+     */
+    public List<BatchCreateResult> createAll(List<BatchCreateItem> items) {
+        return createAll(items, true);
+    }
+
+    /**
+     * Igual ao {@link #createAll(List)}, para itens cujo valor já passou pelo {@code KeyValidator} do tipo
+     * (a importação valida em paralelo antes de agrupar os lotes de escrita).
+     */
+    public List<BatchCreateResult> createAllValidated(List<BatchCreateItem> items) {
+        return createAll(items, false);
+    }
+
+    private List<BatchCreateResult> createAll(List<BatchCreateItem> items, boolean validateKeys) {
+        int size = items.size();
+        BatchCreateResult[] results = new BatchCreateResult[size];
+        PixKey[] candidates = new PixKey[size];
+        Set<String> keyValues = new HashSet<>();
+
+        // 1) Validação por item (Strategy) e repetição dentro do próprio lote (vale a primeira ocorrência)
+        for (int i = 0; i < size; i++) {
+            BatchCreateItem item = items.get(i);
+            KeyValidationResult validation = validateKeys
+                    ? factory.check(item.keyType(), item.keyValue())
+                    : KeyValidationResult.VALID;
+            if (!validation.isValid()) {
+                results[i] = BatchCreateResult.rejected(validation.message());
+                continue;
+            }
+            PixKey entity = PixKey.create(
+                    item.keyType(), item.keyValue(), item.accountType(),
+                    item.agency(), item.account(), item.holderName(), item.holderSurname()
+            );
+            if (!keyValues.add(entity.keyValue())) {
+                results[i] = BatchCreateResult.rejected("chave repetida no lote");
+                continue;
+            }
+            candidates[i] = entity;
+        }
+
+        // 2) Unicidade global: um único $in para o lote
+        Set<String> taken = repo.findExistingKeyValues(keyValues);
+        Map<AccountRef, Integer> requested = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            PixKey c = candidates[i];
+            if (c == null) continue;
+            if (taken.contains(c.keyValue())) {
+                results[i] = BatchCreateResult.rejected(DUPLICATE_KEY_VALUE);
+                candidates[i] = null;
+            } else {
+                requested.merge(new AccountRef(c.agency(), c.account()), 1, Integer::sum);
+            }
+        }
+
+        // 3) Limite por conta: vagas reservadas por conta de uma vez; as concedidas vão para os primeiros itens.
+        //    Uma falha aqui pode ter concedido parte das vagas: nada foi gravado, as contas são recontadas.
+        Map<AccountRef, Integer> granted;
+        try {
+            granted = repo.reserveAccountSlots(requested, ACCOUNT_KEYS_LIMIT);
+        } catch (RuntimeException e) {
+            log.warn("criação em lote: reserva de vagas sem confirmação para {} conta(s)", requested.size(), e);
+            requested.keySet().forEach(this::reconcileSlots);
+            for (int i = 0; i < size; i++) {
+                if (candidates[i] != null) results[i] = BatchCreateResult.failed("falha ao reservar vaga na conta");
+            }
+            return Arrays.asList(results);
+        }
+        Map<AccountRef, Integer> available = new HashMap<>(granted);
+        List<PixKey> toInsert = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            PixKey c = candidates[i];
+            if (c == null) continue;
+            AccountRef ref = new AccountRef(c.agency(), c.account());
+            if (available.getOrDefault(ref, 0) == 0) {
+                results[i] = BatchCreateResult.rejected(ACCOUNT_LIMIT_REACHED);
+                continue;
+            }
+            available.merge(ref, -1, Integer::sum);
+            toInsert.add(c);
+            positions.add(i);
+        }
+
+        // 4) Persistência: um bulk insert não ordenado; vagas de quem não foi gravado são devolvidas
+        BulkInsertResult written;
+        try {
+            written = repo.insertUnordered(toInsert);
+        } catch (RuntimeException e) {
+            log.warn("criação em lote: bulk de {} chaves sem confirmação; conferindo pelos IDs", toInsert.size(), e);
+            settleUnconfirmed(toInsert, positions, results);
+            return Arrays.asList(results);
+        }
+        Map<AccountRef, Integer> unused = new HashMap<>();
+        for (int j = 0; j < toInsert.size(); j++) {
+            PixKey c = toInsert.get(j);
+            int i = positions.get(j);
+            if (written.isInserted(j)) {
+                markCreated(c);
+                results[i] = BatchCreateResult.created(c.id());
+                continue;
+            }
+            unused.merge(new AccountRef(c.agency(), c.account()), 1, Integer::sum);
+            results[i] = written.duplicateKeyIndexes().contains(j)
+                    ? BatchCreateResult.rejected(DUPLICATE_KEY_VALUE)
+                    : BatchCreateResult.failed("falha ao gravar a chave");
+        }
+        if (!unused.isEmpty()) releaseOrReconcile(unused);
+        return Arrays.asList(results);
+    }
+
+    // Compensação depois do bulk: as chaves já estão gravadas, então uma falha aqui não muda os resultados
+    private void releaseOrReconcile(Map<AccountRef, Integer> unused) {
+        try {
+            repo.releaseAccountSlots(unused);
+        } catch (RuntimeException e) {
+            log.warn("criação em lote: vagas não devolvidas; recontando {} conta(s)", unused.size(), e);
+            unused.keySet().forEach(this::reconcileSlots);
+        }
     }
 
     /**
-     * Busca por ID ou lança 404 (NotFoundException) para o handler transformar em HTTP 404.
+     * Bulk que falhou sem dizer o que gravou (timeout, write concern, erro de rede): parte das chaves pode estar
+     * no banco. Os IDs são gerados aqui, então uma leitura por {@code _id} resolve quem foi gravado; o resto fica
+     * {@link BatchCreateResult.Outcome#UNKNOWN}. As vagas das contas com itens UNKNOWN não são devolvidas por
+     * diferença (ausência na leitura não prova que a escrita não vai chegar): o contador é recontado pelas ativas,
+     * para que a reserva de um item que não foi gravado não ocupe a conta para sempre nem conte duas vezes num
+     * reenvio.
+     */
+    private void settleUnconfirmed(List<PixKey> toInsert, List<Integer> positions, BatchCreateResult[] results) {
+        Set<String> stored = new HashSet<>();
+        try {
+            repo.findAllById(toInsert.stream().map(PixKey::id).toList()).forEach(k -> stored.add(k.id()));
+        } catch (RuntimeException e) {
+            log.warn("criação em lote: conferência dos IDs falhou; {} chaves ficam sem confirmação", toInsert.size(), e);
+        }
+        Set<AccountRef> unconfirmed = new HashSet<>();
+        for (int j = 0; j < toInsert.size(); j++) {
+            PixKey c = toInsert.get(j);
+            if (stored.contains(c.id())) {
+                markCreated(c);
+                results[positions.get(j)] = BatchCreateResult.created(c.id());
+            } else {
+                unconfirmed.add(new AccountRef(c.agency(), c.account()));
+                results[positions.get(j)] = BatchCreateResult.unknown(c.id(), "gravação sem confirmação; verificar pelo id");
+            }
+        }
+        unconfirmed.forEach(this::reconcileSlots);
+    }
+
+    private void markCreated(PixKey c) {
+        cache.invalidate(c); // descarta um eventual "não encontrada" em cache para este valor
+        bloomFilter.put(c.keyValue());
+        holderIndex.accept(c);
+    }
+
+    private static BusinessRuleViolationException duplicateKeyValue() {
+        return new BusinessRuleViolationException(DUPLICATE_KEY_VALUE);
+    }
+
+    private static BusinessRuleViolationException accountLimitReached() {
+        return new BusinessRuleViolationException(ACCOUNT_LIMIT_REACHED);
+    }
+
+    /**
+     * Busca por ID (read-through no cache local) ou lança 404 (NotFoundException) para o handler transformar em HTTP 404.
+     * O arquivo (chaves inativas antigas) só é consultado quando o ID não está na coleção quente. Chaves
+     * arquivadas são só leitura: as escritas procuram apenas na coleção quente e respondem 404 para elas.
      */
     public PixKey findById(String id) {
-        return repo.findById(id).orElseThrow(() ->
+        return cache.findById(id, k -> repo.findById(k).or(() -> repo.findArchivedById(k))).orElseThrow(() ->
                 new NotFoundException("pix key não encontrada: " + id));
     }
 
     /**
-     * Inativa (soft delete) a chave. Lança 404 se não existir e 422 se já estiver inativa.
+     * Resolve uma chave ATIVA pelo valor (fluxo do pagador), com cache positivo e negativo; 404 se não houver.
+     */
+    public PixKey findActiveByKeyValue(String keyValue) {
+        String value = keyValue == null ? "" : keyValue.strip();
+        return cache.findActiveByKeyValue(value, v -> repo.findByKeyValueAndStatus(v, KeyStatus.ACTIVE))
+                .orElseThrow(() -> new NotFoundException("pix key não encontrada: " + value));
+    }
+
+    /**
+     * Busca em lote por IDs: o que não está no cache sai de um único {@code $in} em {@code _id}, e o que também
+     * faltar na coleção quente, de um segundo {@code $in} no arquivo (mesma semântica de {@link #findById}).
+     * Resultado na ordem da entrada; {@code Optional.empty()} marca ID inexistente.
+     */
+    public List<Optional<PixKey>> findAllByIds(List<String> ids) {
+        Map<String, PixKey> found = cache.findAllById(ids, missing -> {
+            Map<String, PixKey> loaded = new HashMap<>();
+            repo.findAllById(missing).forEach(k -> loaded.put(k.id(), k));
+            if (loaded.size() < missing.size()) {
+                List<String> notHot = missing.stream().filter(id -> !loaded.containsKey(id)).toList();
+                repo.findAllArchivedById(notHot).forEach(k -> loaded.put(k.id(), k));
+            }
+            return loaded;
+        });
+        return ids.stream().map(id -> Optional.ofNullable(found.get(id))).toList();
+    }
+
+    /**
+     * Busca em lote de chaves ATIVAS por valor (mesma semântica e cache do GET by-value), com um único
+     * {@code $in} no índice uk_key_value para o que não está no cache. Resultado na ordem da entrada.
+     */
+    public List<Optional<PixKey>> findAllActiveByKeyValues(List<String> keyValues) {
+        List<String> values = keyValues.stream().map(v -> v == null ? "" : v.strip()).toList();
+        Map<String, Optional<PixKey>> found = cache.findAllActiveByKeyValue(values, missing -> {
+            Map<String, PixKey> loaded = new HashMap<>();
+            repo.findByKeyValueInAndStatus(missing, KeyStatus.ACTIVE).forEach(k -> loaded.put(k.keyValue(), k));
+            return loaded;
+        });
+        return values.stream().map(v -> found.getOrDefault(v, Optional.empty())).toList();
+    }
+
+    /**
+     * Inativa (soft delete) a chave e devolve a vaga da conta. Lança 404 se não existir e 422 se já estiver inativa.
      */
     public PixKey inactivate(String id) {
-        PixKey current = repo.findById(id)
-                .orElseThrow(() -> new NotFoundException("pix key não encontrada: " + id));
-        if (current.isInactive()) {
-            throw new BusinessRuleViolationException("chave já inativada");
+        return inactivate(id, null);
+    }
+
+    /**
+     * Inativa em uma única escrita condicional (filtro {@code status: ACTIVE}) e devolve a vaga da conta.
+     * Com {@code expectedVersion} informada, lança 409 se a chave tiver sido alterada nesse meio tempo.
+     */
+    public PixKey inactivate(String id, Long expectedVersion) {
+        PixKey updated = repo.inactivateIfActive(id, expectedVersion, Instant.now())
+                .orElseThrow(() -> rejected(id, "chave já inativada"));
+        cache.put(updated);
+        holderIndex.accept(updated);
+        repo.releaseAccountSlot(updated.agency(), updated.account());
+        return updated;
+    }
+
+    /**
+     * Encerramento de conta: inativa todas as chaves ativas de agência+conta em uma única escrita,
+     * atualiza o cache de cada chave afetada e devolve as vagas da conta. Conta sem chaves ativas devolve lista vazia.
+     */
+    public List<PixKey> inactivateAllOfAccount(String agency, String account) {
+        AccountInactivation result = repo.inactivateAllActive(agency, account, Instant.now());
+        if (result.inactivated() == 0) return List.of();
+        result.keys().forEach(cache::put);
+        result.keys().forEach(holderIndex::accept);
+        repo.releaseAccountSlots(Map.of(new AccountRef(agency, account), (int) result.inactivated()));
+        return result.keys();
+    }
+
+    /**
+     * Troca o titular (nome/sobrenome) de todas as chaves ativas da conta em uma única escrita, com a mesma
+     * normalização de {@link PixKey#updateAccount}, e atualiza o cache de cada chave. Conta sem chaves ativas
+     * devolve lista vazia.
+     */
+    public List<PixKey> updateHolderOfAccount(String agency, String account, String holderName, String holderSurname) {
+        List<PixKey> updated = repo.updateHolderOfActive(agency, account, HolderUpdate.of(holderName, holderSurname));
+        updated.forEach(cache::put);
+        updated.forEach(holderIndex::accept);
+        return updated;
+    }
+
+    /**
+     * Listagem compacta das chaves da conta (tela "minhas chaves"), opcionalmente só de um status, direto do
+     * índice da conta (consulta coberta). Não passa pelo cache.
+     */
+    public List<AccountKeySummary> listAccountKeys(String agency, String account, KeyStatus status) {
+        return repo.findAccountSummaries(agency, account, status);
+    }
+
+    /**
+     * Busca filtrada paginada por chave ({@code createdAt} desc, {@code id} desc): lê {@code limit + 1} para
+     * saber se há próxima página sem contar o total. Não passa pelo cache.
+     *
+     * @throws InvalidSearchException se a combinação de filtros não tiver índice ({@link PixKeyQuery#requireIndexed()})
+     */
+    public PixKeyPage search(PixKeyQuery query, PixKeyPage.Position after, int limit) {
+        query.requireIndexed();
+        KeysetCursor cursor = after == null ? null : new KeysetCursor(after.createdAt(), after.id());
+        List<PixKey> found = repo.search(query.toFilter(), cursor, limit + 1);
+        if (found.size() <= limit) return new PixKeyPage(found, null);
+        List<PixKey> page = found.subList(0, limit);
+        PixKey last = page.get(limit - 1);
+        return new PixKeyPage(List.copyOf(page), new PixKeyPage.Position(last.createdAt(), last.id()));
+    }
+
+    /**
+     * Busca por prefixo do nome do titular entre as chaves ATIVAS, sem diferenciar acentos nem maiúsculas: o prefixo é normalizado
+     * como o campo gravado ({@link HolderSearch}) e lido como faixa do índice. Paginação por chave
+     * ({@code holderSearch}, {@code id}), lendo {@code limit + 1}. Não passa pelo cache.
+     *
+     * @throws InvalidSearchException se o prefixo normalizado tiver menos de {@value #MIN_HOLDER_PREFIX} caracteres
+     */
+    public HolderPage searchByHolderPrefix(String prefix, HolderPage.Position after, int limit) {
+        String normalized = HolderSearch.normalize(prefix);
+        if (normalized.length() < MIN_HOLDER_PREFIX) {
+            throw new InvalidSearchException("prefixo do titular deve ter ao menos " + MIN_HOLDER_PREFIX + " caracteres");
+        }
+        HolderCursor cursor = after == null ? null : new HolderCursor(after.holderSearch(), after.id());
+        List<PixKey> found = repo.findByHolderPrefix(normalized, cursor, limit + 1);
+        if (found.size() <= limit) return new HolderPage(found, null);
+        List<PixKey> page = found.subList(0, limit);
+        PixKey last = page.get(limit - 1);
+        return new HolderPage(List.copyOf(page),
+                new HolderPage.Position(HolderSearch.of(last.holderName(), last.holderSurname()), last.id()));
+    }
+
+    /**
+     * Busca aproximada por titular (erros de digitação, acentos, partes do nome fora de ordem) no índice de
+     * trigramas em memória, da chave mais parecida para a menos parecida. As chaves encontradas vêm do cache
+     * / um único {@code $in}; as que deixaram de estar ativas entre o índice e a leitura ficam de fora.
+     *
+     * @throws HolderIndexUnavailableException enquanto o índice não terminou a carga inicial (ou está desligado)
+     */
+    public List<HolderMatch> findHolderMatches(String name, int limit) {
+        if (!holderIndex.isReady()) throw new HolderIndexUnavailableException("índice de titulares indisponível");
+        List<HolderTrigramIndex.Match> matches = holderIndex.search(name, limit);
+        if (matches.isEmpty()) return List.of();
+        List<Optional<PixKey>> keys = findAllByIds(matches.stream().map(HolderTrigramIndex.Match::id).toList());
+        List<HolderMatch> result = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            double score = matches.get(i).score();
+            keys.get(i).filter(k -> k.status() == KeyStatus.ACTIVE)
+                    .ifPresent(k -> result.add(new HolderMatch(k, score)));
         }
-        PixKey updated = current.inactivate();
-        return repo.save(updated);
+        return result;
     }
 
     /**
-     * Troca a conta da chave (valida limite quando muda de conta).
+     * Exportação completa: percorre com cursor as chaves do filtro e entrega cada uma ao {@code sink}, sem
+     * passar pelo cache. Com {@code parallelism > 1} (limitado por {@code pix-keys.export.max-parallelism})
+     * as faixas de {@code _id} são varridas em paralelo: não há ordem garantida e o {@code sink} precisa ser
+     * thread-safe. Uma falha em qualquer faixa interrompe as demais.
+     */
+    public void exportAll(PixKeyQuery query, int parallelism, Consumer<PixKey> sink) {
+        try (PixKeyExport export = openExport(query, parallelism)) {
+            export.writeTo(sink);
+        }
+    }
+
+    /**
+     * Abre a exportação reservando já, na thread de quem chama, uma permissão de cursor por faixa. Sem vaga no
+     * limitador falha aqui com 503, antes de a resposta ser confirmada; depois disso as faixas não esperam por
+     * permissão e o NDJSON não é truncado por sobrecarga.
+     */
+    public PixKeyExport openExport(PixKeyQuery query, int parallelism) {
+        PixKeyFilter filter = query.toFilter();
+        int parts = Math.max(1, Math.min(parallelism, Math.min(properties.getExport().getMaxParallelism(), IdRange.MAX_PARTS)));
+        return new PixKeyExport(repo, filter, parts, properties.getExport().getCursorBatchSize(),
+                limiter.reserveStreams(parts));
+    }
+
+    /**
+     * Troca a conta da chave (valida limite quando muda de conta, transferindo a vaga para o destino).
      */
     public PixKey updateAccount(
             String id,
@@ -83,30 +531,80 @@ public class PixKeyService {
             String newHolderName,
             String newHolderSurname
     ) {
-        // 1) Carrega ou 404
+        return updateAccount(id, newAccountType, newAgency, newAccount, newHolderName, newHolderSurname, null);
+    }
+
+    /**
+     * Atualiza conta/titular com {@code $set} parcial e condicional; {@code expectedVersion} (opcional) dá 409 em conflito.
+     */
+    public PixKey updateAccount(
+            String id,
+            AccountType newAccountType,
+            String newAgency,
+            String newAccount,
+            String newHolderName,
+            String newHolderSurname,
+            Long expectedVersion
+    ) {
+        // 1) Normaliza no domínio (mesmas regras de PixKey.updateAccount)
+        AccountUpdate change = AccountUpdate.of(
+                newAccountType, newAgency, newAccount, newHolderName, newHolderSurname
+        );
+
+        // 2) Caminho comum, mesma agência/conta: uma escrita condicional, sem leitura prévia nem vagas
+        Optional<PixKey> inPlace = repo.updateAccountIfActive(
+                id, change.agency(), change.account(), expectedVersion, change);
+        if (inPlace.isPresent()) {
+            cache.put(inPlace.get());
+            holderIndex.accept(inPlace.get());
+            return inPlace.get();
+        }
+
+        // 3) Não casou: carrega para decidir entre 404/422/409 ou descobrir a conta de origem
         PixKey current = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("pix key não encontrada: " + id));
-
-        // 2) Regra mais barata: não permite alterar chave inativa
         if (current.isInactive()) {
             throw new BusinessRuleViolationException("chave inativa");
         }
+        if (current.isSameAccount(change.agency(), change.account())
+                || (expectedVersion != null && !expectedVersion.equals(current.version()))) {
+            throw versionConflict(id);
+        }
 
-        // 3) Só valida limite se realmente trocar agência/conta
-        boolean sameAccount = current.agency().equals(newAgency) && current.account().equals(newAccount);
-        if (!sameAccount) {
-            long countAtTarget = repo.countByAgencyAndAccount(newAgency, newAccount);
-            if (countAtTarget >= ACCOUNT_KEYS_LIMIT) {
-                throw new BusinessRuleViolationException("limite de chaves por conta atingido");
-            }
+        // 4) Outra conta: reserva vaga no destino antes de gravar
+        if (!repo.tryReserveAccountSlot(change.agency(), change.account(), ACCOUNT_KEYS_LIMIT)) {
+            throw accountLimitReached();
         }
 
-        // 4) Atualiza no domínio (mantém invariantes e normalização)
-        PixKey updated = current.updateAccount(
-                newAccountType, newAgency, newAccount, newHolderName, newHolderSurname
-        );
+        // 5) Grava só se a chave ainda estiver ativa na conta de origem; a vaga de origem só é liberada
+        //    depois da gravação (em falha ou corrida, devolve a do destino)
+        Optional<PixKey> moved;
+        try {
+            moved = repo.updateAccountIfActive(id, current.agency(), current.account(), expectedVersion, change);
+        } catch (RuntimeException e) {
+            repo.releaseAccountSlot(change.agency(), change.account());
+            throw e;
+        }
+        if (moved.isEmpty()) {
+            repo.releaseAccountSlot(change.agency(), change.account());
+            throw versionConflict(id);
+        }
+        cache.put(moved.get());
+        holderIndex.accept(moved.get());
+        repo.releaseAccountSlot(current.agency(), current.account());
+        return moved.get();
+    }
+
+    // A escrita condicional não casou: uma leitura (só no caminho de erro) decide entre 404, 422 e 409
+    private RuntimeException rejected(String id, String inactiveMessage) {
+        PixKey current = repo.findById(id)
+                .orElseThrow(() -> new NotFoundException("pix key não encontrada: " + id));
+        return current.isInactive()
+                ? new BusinessRuleViolationException(inactiveMessage)
+                : versionConflict(id);
+    }
 
-        // 5) Persiste e retorna
-        return repo.save(updated);
+    private static OptimisticLockingFailureException versionConflict(String id) {
+        return new OptimisticLockingFailureException("pix key alterada concorrentemente: " + id);
     }
-}
\ No newline at end of file
+}
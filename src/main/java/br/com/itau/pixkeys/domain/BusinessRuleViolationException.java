@@ -5,5 +5,16 @@ public class BusinessRuleViolationException extends RuntimeException {
     public BusinessRuleViolationException(String message) {
         super(message);
     }
-}
 
+    /**
+     * Variante sem stack trace, para rejeições esperadas e frequentes (ex.: valor de chave inválido),
+     * em que o rastro não agrega diagnóstico e só custa CPU.
+     */
+    public static BusinessRuleViolationException withoutStackTrace(String message) {
+        return new BusinessRuleViolationException(message, false);
+    }
+
+    private BusinessRuleViolationException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+}
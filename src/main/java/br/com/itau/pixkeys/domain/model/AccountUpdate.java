@@ -0,0 +1,34 @@
+package br.com.itau.pixkeys.domain.model;
+
+import br.com.itau.pixkeys.domain.AccountType;
+
+import java.util.Objects;
+
+/**
+ * Novos dados de conta/titular de uma chave, já normalizados (mesmas regras de {@link PixKey#updateAccount}).
+ * Permite montar o {@code $set} parcial sem carregar o documento antes.
+ */
+public record AccountUpdate(
+        AccountType accountType,
+        String agency,
+        String account,
+        String holderName,
+        String holderSurname
+) {
+    public static AccountUpdate of(
+            AccountType accountType,
+            String agency,
+            String account,
+            String holderName,
+            String holderSurname
+    ) {
+        Objects.requireNonNull(accountType, "accountType não pode ser nulo");
+        return new AccountUpdate(
+                accountType,
+                PixKey.requireAndTrim(agency),
+                PixKey.requireAndTrim(account),
+                PixKey.requireAndTrim(holderName),
+                PixKey.sanitizeOptional(holderSurname)
+        );
+    }
+}
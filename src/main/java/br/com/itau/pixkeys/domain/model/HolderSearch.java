@@ -0,0 +1,35 @@
+package br.com.itau.pixkeys.domain.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forma de busca do nome do titular: sem acentos e em minúsculas (mesma normalização de
+ * {@code AccountType.from}), com espaços colapsados. Gravada junto de cada chave (campo {@value #FIELD})
+ * para a busca por prefixo ir direto ao índice.
+ */
+public final class HolderSearch {
+
+    public static final String FIELD = "holderSearch";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private HolderSearch() {
+    }
+
+    /** Nome completo ("nome sobrenome") normalizado. */
+    public static String of(String holderName, String holderSurname) {
+        String full = holderSurname == null || holderSurname.isBlank()
+                ? holderName
+                : holderName + " " + holderSurname;
+        return normalize(full);
+    }
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String noMarks = MARKS.matcher(Normalizer.normalize(text.strip(), Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(noMarks.toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+}
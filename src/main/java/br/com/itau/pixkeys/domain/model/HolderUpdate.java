@@ -0,0 +1,15 @@
+package br.com.itau.pixkeys.domain.model;
+
+/**
+ * Novos dados do titular de uma conta, já normalizados (mesmas regras de {@link PixKey#updateAccount}).
+ * Aplicado de uma vez a todas as chaves ativas da conta.
+ */
+public record HolderUpdate(String holderName, String holderSurname) {
+
+    public static HolderUpdate of(String holderName, String holderSurname) {
+        return new HolderUpdate(
+                PixKey.requireAndTrim(holderName),
+                PixKey.sanitizeOptional(holderSurname)
+        );
+    }
+}
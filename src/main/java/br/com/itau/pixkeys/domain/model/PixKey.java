@@ -5,6 +5,7 @@ import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -17,8 +18,25 @@ import java.util.UUID;
 @CompoundIndexes({
         // Unicidade global do VALOR DA CHAVE (critério do case)
         @CompoundIndex(name = "uk_key_value", def = "{ 'keyValue': 1 }", unique = true),
-        // Índice para consultas por conta (agência+conta)
-        @CompoundIndex(name = "idx_account", def = "{ 'agency': 1, 'account': 1 }")
+        // Chaves ATIVAS por conta (índice parcial: cresce com as chaves vivas, não com o histórico): limite por conta,
+        // operações em massa da conta e busca por conta+ACTIVE; keyType/keyValue tornam a listagem consulta coberta
+        @CompoundIndex(name = "idx_account_active",
+                def = "{ 'agency': 1, 'account': 1, 'status': 1, 'createdAt': -1, '_id': -1, 'keyType': 1, 'keyValue': 1 }",
+                partialFilter = "{ 'status': 'ACTIVE' }"),
+        // Inativas por conta (parcial, leitura fria): listagem das inativas; a busca por conta sem status e a
+        // consolidação consultam um ramo por status ($or), cada um no seu índice parcial
+        @CompoundIndex(name = "idx_account_inactive", def = "{ 'agency': 1, 'account': 1, 'createdAt': -1, '_id': -1 }",
+                partialFilter = "{ 'status': 'INACTIVE' }"),
+        // Busca paginada por tipo/status e listagem geral (paginação por chave em createdAt, _id). Completos de
+        // propósito: servem a listagem administrativa de qualquer status, não as consultas quentes por conta/titular
+        @CompoundIndex(name = "idx_type_status_created", def = "{ 'keyType': 1, 'status': 1, 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "idx_created", def = "{ 'createdAt': -1, '_id': -1 }"),
+        // Busca por prefixo do titular (somente ativas, índice parcial): holderSearch é gravado só no documento
+        @CompoundIndex(name = "idx_holder_search", def = "{ 'holderSearch': 1, '_id': 1 }",
+                partialFilter = "{ 'status': 'ACTIVE' }"),
+        // Arquivamento: inativas em ordem de inativação (parcial: não pesa nas escritas das ativas)
+        @CompoundIndex(name = "idx_inactivated", def = "{ 'inactivatedAt': 1, '_id': 1 }",
+                partialFilter = "{ 'status': 'INACTIVE' }")
 })
 public record PixKey(
         @Id String id,                 // ID exigido pelo case em formato UUID (string)
@@ -31,7 +49,8 @@ public record PixKey(
         String holderSurname,          // opcional (nulo vira "")
         KeyStatus status,              // ACTIVE/INACTIVE
         Instant createdAt,             // data de inclusão
-        Instant inactivatedAt          // preenchido somente quando inativa
+        Instant inactivatedAt,         // preenchido somente quando inativa
+        @Version Long version          // controle otimista (incrementado a cada escrita; nulo antes do insert)
 ) {
     // Fábrica: cria chave ATIVA e normaliza campos
     public static PixKey create(
@@ -57,7 +76,8 @@ public record PixKey(
                 sanitizeOptional(holderSurname), // opcional: null -> "" + strip()
                 KeyStatus.ACTIVE,              // status inicial
                 Instant.now(),                 // data de criação
-                null                           // ainda não inativada
+                null,                          // ainda não inativada
+                null                           // versão atribuída pelo Mongo no insert
         );
     }
 
@@ -75,7 +95,8 @@ public record PixKey(
                 holderName, holderSurname,
                 KeyStatus.INACTIVE,
                 createdAt,
-                Instant.now()
+                Instant.now(),
+                version
         );
     }
 
@@ -90,29 +111,37 @@ public record PixKey(
         if (isInactive()) {
             throw new BusinessRuleViolationException("chave inativa");
         }
-        Objects.requireNonNull(accountType, "accountType não pode ser nulo");
+        return apply(AccountUpdate.of(accountType, agency, account, holderName, holderSurname));
+    }
 
+    // Aplica dados de conta/titular já normalizados
+    public PixKey apply(AccountUpdate update) {
         return new PixKey(
                 id,
                 keyType,
                 keyValue,
-                accountType,
-                requireAndTrim(agency),
-                requireAndTrim(account),
-                requireAndTrim(holderName),
-                sanitizeOptional(holderSurname),
+                update.accountType(),
+                update.agency(),
+                update.account(),
+                update.holderName(),
+                update.holderSurname(),
                 status,
                 createdAt,
-                inactivatedAt
+                inactivatedAt,
+                version
         );
     }
 
+    public boolean isSameAccount(String agency, String account) {
+        return this.agency.equals(agency) && this.account.equals(account);
+    }
+
     // Helpers: normalização consistente
-    private static String sanitizeOptional(String value) {
+    static String sanitizeOptional(String value) {
         return value == null ? "" : value.strip();
     }
 
-    private static String requireAndTrim(String value) {
+    static String requireAndTrim(String value) {
         return Objects.requireNonNull(value, "valor obrigatório").strip();
     }
 }
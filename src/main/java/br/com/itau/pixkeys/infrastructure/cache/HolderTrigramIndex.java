@@ -0,0 +1,448 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Índice invertido de trigramas (por instância) sobre o titular normalizado das chaves ATIVAS, para busca
+ * aproximada ("Joao Silva" ~ "João da Silva", erros de digitação) que o Mongo não resolve por índice.
+ *
+ * Cada titular vira o conjunto de trigramas das suas palavras (com preenchimento, como o pg_trgm) e a
+ * semelhança é o índice de Jaccard entre os conjuntos. A consulta usa filtro de prefixo: só as listas dos
+ * trigramas mais raros da busca geram candidatos (quem não compartilha nenhum deles não alcança a semelhança
+ * mínima), os demais são conferidos por busca binária nas listas, e um trigrama com mais de
+ * {@code max-trigram-postings} ocorrências não gera candidatos (só é conferido). O custo acompanha os candidatos, não o tamanho
+ * do índice. Entradas removidas viram lápides nas listas; quando passam das vivas, o índice é compactado.
+ *
+ * Carga inicial por cursor após o start ({@link HolderTrigramIndexLoader}); escritas desta instância entram
+ * na hora. Alterações feitas por outras instâncias só aparecem no próximo start.
+ */
+@Component
+public class HolderTrigramIndex implements MeterBinder {
+
+    /** Uma chave encontrada, com a semelhança (0..1] entre o titular dela e a busca. */
+    public record Match(String id, String holder, double score) {
+    }
+
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int MIN_COMPACTION = 1_024;  // lápides mínimas antes de compactar
+
+    // Estimativa de memória (JVM 64 bits, oops comprimidos): cabeçalhos de objeto e nós de HashMap
+    private static final long STRING_OVERHEAD = 40;     // String + byte[] (Latin-1: 1 byte por caractere)
+    private static final long MAP_ENTRY_OVERHEAD = 48;  // nó + Integer + fatia da tabela
+    private static final long POSTINGS_OVERHEAD = 88;   // nó + Long + Postings + cabeçalho do int[]
+
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final int maxTrigramPostings;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slots em ordem de inserção: as listas de ocorrência ficam ordenadas sem esforço
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] holders = new String[INITIAL_CAPACITY];
+    private short[] gramCounts = new short[INITIAL_CAPACITY];
+    private int slots;
+    private int dead;
+    private long liveChars;
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    // Remoções durante a carga inicial: o cursor pode entregar depois a versão antiga da chave
+    private Set<String> removedDuringLoad = new HashSet<>();
+    private volatile boolean ready;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder skippedTrigrams = new LongAdder();
+
+    public HolderTrigramIndex(PixKeysProperties properties) {
+        PixKeysProperties.HolderIndex cfg = properties.getHolderIndex();
+        if (cfg.getMinSimilarity() <= 0 || cfg.getMinSimilarity() > 1) {
+            throw new IllegalArgumentException("min-similarity deve estar em (0, 1]: " + cfg.getMinSimilarity());
+        }
+        if (cfg.getMaxTrigramPostings() < 1) {
+            throw new IllegalArgumentException("max-trigram-postings deve ser >= 1: " + cfg.getMaxTrigramPostings());
+        }
+        this.enabled = cfg.isEnabled();
+        this.minSimilarity = cfg.getMinSimilarity();
+        this.maxTrigramPostings = cfg.getMaxTrigramPostings();
+    }
+
+    /** Reflete o estado gravado de uma chave: ativa entra (ou troca o titular), inativa sai. */
+    public void accept(PixKey key) {
+        if (!enabled) return;
+        if (key.status() == KeyStatus.ACTIVE) {
+            put(key.id(), HolderSearch.of(key.holderName(), key.holderSurname()));
+        } else {
+            remove(key.id());
+        }
+    }
+
+    /** Carga inicial: não sobrescreve o que as escritas desta instância já colocaram (ou tiraram). */
+    public void load(String id, String holder) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            if (slotById.containsKey(id) || (removedDuringLoad != null && removedDuringLoad.contains(id))) return;
+            add(id, holder);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void put(String id, String holder) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot != null) {
+                if (holder.equals(holders[slot])) return;
+                kill(slot);
+            }
+            add(id, holder);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            if (removedDuringLoad != null) removedDuringLoad.add(id);
+            Integer slot = slotById.get(id);
+            if (slot == null) return;
+            kill(slot);
+            slotById.remove(id);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Chamado quando a carga inicial termina: a partir daqui a busca responde. */
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            removedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Até {@code limit} chaves cujo titular tem semelhança de pelo menos {@code pix-keys.holder-index.min-similarity}
+     * com {@code query} (normalizada como {@link HolderSearch}), da mais parecida para a menos parecida.
+     */
+    public List<Match> search(String query, int limit) {
+        long[] grams = trigrams(HolderSearch.normalize(query));
+        if (grams.length == 0 || limit < 1) return List.of();
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            // Listas dos trigramas da busca, da mais rara para a mais comum (trigrama ausente: lista vazia)
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) lists[i] = postings.getOrDefault(grams[i], Postings.EMPTY);
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+            // Semelhança >= mínimo exige compartilhar ao menos ceil(mínimo * trigramas da busca); quem fica fora das
+            // `prefix` listas mais raras compartilha no máximo o resto, abaixo disso: só elas geram candidatos
+            int minShared = Math.max(1, (int) Math.ceil(minSimilarity * grams.length - 1e-9));
+            int prefix = grams.length - minShared + 1;
+            int expected = 0;
+            for (int i = 0; i < prefix; i++) {
+                if (lists[i].size <= maxTrigramPostings) expected += lists[i].size;
+            }
+            SlotHits hits = new SlotHits(Math.min(expected, 4_096)); // cresce se preciso
+            boolean[] walked = new boolean[lists.length];
+            for (int i = 0; i < prefix; i++) {
+                Postings p = lists[i];
+                if (p.size > maxTrigramPostings) { // comum demais: percorrer custaria mais que a busca inteira
+                    skippedTrigrams.increment();
+                    continue;
+                }
+                for (int j = 0; j < p.size; j++) hits.increment(p.slots[j]);
+                walked[i] = true;
+            }
+
+            Comparator<Match> worstFirst = Comparator.comparingDouble(Match::score)
+                    .thenComparing(Match::holder, Comparator.reverseOrder())
+                    .thenComparing(Match::id, Comparator.reverseOrder());
+            PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 1_024) + 1, worstFirst);
+            for (int h = hits.first(); h >= 0; h = hits.next(h)) {
+                int slot = hits.slotAt(h);
+                if (holders[slot] == null) continue; // lápide
+                int shared = hits.countAt(h);
+                for (int i = 0; i < lists.length; i++) {
+                    if (!walked[i] && lists[i].contains(slot)) shared++;
+                }
+                double score = (double) shared / (grams.length + gramCounts[slot] - shared);
+                if (score < minSimilarity) continue;
+                best.offer(new Match(ids[slot], holders[slot], score));
+                if (best.size() > limit) best.poll();
+            }
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(worstFirst.reversed());
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+            lookups.increment();
+            lookupNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots - dead;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Estimativa da memória ocupada (listas, slots, strings e mapas). */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) ids.length * (Integer.BYTES + Integer.BYTES + Short.BYTES);
+            int live = slots - dead;
+            bytes += live * (2 * STRING_OVERHEAD + MAP_ENTRY_OVERHEAD) + liveChars;
+            for (Postings p : postings.values()) {
+                bytes += POSTINGS_OVERHEAD + (long) p.slots.length * Integer.BYTES;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double memoryBytesPerEntry() {
+        int live = size();
+        return live == 0 ? 0 : (double) memoryBytes() / live;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String p = "pix-keys.holder-index.";
+        Gauge.builder(p + "entries", this, HolderTrigramIndex::size).register(registry);
+        Gauge.builder(p + "trigrams", this, i -> i.read(() -> i.postings.size())).register(registry);
+        Gauge.builder(p + "memory", this, HolderTrigramIndex::memoryBytes).baseUnit("bytes").register(registry);
+        Gauge.builder(p + "memory-per-entry", this, HolderTrigramIndex::memoryBytesPerEntry).baseUnit("bytes").register(registry);
+        Gauge.builder(p + "ready", this, i -> i.ready ? 1 : 0).register(registry);
+        FunctionTimer.builder(p + "lookups", this, i -> i.lookups.sum(), i -> i.lookupNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionCounter.builder(p + "compactions", compactions, LongAdder::sum).register(registry);
+        FunctionCounter.builder(p + "skipped-trigrams", skippedTrigrams, LongAdder::sum)
+                .description("trigramas comuns demais que não geraram candidatos").register(registry);
+    }
+
+    // --- estrutura (chamadas com o write lock) ---
+
+    private void add(String id, String holder) {
+        long[] grams = trigrams(holder);
+        if (slots == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            holders = Arrays.copyOf(holders, capacity);
+            gramCounts = Arrays.copyOf(gramCounts, capacity);
+        }
+        int slot = slots++;
+        ids[slot] = id;
+        holders[slot] = holder;
+        gramCounts[slot] = (short) Math.min(grams.length, Short.MAX_VALUE);
+        liveChars += id.length() + holder.length();
+        slotById.put(id, slot);
+        for (long g : grams) {
+            postings.computeIfAbsent(g, k -> new Postings()).add(slot);
+        }
+    }
+
+    private void kill(int slot) {
+        liveChars -= ids[slot].length() + holders[slot].length();
+        ids[slot] = null;
+        holders[slot] = null;
+        dead++;
+    }
+
+    // Renumera os slots vivos (mantendo a ordem) e tira as lápides das listas
+    private void maybeCompact() {
+        if (dead < MIN_COMPACTION || dead <= slots - dead) return;
+        int[] remap = new int[slots];
+        int next = 0;
+        for (int s = 0; s < slots; s++) {
+            if (holders[s] == null) {
+                remap[s] = -1;
+                continue;
+            }
+            remap[s] = next;
+            ids[next] = ids[s];
+            holders[next] = holders[s];
+            gramCounts[next] = gramCounts[s];
+            slotById.put(ids[next], next);
+            next++;
+        }
+        Arrays.fill(ids, next, slots, null);
+        Arrays.fill(holders, next, slots, null);
+        postings.values().removeIf(p -> p.remap(remap) == 0);
+        slots = next;
+        dead = 0;
+        compactions.increment();
+    }
+
+    private <T> T read(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trigramas distintos das palavras, cada uma com dois espaços antes e um depois (palavras curtas também
+     * geram trigramas e o início da palavra pesa mais). Cada trigrama vira um long com os três chars.
+     */
+    static long[] trigrams(String normalized) {
+        if (normalized.isEmpty()) return new long[0];
+        long[] out = new long[normalized.length() * 3 + 3];
+        int n = 0;
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                out[n++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(out, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || out[i] != out[distinct - 1]) out[distinct++] = out[i];
+        }
+        return Arrays.copyOf(out, distinct);
+    }
+
+    /** Lista de ocorrência de um trigrama: slots em ordem crescente. */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        int[] slots = new int[4];
+        int size;
+
+        boolean contains(int slot) {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+            slots[size++] = slot;
+        }
+
+        int remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int s = remap[slots[i]];
+                if (s >= 0) slots[kept++] = s;
+            }
+            size = kept;
+            if (slots.length > 4 && kept < slots.length / 2) slots = Arrays.copyOf(slots, Math.max(4, kept));
+            return kept;
+        }
+    }
+
+    /**
+     * Trigramas compartilhados por slot candidato, em endereçamento aberto: a memória acompanha os candidatos da
+     * busca, não o total de slots do índice.
+     */
+    private static final class SlotHits {
+        private static final int FREE = -1;
+
+        private int[] slots;
+        private int[] counts;
+        private int size;
+
+        SlotHits(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+            slots = new int[capacity];
+            counts = new int[capacity];
+            Arrays.fill(slots, FREE);
+        }
+
+        void increment(int slot) {
+            if ((size + 1) * 2 > slots.length) grow();
+            int i = indexOf(slot, slots);
+            if (slots[i] == FREE) {
+                slots[i] = slot;
+                size++;
+            }
+            counts[i]++;
+        }
+
+        int first() {
+            return next(-1);
+        }
+
+        int next(int h) {
+            for (int i = h + 1; i < slots.length; i++) {
+                if (slots[i] != FREE) return i;
+            }
+            return -1;
+        }
+
+        int slotAt(int h) {
+            return slots[h];
+        }
+
+        int countAt(int h) {
+            return counts[h];
+        }
+
+        private static int indexOf(int slot, int[] table) {
+            int mask = table.length - 1;
+            int h = slot * 0x9E3779B9;
+            int i = (h ^ (h >>> 16)) & mask;
+            while (table[i] != FREE && table[i] != slot) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            int[] oldSlots = slots;
+            int[] oldCounts = counts;
+            slots = new int[oldSlots.length * 2];
+            counts = new int[oldSlots.length * 2];
+            Arrays.fill(slots, FREE);
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] == FREE) continue;
+                int j = indexOf(oldSlots[i], slots);
+                slots[j] = oldSlots[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carga inicial do {@link HolderTrigramIndex}: percorre as chaves ativas com cursor após o start.
+ * Escritas concorrentes à carga entram no índice normalmente; se a carga falhar, a busca aproximada
+ * fica indisponível (as demais consultas não dependem do índice).
+ */
+@Component
+class HolderTrigramIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(HolderTrigramIndexLoader.class);
+
+    private final HolderTrigramIndex index;
+    private final PixKeyRepository repo;
+    private final boolean enabled;
+
+    HolderTrigramIndexLoader(HolderTrigramIndex index, PixKeyRepository repo, PixKeysProperties properties) {
+        this.index = index;
+        this.repo = repo;
+        this.enabled = properties.getHolderIndex().isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        try {
+            repo.forEachActiveHolder(index::load);
+            index.markReady();
+            log.info("índice de trigramas de titulares carregado: {} chaves, ~{} bytes por chave em {} ms",
+                    index.size(), Math.round(index.memoryBytesPerEntry()), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("falha na carga do índice de trigramas de titulares; busca aproximada indisponível", e);
+        }
+    }
+}
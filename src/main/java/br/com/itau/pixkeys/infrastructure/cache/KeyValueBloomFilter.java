@@ -0,0 +1,152 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom (por instância) sobre os keyValue cadastrados.
+ *
+ * "Ausente" é definitivo apenas para o que esta instância já viu (carga inicial + criações locais);
+ * por isso o filtro só serve para PULAR a consulta de unicidade: a garantia continua sendo o índice
+ * uk_key_value no insert. Enquanto a carga inicial não termina, responde sempre "talvez presente".
+ * Só existe de fato no modo CHECK_FIRST (o único que o consulta): nos demais não aloca bits nem é carregado.
+ */
+@Component
+public class KeyValueBloomFilter implements MeterBinder {
+
+    private final boolean enabled;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLongArray bits;
+    private final double configuredFpp;
+
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder maybePresent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile boolean ready;
+
+    public KeyValueBloomFilter(PixKeysProperties properties) {
+        PixKeysProperties.BloomFilter cfg = properties.getBloomFilter();
+        long n = Math.max(1, cfg.getExpectedInsertions());
+        double p = cfg.getFalsePositiveRate();
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("false-positive-rate deve estar entre 0 e 1: " + p);
+        }
+        // m = -n ln(p) / (ln 2)^2 ; k = (m / n) ln 2
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+
+        this.enabled = cfg.isEnabled()
+                && properties.getCreate().getMode() == PixKeysProperties.CreateMode.CHECK_FIRST;
+        this.numBits = (long) words * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray(enabled ? words : 0);
+        this.configuredFpp = p;
+    }
+
+    /** {@code false} = certamente não cadastrada (vista por esta instância); {@code true} = consultar o banco. */
+    public boolean mightContain(String keyValue) {
+        if (!enabled || !ready) return true;
+        long h1 = hash(keyValue);
+        long h2 = (h1 >>> 32) | 1;
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definitelyAbsent.increment();
+                return false;
+            }
+        }
+        maybePresent.increment();
+        return true;
+    }
+
+    public void put(String keyValue) {
+        if (!enabled || keyValue == null) return;
+        long h1 = hash(keyValue);
+        long h2 = (h1 >>> 32) | 1;
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long prev;
+            do {
+                prev = bits.get(word);
+            } while ((prev & mask) == 0 && !bits.compareAndSet(word, prev, prev | mask));
+        }
+        insertions.increment();
+    }
+
+    /** Ligado na configuração e no modo de criação CHECK_FIRST. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Chamado quando a carga inicial termina: a partir daqui "ausente" passa a ser respondido. */
+    public void markReady() {
+        this.ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** "Talvez presente" que o banco desmentiu; acompanha a taxa real de falso positivo. */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    public long memoryBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    /** Taxa de falso positivo estimada para a ocupação atual: (1 - e^(-k n / m))^k. */
+    public double expectedFpp() {
+        double n = insertions.sum();
+        return Math.pow(1 - Math.exp(-numHashes * n / numBits), numHashes);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String p = "pix-keys.bloom-filter.";
+        Gauge.builder(p + "memory", this, KeyValueBloomFilter::memoryBytes).baseUnit("bytes").register(registry);
+        Gauge.builder(p + "hash-functions", this, f -> f.numHashes).register(registry);
+        FunctionCounter.builder(p + "insertions", insertions, LongAdder::sum).register(registry);
+        Gauge.builder(p + "expected-fpp", this, KeyValueBloomFilter::expectedFpp).register(registry);
+        Gauge.builder(p + "configured-fpp", this, f -> f.configuredFpp).register(registry);
+        Gauge.builder(p + "ready", this, f -> f.ready ? 1 : 0).register(registry);
+        FunctionCounter.builder(p + "lookups", definitelyAbsent, LongAdder::sum).tag("result", "absent").register(registry);
+        FunctionCounter.builder(p + "lookups", maybePresent, LongAdder::sum).tag("result", "maybe").register(registry);
+        FunctionCounter.builder(p + "false-positives", falsePositives, LongAdder::sum).register(registry);
+    }
+
+    // FNV-1a 64 bits sobre os chars (sem alocar) + finalizador do MurmurHash3 (dispersão para o double hashing)
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            h ^= c & 0xff;
+            h *= 0x100000001b3L;
+            h ^= c >>> 8;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
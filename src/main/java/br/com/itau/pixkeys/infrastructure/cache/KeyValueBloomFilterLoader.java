@@ -0,0 +1,42 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carga inicial do {@link KeyValueBloomFilter}: percorre a coleção pix_keys com cursor após o start.
+ * Criações concorrentes à carga entram no filtro normalmente; se a carga falhar, o filtro segue
+ * respondendo "talvez presente" (consulta ao banco), sem afetar a corretude.
+ */
+@Component
+class KeyValueBloomFilterLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyValueBloomFilterLoader.class);
+
+    private final KeyValueBloomFilter filter;
+    private final PixKeyRepository repo;
+
+    KeyValueBloomFilterLoader(KeyValueBloomFilter filter, PixKeyRepository repo) {
+        this.filter = filter;
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        if (!filter.isEnabled()) return; // desligado ou modo OPTIMISTIC: nada consulta o filtro
+        long start = System.nanoTime();
+        try {
+            repo.forEachKeyValue(filter::put);
+            filter.markReady();
+            log.info("bloom filter de keyValue carregado: {} chaves, {} bytes, fpp estimada {} em {} ms",
+                    filter.insertions(), filter.memoryBytes(), filter.expectedFpp(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("falha na carga do bloom filter de keyValue; consultas de unicidade seguem no banco", e);
+        }
+    }
+}
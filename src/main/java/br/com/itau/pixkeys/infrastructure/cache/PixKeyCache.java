@@ -0,0 +1,137 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache local (por instância) de chaves Pix, limitado por tamanho e TTL.
+ *
+ * Escritas feitas por esta instância atualizam o cache na mesma chamada; alterações feitas por
+ * outras instâncias ficam visíveis no máximo após o TTL. Métricas (acertos/erros, tamanho,
+ * despejos) são publicadas no Micrometer como {@code cache.*{cache=pix-keys.by-id|pix-keys.by-value}}.
+ *
+ * As leituras em lote não usam o {@code getAll} com loader do Caffeine, que gravaria o resultado por cima de um
+ * {@link #put}/{@link #invalidate} feito durante a consulta ao banco: o que foi carregado só entra no cache se
+ * nenhuma escrita local aconteceu desde o início da carga, e nunca por cima de uma entrada existente.
+ */
+@Component
+public class PixKeyCache implements MeterBinder {
+
+    private final Cache<String, PixKey> byId;
+
+    // Chaves ATIVAS por valor; Optional.empty() = "não encontrada" (cache negativo, TTL curto)
+    private final Cache<String, Optional<PixKey>> byValue;
+
+    // Incrementado antes de cada escrita local; uma carga em lote que o veja mudar não grava no cache
+    private final AtomicLong writes = new AtomicLong();
+
+    public PixKeyCache(PixKeysProperties properties) {
+        PixKeysProperties.Bounded idCfg = properties.getCache().getById();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(idCfg.getMaximumSize())
+                .expireAfterWrite(idCfg.getTtl())
+                .recordStats()
+                .build();
+
+        PixKeysProperties.ByValue valueCfg = properties.getCache().getByValue();
+        this.byValue = Caffeine.newBuilder()
+                .maximumSize(valueCfg.getMaximumSize())
+                .expireAfter(Expiry.<String, Optional<PixKey>>writing((k, v) ->
+                        v.isPresent() ? valueCfg.getTtl() : valueCfg.getNegativeTtl()))
+                .recordStats()
+                .build();
+    }
+
+    /** Read-through: consulta o loader só em caso de miss; ausências não são guardadas. */
+    public Optional<PixKey> findById(String id, Function<String, Optional<PixKey>> loader) {
+        return Optional.ofNullable(byId.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /** Read-through por valor da chave (somente ativas); ausências ficam guardadas pelo TTL negativo. */
+    public Optional<PixKey> findActiveByKeyValue(String keyValue, Function<String, Optional<PixKey>> loader) {
+        return byValue.get(keyValue, loader);
+    }
+
+    /**
+     * Read-through em lote: o loader recebe de uma vez só os ids que faltam no cache.
+     * Ids ausentes do mapa devolvido não são guardados (nem aparecem no resultado).
+     */
+    public Map<String, PixKey> findAllById(Collection<String> ids, Function<Set<String>, Map<String, PixKey>> loader) {
+        Map<String, PixKey> result = new HashMap<>(byId.getAllPresent(ids));
+        Set<String> missing = missingOf(ids, result);
+        if (missing.isEmpty()) return result;
+        long before = writes.get();
+        Map<String, PixKey> loaded = loader.apply(missing);
+        result.putAll(loaded);
+        loaded.forEach((id, key) -> putLoaded(byId, id, key, before));
+        return result;
+    }
+
+    /** Read-through em lote por valor (somente ativas); valores não devolvidos pelo loader viram ausência em cache. */
+    public Map<String, Optional<PixKey>> findAllActiveByKeyValue(
+            Collection<String> keyValues, Function<Set<String>, Map<String, PixKey>> loader) {
+        Map<String, Optional<PixKey>> result = new HashMap<>(byValue.getAllPresent(keyValues));
+        Set<String> missing = missingOf(keyValues, result);
+        if (missing.isEmpty()) return result;
+        long before = writes.get();
+        Map<String, PixKey> found = loader.apply(missing);
+        for (String v : missing) {
+            Optional<PixKey> loaded = Optional.ofNullable(found.get(v));
+            result.put(v, loaded);
+            putLoaded(byValue, v, loaded, before);
+        }
+        return result;
+    }
+
+    private static Set<String> missingOf(Collection<String> requested, Map<String, ?> present) {
+        Set<String> missing = new HashSet<>();
+        for (String k : requested) {
+            if (!present.containsKey(k)) missing.add(k);
+        }
+        return missing;
+    }
+
+    // Por chave, atômico com put/invalidate: quem escreveu depois da leitura de "writes" vence
+    private <V> void putLoaded(Cache<String, V> cache, String key, V value, long writesBefore) {
+        cache.asMap().compute(key, (k, current) ->
+                current != null || writes.get() != writesBefore ? current : value);
+    }
+
+    /**
+     * Atualiza as entradas após uma escrita local (evita servir o próprio dado antigo):
+     * por id sempre; por valor como encontrada se ativa, ou como ausência se inativa.
+     */
+    public void put(PixKey key) {
+        writes.incrementAndGet();
+        byId.put(key.id(), key);
+        byValue.put(key.keyValue(), key.isInactive() ? Optional.empty() : Optional.of(key));
+    }
+
+    public void invalidate(PixKey key) {
+        writes.incrementAndGet();
+        byId.invalidate(key.id());
+        byValue.invalidate(key.keyValue());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "pix-keys.by-id");
+        CaffeineCacheMetrics.monitor(registry, byValue, "pix-keys.by-value");
+    }
+}
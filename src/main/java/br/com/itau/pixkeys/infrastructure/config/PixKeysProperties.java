@@ -0,0 +1,496 @@
+package br.com.itau.pixkeys.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configurações da aplicação (prefixo {@code pix-keys} no application.yml).
+ */
+@ConfigurationProperties(prefix = "pix-keys")
+public class PixKeysProperties {
+
+    private final Create create = new Create();
+    private final Cache cache = new Cache();
+    private final BloomFilter bloomFilter = new BloomFilter();
+    private final HolderIndex holderIndex = new HolderIndex();
+    private final Consolidation consolidation = new Consolidation();
+    private final Export export = new Export();
+    private final Import importConfig = new Import();
+    private final Archive archive = new Archive();
+    private final MongoLimiter mongoLimiter = new MongoLimiter();
+
+    public Create getCreate() {
+        return create;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    public HolderIndex getHolderIndex() {
+        return holderIndex;
+    }
+
+    public Consolidation getConsolidation() {
+        return consolidation;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Import getImport() {
+        return importConfig;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public MongoLimiter getMongoLimiter() {
+        return mongoLimiter;
+    }
+
+    public static class Create {
+
+        /**
+         * OPTIMISTIC: insere direto e traduz a violação do índice uk_key_value em 422 (1 round trip a menos).
+         * CHECK_FIRST: consulta a unicidade antes de inserir (duplicidade reportada antes do limite da conta).
+         */
+        private CreateMode mode = CreateMode.OPTIMISTIC;
+
+        public CreateMode getMode() {
+            return mode;
+        }
+
+        public void setMode(CreateMode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Cache {
+
+        /** Cache do GET /pix-keys/{id}. */
+        private final Bounded byId = new Bounded();
+
+        /** Cache do GET /pix-keys/by-value/{keyValue} (guarda também os "não encontrados"). */
+        private final ByValue byValue = new ByValue();
+
+        public Bounded getById() {
+            return byId;
+        }
+
+        public ByValue getByValue() {
+            return byValue;
+        }
+    }
+
+    /** Cache limitado por tamanho e por tempo de vida (expira após escrita). */
+    public static class Bounded {
+
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class ByValue extends Bounded {
+
+        /** Tempo de vida das ausências (404), curto para não atrasar chaves recém-criadas em outras instâncias. */
+        private Duration negativeTtl = Duration.ofSeconds(5);
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+    }
+
+    /** Filtro de Bloom dos keyValue cadastrados (evita a consulta de unicidade no modo CHECK_FIRST). */
+    public static class BloomFilter {
+
+        /** Só tem efeito com {@code create.mode: check-first}; no modo otimista o filtro não é alocado nem carregado. */
+        private boolean enabled = true;
+
+        /** Quantidade de chaves esperada; junto com a taxa de falso positivo define a memória (bits). */
+        private long expectedInsertions = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(long expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+    }
+
+    /** Índice de trigramas em memória para a busca aproximada por titular. */
+    public static class HolderIndex {
+
+        private boolean enabled = true;
+
+        /** Semelhança mínima (Jaccard entre os trigramas, em (0, 1]) para uma chave entrar no resultado. */
+        private double minSimilarity = 0.3;
+
+        /**
+         * Trigramas com mais ocorrências que isto não geram candidatos na busca (só conferem os gerados pelos
+         * mais raros): limita o custo de buscas com partes muito comuns ("silva") ao preço de perder titulares
+         * parecidos só nesses trigramas.
+         */
+        private int maxTrigramPostings = 50_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMinSimilarity() {
+            return minSimilarity;
+        }
+
+        public void setMinSimilarity(double minSimilarity) {
+            this.minSimilarity = minSimilarity;
+        }
+
+        public int getMaxTrigramPostings() {
+            return maxTrigramPostings;
+        }
+
+        public void setMaxTrigramPostings(int maxTrigramPostings) {
+            this.maxTrigramPostings = maxTrigramPostings;
+        }
+    }
+
+    /** Job de consolidação de agências (migração de contas em massa). */
+    public static class Consolidation {
+
+        /** Mapeamentos conta antiga → nova processados por lote (um checkpoint por lote). */
+        private int mappingsPerBatch = 500;
+
+        /** Máximo de operações por bulk write de chaves. */
+        private int writeBatchSize = 1_000;
+
+        /** Posse do job por instância; outra instância só retoma depois que a posse expira sem renovação. */
+        private Duration lease = Duration.ofMinutes(2);
+
+        public int getMappingsPerBatch() {
+            return mappingsPerBatch;
+        }
+
+        public void setMappingsPerBatch(int mappingsPerBatch) {
+            this.mappingsPerBatch = mappingsPerBatch;
+        }
+
+        public int getWriteBatchSize() {
+            return writeBatchSize;
+        }
+
+        public void setWriteBatchSize(int writeBatchSize) {
+            this.writeBatchSize = writeBatchSize;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+    }
+
+    public static class Export {
+
+        /** Documentos por lote do cursor (o que fica em memória por faixa durante a exportação). */
+        private int cursorBatchSize = 1_000;
+
+        /** Máximo de faixas de _id varridas em paralelo por exportação (limitado a 16). */
+        private int maxParallelism = 8;
+
+        public int getCursorBatchSize() {
+            return cursorBatchSize;
+        }
+
+        public void setCursorBatchSize(int cursorBatchSize) {
+            this.cursorBatchSize = cursorBatchSize;
+        }
+
+        public int getMaxParallelism() {
+            return maxParallelism;
+        }
+
+        public void setMaxParallelism(int maxParallelism) {
+            this.maxParallelism = maxParallelism;
+        }
+    }
+
+    public static class Import {
+
+        /** Arquivo .ndjson ou .csv a importar; quando informado, a aplicação sobe em modo importação. */
+        private String file;
+
+        /** Arquivo com as linhas rejeitadas e o motivo (padrão: {@code <file>.rejects.ndjson}). */
+        private String rejectFile;
+
+        /** Encerra a aplicação ao fim da importação (exit code 0, ou 2 se houve rejeições). */
+        private boolean exitWhenDone = true;
+
+        /** Linhas por tarefa de validação. */
+        private int chunkSize = 1_000;
+
+        /** Threads de validação (0 = todos os núcleos). */
+        private int validationThreads = 0;
+
+        /** Lote de escrita: começa em initial e se ajusta entre min e max conforme a latência observada. */
+        private int initialBatchSize = 500;
+        private int minBatchSize = 100;
+        private int maxBatchSize = 5_000;
+
+        /** Latência alvo por lote: acima dela o lote cai pela metade; abaixo, cresce aos poucos. */
+        private Duration targetBatchLatency = Duration.ofMillis(500);
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getRejectFile() {
+            return rejectFile;
+        }
+
+        public void setRejectFile(String rejectFile) {
+            this.rejectFile = rejectFile;
+        }
+
+        public boolean isExitWhenDone() {
+            return exitWhenDone;
+        }
+
+        public void setExitWhenDone(boolean exitWhenDone) {
+            this.exitWhenDone = exitWhenDone;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getValidationThreads() {
+            return validationThreads;
+        }
+
+        public void setValidationThreads(int validationThreads) {
+            this.validationThreads = validationThreads;
+        }
+
+        public int getInitialBatchSize() {
+            return initialBatchSize;
+        }
+
+        public void setInitialBatchSize(int initialBatchSize) {
+            this.initialBatchSize = initialBatchSize;
+        }
+
+        public int getMinBatchSize() {
+            return minBatchSize;
+        }
+
+        public void setMinBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getTargetBatchLatency() {
+            return targetBatchLatency;
+        }
+
+        public void setTargetBatchLatency(Duration targetBatchLatency) {
+            this.targetBatchLatency = targetBatchLatency;
+        }
+    }
+
+    public enum CreateMode {
+        OPTIMISTIC,
+        CHECK_FIRST
+    }
+
+    /**
+     * Job agendado que move chaves inativas antigas de pix_keys para pix_keys_archive. Desligado por padrão:
+     * ligar é decisão operacional (as chaves arquivadas passam a ser só leitura e liberam o {@code keyValue}).
+     */
+    public static class Archive {
+
+        private boolean enabled = false;
+
+        /** Chaves inativadas há mais que isso são arquivadas. */
+        private Duration retention = Duration.ofDays(180);
+
+        /** Agenda da passada (cron do Spring, lido direto por {@code @Scheduled}). */
+        private String cron = "0 30 3 * * *";
+
+        /** Chaves copiadas/removidas por bulk (um checkpoint por lote). */
+        private int batchSize = 500;
+
+        /** Pausa entre lotes, para não disputar o banco com o tráfego online. */
+        private Duration pauseBetweenBatches = Duration.ofMillis(200);
+
+        /** Posse da passada por instância; outra instância só retoma depois que a posse expira sem renovação. */
+        private Duration lease = Duration.ofMinutes(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPauseBetweenBatches() {
+            return pauseBetweenBatches;
+        }
+
+        public void setPauseBetweenBatches(Duration pauseBetweenBatches) {
+            this.pauseBetweenBatches = pauseBetweenBatches;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+    }
+
+    /**
+     * Semáforo na frente do PixKeyRepository: com virtual threads a concorrência de requisições deixa de ser
+     * limitada pelo pool do Tomcat e passa a ser limitada aqui, antes do pool de conexões do driver.
+     */
+    public static class MongoLimiter {
+
+        /** Ligado no profile {@code virtual-threads}. */
+        private boolean enabled = false;
+
+        /**
+         * Chamadas curtas simultâneas ao repositório. Somado a {@code maxConcurrentStreams}, fica abaixo do
+         * maxPoolSize do driver (100); a sobra atende os jobs, que não passam pelo limitador.
+         */
+        private int maxConcurrent = 80;
+
+        /** Cursores longos simultâneos (export, cargas de índice, backfill), em pool separado das chamadas curtas. */
+        private int maxConcurrentStreams = 10;
+
+        /** Espera máxima por uma permissão; estourada, a chamada falha com 503 em vez de enfileirar sem limite. */
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+}
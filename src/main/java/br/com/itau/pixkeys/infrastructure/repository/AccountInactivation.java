@@ -0,0 +1,19 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.util.List;
+
+/**
+ * Resultado da inativação em massa das chaves de uma conta.
+ *
+ * @param keys        estado atual (inativo) das chaves alcançadas, para atualizar cache e índices locais
+ * @param inactivated quantas ESTA operação inativou (vagas a devolver); uma chave inativada no mesmo instante
+ *                    por outra requisição pode estar em {@code keys}, mas não é contada aqui
+ */
+public record AccountInactivation(List<PixKey> keys, long inactivated) {
+
+    public static AccountInactivation none() {
+        return new AccountInactivation(List.of(), 0);
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+
+import java.time.Instant;
+
+/**
+ * Resumo de uma chave da conta, só com campos do índice idx_account_active (consulta coberta para as ativas).
+ */
+public record AccountKeySummary(String id, KeyType keyType, String keyValue, KeyStatus status, Instant createdAt) {
+}
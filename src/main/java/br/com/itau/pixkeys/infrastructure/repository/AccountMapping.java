@@ -0,0 +1,7 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+/**
+ * Um mapeamento conta antiga → conta nova de um job de consolidação, na ordem de carga ({@code seq}).
+ */
+public record AccountMapping(long seq, AccountRef from, AccountRef to) {
+}
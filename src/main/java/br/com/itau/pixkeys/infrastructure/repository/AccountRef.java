@@ -0,0 +1,12 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+/**
+ * Identifica uma conta (agência+conta) nas operações por conjunto do repositório.
+ */
+public record AccountRef(String agency, String account) {
+
+    /** _id do documento de vagas da conta em pix_key_account_slots. */
+    String slotId() {
+        return agency + ":" + account;
+    }
+}
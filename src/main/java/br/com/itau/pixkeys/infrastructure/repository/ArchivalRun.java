@@ -0,0 +1,17 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint da passada de arquivamento em andamento (coleção pix_key_archival).
+ *
+ * @param cutoff            arquiva as chaves inativadas antes deste instante (fixo durante a passada)
+ * @param lastInactivatedAt posição da última chave processada (com {@code lastId}); {@code null} no início
+ */
+public record ArchivalRun(Instant cutoff, Instant lastInactivatedAt, String lastId, long archivedKeys) {
+
+    /** Avança o checkpoint para depois da última chave do lote. */
+    public ArchivalRun advance(Instant inactivatedAt, String id, long archived) {
+        return new ArchivalRun(cutoff, inactivatedAt, id, archivedKeys + archived);
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import java.util.Set;
+
+/**
+ * Resultado de um bulk insert não ordenado, por posição na lista enviada.
+ *
+ * @param duplicateKeyIndexes posições rejeitadas pelo índice uk_key_value
+ * @param failedIndexes       posições que falharam por outro erro de escrita
+ */
+public record BulkInsertResult(Set<Integer> duplicateKeyIndexes, Set<Integer> failedIndexes) {
+
+    public static BulkInsertResult allInserted() {
+        return new BulkInsertResult(Set.of(), Set.of());
+    }
+
+    public boolean isInserted(int index) {
+        return !duplicateKeyIndexes.contains(index) && !failedIndexes.contains(index);
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estado persistido de um job de consolidação de agências (coleção pix_key_jobs).
+ *
+ * @param checkpointSeq último {@code seq} de mapeamento totalmente aplicado (retomada continua do seguinte)
+ */
+public record ConsolidationJob(
+        String id,
+        Status status,
+        long totalMappings,
+        long checkpointSeq,
+        long movedKeys,
+        long rejectedKeys,
+        List<String> rejectedSample,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt,
+        String error
+) {
+    public enum Status {
+        LOADING,    // recebendo os mapeamentos
+        RUNNING,    // aplicando (ou aguardando retomada)
+        COMPLETED,
+        FAILED
+    }
+}
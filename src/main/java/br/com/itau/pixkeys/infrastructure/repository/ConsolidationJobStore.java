@@ -0,0 +1,252 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJob.Status;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Persistência do job de consolidação de agências: estado/checkpoint do job, mapeamentos carregados
+ * e as operações em massa sobre pix_keys (cursor por conta, bulk {@code $set}, conferência das trocas).
+ */
+@Repository
+public class ConsolidationJobStore {
+
+    static final String JOBS = "pix_key_jobs";
+    static final String MAPPINGS = "pix_key_consolidation_mappings";
+
+    private static final int REJECTED_SAMPLE_SIZE = 100;
+
+    private final MongoTemplate template;
+
+    public ConsolidationJobStore(MongoTemplate template) {
+        this.template = template;
+    }
+
+    public void createJob(String jobId, Instant now) {
+        // leitura dos mapeamentos em ordem, por job (idempotente: só cria na primeira vez)
+        template.indexOps(MAPPINGS).createIndex(new Index().on("jobId", Sort.Direction.ASC).on("seq", Sort.Direction.ASC)
+                .named("idx_job_seq"));
+        template.insert(new Document("_id", jobId)
+                .append("type", "agency-consolidation")
+                .append("status", Status.LOADING.name())
+                .append("totalMappings", 0L)
+                .append("checkpointSeq", 0L)
+                .append("movedKeys", 0L)
+                .append("rejectedKeys", 0L)
+                .append("rejectedSample", List.of())
+                .append("startedAt", Date.from(now))
+                .append("updatedAt", Date.from(now)), JOBS);
+    }
+
+    /**
+     * Grava um bloco de mapeamentos (bulk não ordenado); {@code seq} define a ordem de aplicação.
+     * Também renova {@code updatedAt} do job: é o sinal de que a carga segue viva (ver {@link #failStaleLoading}).
+     */
+    public void appendMappings(String jobId, List<AccountMapping> mappings) {
+        if (!mappings.isEmpty()) {
+            BulkOperations ops = template.bulkOps(BulkMode.UNORDERED, MAPPINGS);
+            for (AccountMapping m : mappings) {
+                ops.insert(new Document("jobId", jobId)
+                        .append("seq", m.seq())
+                        .append("fromAgency", m.from().agency()).append("fromAccount", m.from().account())
+                        .append("toAgency", m.to().agency()).append("toAccount", m.to().account()));
+            }
+            ops.execute();
+        }
+        template.updateFirst(query(where("_id").is(jobId)), new Update().currentDate("updatedAt"), JOBS);
+    }
+
+    /**
+     * Marca como FAILED os jobs em LOADING sem progresso desde {@code staleBefore}: a carga é feita em streaming
+     * pela requisição que submeteu o job, e se a instância caiu no meio os mapeamentos restantes se perderam —
+     * não há de onde retomar. O cliente deve submeter de novo.
+     *
+     * @return jobs marcados
+     */
+    public long failStaleLoading(Instant staleBefore) {
+        Query q = query(where("status").is(Status.LOADING.name()).and("updatedAt").lt(Date.from(staleBefore)));
+        Update u = new Update()
+                .set("status", Status.FAILED.name())
+                .set("error", "carga dos mapeamentos interrompida; submeta o job novamente")
+                .currentDate("finishedAt")
+                .currentDate("updatedAt");
+        return template.updateMulti(q, u, JOBS).getModifiedCount();
+    }
+
+    /** Fim da carga: o job fica pronto para ser assumido por uma instância. */
+    public void markLoaded(String jobId, long totalMappings) {
+        template.updateFirst(query(where("_id").is(jobId)), new Update()
+                .set("status", Status.RUNNING.name())
+                .set("totalMappings", totalMappings)
+                .currentDate("updatedAt"), JOBS);
+    }
+
+    /**
+     * Assume (ou renova) a posse do job em RUNNING se estiver livre, expirada ou já for desta instância.
+     */
+    public boolean tryAcquire(String jobId, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query q = query(where("_id").is(jobId).and("status").is(Status.RUNNING.name())
+                .orOperator(where("owner").is(owner), where("leaseUntil").exists(false), where("leaseUntil").lt(Date.from(now))));
+        Update u = new Update().set("owner", owner).set("leaseUntil", Date.from(now.plus(lease)));
+        return template.updateFirst(q, u, JOBS).getModifiedCount() == 1;
+    }
+
+    public Optional<ConsolidationJob> findJob(String jobId) {
+        return Optional.ofNullable(template.findById(jobId, Document.class, JOBS)).map(ConsolidationJobStore::toJob);
+    }
+
+    /** Jobs interrompidos (RUNNING) que podem ser retomados. */
+    public List<String> findRunningJobIds() {
+        Query q = query(where("status").is(Status.RUNNING.name()));
+        q.fields().include("_id");
+        return template.find(q, Document.class, JOBS).stream().map(d -> d.getString("_id")).toList();
+    }
+
+    public List<AccountMapping> loadMappings(String jobId, long afterSeq, int limit) {
+        Query q = query(where("jobId").is(jobId).and("seq").gt(afterSeq))
+                .with(Sort.by("seq")).limit(limit);
+        List<AccountMapping> out = new ArrayList<>();
+        for (Document d : template.find(q, Document.class, MAPPINGS)) {
+            out.add(new AccountMapping(
+                    d.get("seq", Number.class).longValue(),
+                    new AccountRef(d.getString("fromAgency"), d.getString("fromAccount")),
+                    new AccountRef(d.getString("toAgency"), d.getString("toAccount"))));
+        }
+        return out;
+    }
+
+    /** Percorre com cursor todas as chaves (qualquer status) das contas informadas. */
+    public void forEachKeyOf(Collection<AccountRef> accounts, Consumer<PixKey> consumer) {
+        if (accounts.isEmpty()) return;
+        try (Stream<PixKey> keys = template.stream(query(anyOf(accounts)), PixKey.class)) {
+            keys.forEach(consumer);
+        }
+    }
+
+    /**
+     * Aplica as trocas de conta em um bulk não ordenado ({@code $set} de agência/conta, {@code $inc} da versão).
+     * Cada troca só casa se a chave ainda estiver na conta de origem e no status lido pelo cursor, o que torna a
+     * reaplicação inócua e não move como ativa uma chave inativada nesse meio tempo.
+     *
+     * @return chaves efetivamente alteradas
+     */
+    public int moveKeys(List<KeyMove> moves) {
+        if (moves.isEmpty()) return 0;
+        BulkOperations ops = template.bulkOps(BulkMode.UNORDERED, PixKeyRepositoryImpl.PIX_KEYS);
+        for (KeyMove m : moves) {
+            ops.updateOne(
+                    query(where("_id").is(m.id()).and("agency").is(m.from().agency()).and("account").is(m.from().account())
+                            .and("status").is(m.status().name())),
+                    new Update().set("agency", m.to().agency()).set("account", m.to().account()).inc("version", 1));
+        }
+        return ops.execute().getModifiedCount();
+    }
+
+    /** Conta em que cada chave está agora (chaves inexistentes ficam fora do mapa); confere o que o bulk moveu. */
+    public Map<String, AccountRef> findAccountsOf(Collection<String> ids) {
+        if (ids.isEmpty()) return Map.of();
+        Query q = query(where("_id").in(ids));
+        q.fields().include("agency").include("account");
+        Map<String, AccountRef> out = new HashMap<>();
+        for (Document d : template.find(q, Document.class, PixKeyRepositoryImpl.PIX_KEYS)) {
+            out.put(d.getString("_id"), new AccountRef(d.getString("agency"), d.getString("account")));
+        }
+        return out;
+    }
+
+    /**
+     * Registra o lote aplicado e renova a posse do job.
+     *
+     * @return {@code false} se a posse foi perdida para outra instância (o job deve parar aqui)
+     */
+    public boolean checkpoint(String jobId, String owner, long checkpointSeq, long moved,
+                              List<String> rejectedIds, Duration lease) {
+        Update u = new Update()
+                .set("checkpointSeq", checkpointSeq)
+                .inc("movedKeys", moved)
+                .inc("rejectedKeys", rejectedIds.size())
+                .set("leaseUntil", Date.from(Instant.now().plus(lease)))
+                .currentDate("updatedAt");
+        if (!rejectedIds.isEmpty()) {
+            u.push("rejectedSample").slice(-REJECTED_SAMPLE_SIZE).each(rejectedIds.toArray());
+        }
+        return template.updateFirst(query(where("_id").is(jobId).and("owner").is(owner)), u, JOBS)
+                .getModifiedCount() == 1;
+    }
+
+    /** Falha recuperável: registra o erro e libera a posse; o job continua RUNNING para ser retomado. */
+    public void release(String jobId, String owner, String error) {
+        template.updateFirst(query(where("_id").is(jobId).and("owner").is(owner)), new Update()
+                .set("error", error)
+                .unset("owner")
+                .unset("leaseUntil")
+                .currentDate("updatedAt"), JOBS);
+    }
+
+    public void finish(String jobId, Status status, String error) {
+        Update u = new Update()
+                .set("status", status.name())
+                .currentDate("finishedAt")
+                .currentDate("updatedAt")
+                .unset("owner")
+                .unset("leaseUntil");
+        if (error != null) u.set("error", error);
+        template.updateFirst(query(where("_id").is(jobId)), u, JOBS);
+    }
+
+    // Um ramo por conta e status: cada ramo usa o índice parcial por conta daquele status
+    private static Criteria anyOf(Collection<AccountRef> accounts) {
+        List<Criteria> each = new ArrayList<>(accounts.size() * 2);
+        for (AccountRef a : accounts) {
+            for (KeyStatus status : KeyStatus.values()) {
+                each.add(where("agency").is(a.agency()).and("account").is(a.account()).and("status").is(status));
+            }
+        }
+        return new Criteria().orOperator(each);
+    }
+
+    private static ConsolidationJob toJob(Document d) {
+        return new ConsolidationJob(
+                d.getString("_id"),
+                Status.valueOf(d.getString("status")),
+                d.get("totalMappings", Number.class).longValue(),
+                d.get("checkpointSeq", Number.class).longValue(),
+                d.get("movedKeys", Number.class).longValue(),
+                d.get("rejectedKeys", Number.class).longValue(),
+                d.getList("rejectedSample", String.class, List.of()),
+                instant(d.getDate("startedAt")),
+                instant(d.getDate("updatedAt")),
+                instant(d.getDate("finishedAt")),
+                d.getString("error"));
+    }
+
+    private static Instant instant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+}
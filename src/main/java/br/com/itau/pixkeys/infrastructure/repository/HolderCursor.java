@@ -0,0 +1,25 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Posição na busca por prefixo do titular ({@code holderSearch} asc, {@code _id} asc): a próxima página
+ * começa logo depois da última chave entregue, sem skip.
+ */
+public record HolderCursor(String holderSearch, String id) {
+
+    public HolderCursor {
+        Objects.requireNonNull(holderSearch, "holderSearch");
+        Objects.requireNonNull(id, "id");
+    }
+
+    public Criteria toCriteria() {
+        return where(HolderSearch.FIELD).gte(holderSearch)
+                .orOperator(where(HolderSearch.FIELD).gt(holderSearch), where("_id").gt(id));
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Preenche o campo {@value HolderSearch#FIELD} nas chaves gravadas antes dele existir, após o start.
+ * Idempotente: só toca documentos sem o campo. Até terminar, essas chaves não aparecem na busca por
+ * prefixo do titular; as demais operações não dependem do campo.
+ */
+@Component
+class HolderSearchBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(HolderSearchBackfill.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final PixKeyRepository repo;
+
+    HolderSearchBackfill(PixKeyRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void run() {
+        long start = System.nanoTime();
+        try {
+            long updated = repo.backfillHolderSearch(BATCH_SIZE);
+            if (updated > 0) {
+                log.info("campo {} preenchido em {} chaves em {} ms", HolderSearch.FIELD, updated,
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            log.warn("falha ao preencher o campo {}; chaves antigas ficam fora da busca por titular até o próximo start",
+                    HolderSearch.FIELD, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Grava o campo derivado {@value HolderSearch#FIELD} em todo insert/save de {@link PixKey}. Não é componente
+ * do record: só existe no documento, para a busca por prefixo do titular.
+ */
+@Component
+class HolderSearchCallback implements BeforeSaveCallback<PixKey> {
+
+    @Override
+    public PixKey onBeforeSave(PixKey key, Document document, String collection) {
+        document.put(HolderSearch.FIELD, HolderSearch.of(key.holderName(), key.holderSurname()));
+        return key;
+    }
+}
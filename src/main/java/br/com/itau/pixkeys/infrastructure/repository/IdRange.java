@@ -0,0 +1,49 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Faixa de {@code _id} para varreduras paralelas. Os IDs são UUIDs em hexadecimal minúsculo, então as faixas
+ * dividem o primeiro dígito hexadecimal; a primeira e a última faixa ficam abertas para cobrir qualquer ID.
+ *
+ * @param fromInclusive início da faixa ({@code null} = sem limite inferior)
+ * @param toExclusive   fim da faixa ({@code null} = sem limite superior)
+ */
+public record IdRange(String fromInclusive, String toExclusive) {
+
+    public static final int MAX_PARTS = 16;
+
+    private static final String HEX = "0123456789abcdef";
+
+    public static IdRange all() {
+        return new IdRange(null, null);
+    }
+
+    /** Divide o espaço de IDs em {@code parts} faixas contíguas (1 a {@value #MAX_PARTS}). */
+    public static List<IdRange> split(int parts) {
+        if (parts < 1 || parts > MAX_PARTS) {
+            throw new IllegalArgumentException("parts deve estar entre 1 e " + MAX_PARTS);
+        }
+        List<IdRange> ranges = new ArrayList<>(parts);
+        String from = null;
+        for (int i = 1; i <= parts; i++) {
+            String to = i == parts ? null : String.valueOf(HEX.charAt(i * HEX.length() / parts));
+            ranges.add(new IdRange(from, to));
+            from = to;
+        }
+        return ranges;
+    }
+
+    public Criteria toCriteria() {
+        if (fromInclusive == null && toExclusive == null) return new Criteria();
+        Criteria id = where("_id");
+        if (fromInclusive != null) id.gte(fromInclusive);
+        if (toExclusive != null) id.lt(toExclusive);
+        return id;
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Persistência do arquivamento de chaves inativas: checkpoint/posse da passada (um único documento em
+ * pix_key_archival) e a cópia pix_keys → pix_keys_archive seguida da remoção da coleção quente.
+ */
+@Repository
+public class KeyArchiveStore {
+
+    static final String RUNS = "pix_key_archival";
+    static final String INACTIVATED_INDEX = "idx_inactivated";
+
+    private static final String RUN_ID = "key-archival";
+    private static final String RUNNING = "RUNNING";
+    private static final String IDLE = "IDLE";
+
+    private final MongoTemplate template;
+
+    public KeyArchiveStore(MongoTemplate template) {
+        this.template = template;
+    }
+
+    /**
+     * Assume a posse do arquivamento se estiver livre, expirada ou já for desta instância. Uma passada
+     * interrompida (RUNNING) é retomada do checkpoint; senão começa uma nova com {@code cutoff}.
+     *
+     * @return vazio se outra instância detém a posse
+     */
+    public Optional<ArchivalRun> tryAcquire(String owner, Duration lease, Instant cutoff) {
+        Instant now = Instant.now();
+        try {
+            template.insert(new Document("_id", RUN_ID).append("status", IDLE).append("totalArchived", 0L), RUNS);
+        } catch (DuplicateKeyException ignored) {
+            // já existe (caso normal)
+        }
+        Query free = query(where("_id").is(RUN_ID)
+                .orOperator(where("owner").is(owner), where("leaseUntil").exists(false), where("leaseUntil").lt(Date.from(now))));
+        Document run = template.findAndModify(free,
+                new Update().set("owner", owner).set("leaseUntil", Date.from(now.plus(lease))),
+                FindAndModifyOptions.options().returnNew(true), Document.class, RUNS);
+        if (run == null) return Optional.empty();
+        if (RUNNING.equals(run.getString("status"))) {
+            return Optional.of(new ArchivalRun(
+                    run.getDate("cutoff").toInstant(),
+                    run.getDate("lastInactivatedAt") == null ? null : run.getDate("lastInactivatedAt").toInstant(),
+                    run.getString("lastId"),
+                    run.get("archivedKeys", Number.class).longValue()));
+        }
+        template.updateFirst(query(where("_id").is(RUN_ID).and("owner").is(owner)), new Update()
+                .set("status", RUNNING)
+                .set("cutoff", Date.from(cutoff))
+                .set("archivedKeys", 0L)
+                .set("startedAt", Date.from(now))
+                .unset("lastInactivatedAt")
+                .unset("lastId")
+                .unset("finishedAt")
+                .unset("error")
+                .currentDate("updatedAt"), RUNS);
+        return Optional.of(new ArchivalRun(cutoff, null, null, 0));
+    }
+
+    /** Há uma passada interrompida (queda/deploy) esperando retomada. */
+    public boolean hasInterruptedRun() {
+        return template.exists(query(where("_id").is(RUN_ID).and("status").is(RUNNING)), RUNS);
+    }
+
+    /**
+     * Próximo lote de chaves INATIVAS antes do corte, depois do checkpoint, em ordem de ({@code inactivatedAt},
+     * {@code _id}) pelo índice parcial idx_inactivated. Documentos crus: a cópia preserva todos os campos.
+     */
+    public List<Document> loadBatch(ArchivalRun run, int limit) {
+        Query q = query(where("status").is(KeyStatus.INACTIVE).and("inactivatedAt").lt(Date.from(run.cutoff())));
+        if (run.lastId() != null) {
+            Date last = Date.from(run.lastInactivatedAt());
+            q.addCriteria(new Criteria().orOperator(
+                    where("inactivatedAt").gt(last),
+                    where("inactivatedAt").is(last).and("_id").gt(run.lastId())));
+        }
+        q.with(Sort.by(Sort.Direction.ASC, "inactivatedAt", "_id")).limit(limit).withHint(INACTIVATED_INDEX);
+        return template.find(q, Document.class, PixKeyRepositoryImpl.PIX_KEYS);
+    }
+
+    /**
+     * Copia o lote para pix_keys_archive (upsert por {@code _id}: reaplicar é idempotente) e só então remove da
+     * coleção quente, condicionado à mesma versão copiada: uma chave alterada no meio do caminho fica para a
+     * próxima passada, que sobrescreve a cópia.
+     *
+     * @return chaves removidas da coleção quente
+     */
+    public long archive(List<Document> docs) {
+        if (docs.isEmpty()) return 0;
+        BulkOperations copy = template.bulkOps(BulkMode.UNORDERED, PixKeyRepositoryImpl.PIX_KEYS_ARCHIVE);
+        for (Document d : docs) {
+            copy.replaceOne(query(where("_id").is(d.get("_id"))), d, FindAndReplaceOptions.options().upsert());
+        }
+        copy.execute();
+
+        BulkOperations remove = template.bulkOps(BulkMode.UNORDERED, PixKeyRepositoryImpl.PIX_KEYS);
+        remove.remove(docs.stream()
+                .map(d -> query(where("_id").is(d.get("_id"))
+                        .and("status").is(KeyStatus.INACTIVE)
+                        .and("version").is(d.get("version"))))
+                .toList());
+        return remove.execute().getDeletedCount();
+    }
+
+    /**
+     * Registra o lote processado e renova a posse.
+     *
+     * @return {@code false} se a posse foi perdida para outra instância (a passada deve parar aqui)
+     */
+    public boolean checkpoint(String owner, ArchivalRun run, long archived, Duration lease) {
+        return template.updateFirst(query(where("_id").is(RUN_ID).and("owner").is(owner)), new Update()
+                .set("lastInactivatedAt", Date.from(run.lastInactivatedAt()))
+                .set("lastId", run.lastId())
+                .set("archivedKeys", run.archivedKeys())
+                .inc("totalArchived", archived)
+                .set("leaseUntil", Date.from(Instant.now().plus(lease)))
+                .currentDate("updatedAt"), RUNS).getModifiedCount() == 1;
+    }
+
+    public void finish(String owner) {
+        template.updateFirst(query(where("_id").is(RUN_ID).and("owner").is(owner)), new Update()
+                .set("status", IDLE)
+                .currentDate("finishedAt")
+                .currentDate("updatedAt")
+                .unset("owner")
+                .unset("leaseUntil"), RUNS);
+    }
+
+    /** Falha recuperável: registra o erro e libera a posse; a passada continua RUNNING para ser retomada. */
+    public void release(String owner, String error) {
+        template.updateFirst(query(where("_id").is(RUN_ID).and("owner").is(owner)), new Update()
+                .set("error", error)
+                .unset("owner")
+                .unset("leaseUntil")
+                .currentDate("updatedAt"), RUNS);
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+
+/**
+ * Troca de conta de uma chave, condicionada a ela ainda estar na conta de origem e no status informado.
+ */
+public record KeyMove(String id, AccountRef from, AccountRef to, KeyStatus status) {
+}
@@ -0,0 +1,26 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Posição na paginação por chave ({@code createdAt} desc, {@code _id} desc): a próxima página começa logo
+ * depois da última chave entregue. O limite {@code createdAt <= t} entra no índice, então qualquer página
+ * custa o mesmo que a primeira (sem skip).
+ */
+public record KeysetCursor(Instant createdAt, String id) {
+
+    public KeysetCursor {
+        Objects.requireNonNull(createdAt, "createdAt");
+        Objects.requireNonNull(id, "id");
+    }
+
+    public Criteria toCriteria() {
+        return where("createdAt").lte(createdAt)
+                .orOperator(where("createdAt").lt(createdAt), where("_id").lt(id));
+    }
+}
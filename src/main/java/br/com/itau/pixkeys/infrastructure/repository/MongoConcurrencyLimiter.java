@@ -0,0 +1,167 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Semáforo justo na frente das chamadas ao {@link PixKeyRepository} (aplicado por
+ * {@link PixKeyRepositoryLimiterPostProcessor} quando {@code pix-keys.mongo-limiter.enabled}).
+ *
+ * Com virtual threads cada requisição ganha sua thread e nada mais segura a concorrência antes do driver:
+ * sem o limite, um pico de latência do Mongo enfileira milhares de chamadas no pool de conexões. Aqui a espera
+ * é limitada por {@code acquire-timeout} (depois disso, {@link MongoLimiterRejectedException} → 503) e
+ * medida.
+ *
+ * Os métodos de cursor ({@link #STREAMING_METHODS}: export, cargas de índice, backfill) seguram a conexão por
+ * minutos; eles usam um pool próprio e pequeno ({@code max-concurrent-streams}) para não esvaziar o das
+ * chamadas curtas. Chamadas aninhadas na mesma thread e no mesmo pool reaproveitam a permissão já obtida, para
+ * não travar com todas as permissões em uso; um callback de cursor que volta ao repositório para uma chamada
+ * curta pega permissão do pool geral.
+ *
+ * A exportação paralela reserva as permissões de cursor de todas as faixas de uma vez ({@link #reserveStreams}),
+ * antes de confirmar a resposta: sem vaga ela falha com 503, em vez de ter uma faixa rejeitada no meio do stream.
+ * Por isso {@code pix-keys.export.max-parallelism} precisa ficar abaixo de {@code max-concurrent-streams}.
+ */
+@Component
+public class MongoConcurrencyLimiter implements MethodInterceptor, MeterBinder {
+
+    /** Métodos do repositório que percorrem a coleção com cursor. */
+    static final Set<String> STREAMING_METHODS =
+            Set.of("forEach", "forEachKeyValue", "forEachActiveHolder", "backfillHolderSearch");
+
+    private final PixKeysProperties.MongoLimiter cfg;
+    private final Semaphore permits;
+    private final Semaphore streams;
+    private final ThreadLocal<Semaphore> holding = new ThreadLocal<>(); // pool cuja permissão a thread segura
+
+    private Timer queueTime;
+    private Counter rejected;
+
+    public MongoConcurrencyLimiter(PixKeysProperties properties) {
+        this.cfg = properties.getMongoLimiter();
+        if (cfg.getMaxConcurrent() < 1) throw new IllegalArgumentException("max-concurrent deve ser >= 1");
+        if (cfg.getMaxConcurrentStreams() < 1) {
+            throw new IllegalArgumentException("max-concurrent-streams deve ser >= 1");
+        }
+        if (cfg.isEnabled() && properties.getExport().getMaxParallelism() >= cfg.getMaxConcurrentStreams()) {
+            throw new IllegalArgumentException(
+                    "pix-keys.export.max-parallelism deve ser menor que pix-keys.mongo-limiter.max-concurrent-streams");
+        }
+        this.permits = new Semaphore(cfg.getMaxConcurrent(), true);
+        this.streams = new Semaphore(cfg.getMaxConcurrentStreams(), true);
+    }
+
+    public boolean isEnabled() {
+        return cfg.isEnabled();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) return invocation.proceed();
+        boolean streaming = STREAMING_METHODS.contains(invocation.getMethod().getName());
+        Semaphore pool = streaming ? streams : permits;
+        Semaphore previous = holding.get();
+        if (previous == pool) return invocation.proceed();
+        acquire(pool, streaming ? cfg.getMaxConcurrentStreams() : cfg.getMaxConcurrent());
+        holding.set(pool);
+        try {
+            return invocation.proceed();
+        } finally {
+            holding.set(previous); // volta ao pool da chamada externa (cursor → chamada curta → cursor)
+            pool.release();
+        }
+    }
+
+    /**
+     * Reserva {@code count} permissões de cursor de uma vez, na thread de quem chama; estourado o
+     * {@code acquire-timeout}, {@link MongoLimiterRejectedException}. Com o limitador desligado não reserva nada.
+     */
+    public StreamPermits reserveStreams(int count) {
+        if (!cfg.isEnabled()) return new StreamPermits(0);
+        try {
+            acquire(streams, cfg.getMaxConcurrentStreams(), count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoLimiterRejectedException("espera por permissão de cursor interrompida");
+        }
+        return new StreamPermits(count);
+    }
+
+    private void acquire(Semaphore pool, int max) throws InterruptedException {
+        acquire(pool, max, 1);
+    }
+
+    private void acquire(Semaphore pool, int max, int count) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired = pool.tryAcquire(count, cfg.getAcquireTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        if (queueTime != null) queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            if (rejected != null) rejected.increment();
+            throw new MongoLimiterRejectedException(
+                    "limite de chamadas simultâneas ao Mongo atingido (" + max + ")");
+        }
+    }
+
+    /**
+     * Permissões de cursor já reservadas. {@link #run} executa uma varredura como dona de uma delas: as chamadas
+     * de cursor ao repositório naquela thread não pedem outra. {@link #close} devolve todas.
+     */
+    public final class StreamPermits implements AutoCloseable {
+
+        private final int count;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private StreamPermits(int count) {
+            this.count = count;
+        }
+
+        public void run(Runnable scan) {
+            Semaphore previous = holding.get();
+            holding.set(streams);
+            try {
+                scan.run();
+            } finally {
+                holding.set(previous);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (count > 0 && released.compareAndSet(false, true)) streams.release(count);
+        }
+    }
+
+    public int inUse() {
+        return cfg.getMaxConcurrent() - permits.availablePermits();
+    }
+
+    public int streamsInUse() {
+        return cfg.getMaxConcurrentStreams() - streams.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String p = "pix-keys.mongo-limiter.";
+        queueTime = Timer.builder(p + "queue").description("espera por uma permissão")
+                .publishPercentiles(0.5, 0.99).register(registry);
+        rejected = Counter.builder(p + "rejected").register(registry);
+        Gauge.builder(p + "permits.in-use", this, MongoConcurrencyLimiter::inUse).register(registry);
+        Gauge.builder(p + "permits.max", cfg, PixKeysProperties.MongoLimiter::getMaxConcurrent).register(registry);
+        Gauge.builder(p + "waiting", permits, Semaphore::getQueueLength).register(registry);
+        Gauge.builder(p + "streams.in-use", this, MongoConcurrencyLimiter::streamsInUse).register(registry);
+        Gauge.builder(p + "streams.max", cfg, PixKeysProperties.MongoLimiter::getMaxConcurrentStreams)
+                .register(registry);
+    }
+}
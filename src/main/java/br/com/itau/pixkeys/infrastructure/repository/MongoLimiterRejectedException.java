@@ -0,0 +1,15 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Permissão do {@link MongoConcurrencyLimiter} não obtida dentro do {@code acquire-timeout}: o serviço está
+ * sobrecarregado e a chamada pode ser repetida (503 com {@code Retry-After}). Outras falhas transitórias do
+ * Mongo não usam este tipo.
+ */
+public class MongoLimiterRejectedException extends TransientDataAccessResourceException {
+
+    public MongoLimiterRejectedException(String message) {
+        super(message);
+    }
+}
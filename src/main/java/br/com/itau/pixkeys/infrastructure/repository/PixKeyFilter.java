@@ -0,0 +1,60 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Filtros combináveis de chaves (abordagem Specification-like com {@link Criteria}): cada campo não nulo
+ * vira um critério e os critérios são combinados com AND. Sem filtros, casa todas as chaves. Com conta e sem
+ * status, vira um {@code $or} com um ramo por status (conta e status em cada ramo), para que cada ramo use o seu
+ * índice parcial por conta.
+ *
+ * @param holderName  nome do titular (igualdade)
+ * @param createdFrom início do intervalo de {@code createdAt} (inclusivo)
+ * @param createdTo   fim do intervalo de {@code createdAt} (exclusivo)
+ */
+public record PixKeyFilter(
+        KeyStatus status,
+        KeyType keyType,
+        String agency,
+        String account,
+        String holderName,
+        Instant createdFrom,
+        Instant createdTo
+) {
+
+    public static PixKeyFilter none() {
+        return new PixKeyFilter(null, null, null, null, null, null, null);
+    }
+
+    public Criteria toCriteria() {
+        if (agency != null && account != null && status == null) {
+            return new Criteria().orOperator(withStatus(KeyStatus.ACTIVE).toCriteria(),
+                    withStatus(KeyStatus.INACTIVE).toCriteria());
+        }
+        List<Criteria> parts = new ArrayList<>(6);
+        if (agency != null) parts.add(where("agency").is(agency));
+        if (account != null) parts.add(where("account").is(account));
+        if (status != null) parts.add(where("status").is(status));
+        if (keyType != null) parts.add(where("keyType").is(keyType));
+        if (holderName != null) parts.add(where("holderName").is(holderName));
+        if (createdFrom != null || createdTo != null) {
+            Criteria created = where("createdAt");
+            if (createdFrom != null) created.gte(createdFrom);
+            if (createdTo != null) created.lt(createdTo);
+            parts.add(created);
+        }
+        return parts.isEmpty() ? new Criteria() : new Criteria().andOperator(parts);
+    }
+
+    private PixKeyFilter withStatus(KeyStatus s) {
+        return new PixKeyFilter(s, keyType, agency, account, holderName, createdFrom, createdTo);
+    }
+}
@@ -1,13 +1,18 @@
 package br.com.itau.pixkeys.infrastructure.repository;
 
+import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface PixKeyRepository extends MongoRepository<PixKey, String> {
+public interface PixKeyRepository extends MongoRepository<PixKey, String>, PixKeyRepositoryCustom {
     Optional<PixKey> findByKeyValue(String keyValue);
-    long countByAgencyAndAccount(String agency, String account);
+    Optional<PixKey> findByKeyValueAndStatus(String keyValue, KeyStatus status);
+    List<PixKey> findByKeyValueInAndStatus(Collection<String> keyValues, KeyStatus status);
+    boolean existsByKeyValue(String keyValue);
     boolean existsByAgencyAndAccountAndKeyType(String agency, String account, KeyType keyType);
 }
@@ -0,0 +1,141 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.model.AccountUpdate;
+import br.com.itau.pixkeys.domain.model.HolderUpdate;
+import br.com.itau.pixkeys.domain.model.PixKey;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Operações que o Spring Data não deriva do nome do método (implementadas com MongoTemplate).
+ */
+public interface PixKeyRepositoryCustom {
+
+    /**
+     * Reserva atomicamente uma vaga de chave para agência+conta ({@code $inc} condicional).
+     *
+     * @return {@code false} quando a conta já usa {@code limit} vagas
+     */
+    boolean tryReserveAccountSlot(String agency, String account, int limit);
+
+    /** Devolve uma vaga da conta (inativação, troca de conta ou compensação de falha). */
+    void releaseAccountSlot(String agency, String account);
+
+    /**
+     * Reserva vagas para várias contas de uma vez (criação em lote): cada conta recebe até o pedido,
+     * limitado às vagas livres. Atômico por documento de conta, com número fixo de round trips por lote.
+     *
+     * @return vagas concedidas por conta (ausente ou zero quando a conta já está no limite)
+     */
+    Map<AccountRef, Integer> reserveAccountSlots(Map<AccountRef, Integer> requested, int limit);
+
+    /** Devolve vagas de várias contas em um único bulk (compensação da criação em lote). */
+    void releaseAccountSlots(Map<AccountRef, Integer> counts);
+
+    /**
+     * Recalcula as vagas em uso da conta pelas chaves ATIVAS ({@code idx_account_active}), descartando reservas
+     * órfãs (falha sem confirmação, queda entre reserva e escrita). Uma reserva em andamento no mesmo instante,
+     * cuja escrita ainda não é visível, fica fora da contagem.
+     *
+     * @return vagas em uso depois do recálculo
+     */
+    long reconcileAccountSlots(String agency, String account);
+
+    /** Dentre os valores informados, os que já estão cadastrados (qualquer status), em um único {@code $in}. */
+    Set<String> findExistingKeyValues(Collection<String> keyValues);
+
+    /**
+     * Insere todas as chaves em um único bulk não ordenado: uma falha não interrompe as demais.
+     * Duplicidades (uk_key_value) e outros erros de escrita voltam por posição.
+     *
+     * @throws org.springframework.data.mongodb.BulkOperationException com erro de write concern ou sem erros por
+     *         posição: as demais escritas não foram confirmadas e não podem ser relatadas como gravadas
+     */
+    BulkInsertResult insertUnordered(List<PixKey> keys);
+
+    /**
+     * Inativa em uma única operação ({@code findAndModify} filtrando {@code status: ACTIVE}) e devolve
+     * o documento já atualizado. Vazio quando a chave não existe, já está inativa ou a versão não confere.
+     *
+     * @param expectedVersion versão esperada (controle otimista); {@code null} dispensa a checagem
+     */
+    Optional<PixKey> inactivateIfActive(String id, Long expectedVersion, Instant inactivatedAt);
+
+    /**
+     * Inativa todas as chaves ATIVAS da conta: lê os IDs e aplica um único {@code updateMany} por
+     * {@code _id} + {@code status: ACTIVE}, contando exatamente as que esta operação inativou.
+     */
+    AccountInactivation inactivateAllActive(String agency, String account, Instant inactivatedAt);
+
+    /**
+     * Troca o titular de todas as chaves ATIVAS da conta com um único {@code updateMany} e devolve as chaves
+     * ativas da conta já com o novo titular.
+     */
+    List<PixKey> updateHolderOfActive(String agency, String account, HolderUpdate change);
+
+    /**
+     * Aplica {@code $set} somente dos campos de conta/titular, desde que a chave esteja ATIVA e ainda
+     * pertença a {@code agency}/{@code account} (a conta considerada na contabilidade de vagas).
+     * Devolve o documento já atualizado, ou vazio quando o filtro não casar.
+     *
+     * @param expectedVersion versão esperada (controle otimista); {@code null} dispensa a checagem
+     */
+    Optional<PixKey> updateAccountIfActive(String id, String agency, String account,
+                                           Long expectedVersion, AccountUpdate update);
+
+    /**
+     * Chaves da conta (opcionalmente só de um status) como resumo: ativas primeiro, cada grupo por {@code createdAt}
+     * desc. As ativas são consulta coberta pelo índice parcial idx_account_active (filtro, ordenação e projeção saem
+     * só do índice); as inativas vêm do parcial idx_account_inactive.
+     */
+    List<AccountKeySummary> findAccountSummaries(String agency, String account, KeyStatus status);
+
+    /**
+     * Uma página da busca filtrada, ordenada por {@code createdAt} desc e {@code _id} desc, começando depois de
+     * {@code after} (ou do início, se nulo). Paginação por chave: sem skip.
+     */
+    List<PixKey> search(PixKeyFilter filter, KeysetCursor after, int limit);
+
+    /**
+     * Uma página das chaves ATIVAS cujo titular normalizado ({@link br.com.itau.pixkeys.domain.model.HolderSearch})
+     * começa com {@code prefix} (já normalizado), ordenada por {@code holderSearch} e {@code _id}, começando
+     * depois de {@code after} (ou do início, se nulo). O prefixo vira uma faixa do índice parcial idx_holder_search.
+     */
+    List<PixKey> findByHolderPrefix(String prefix, HolderCursor after, int limit);
+
+    /**
+     * Grava o campo de busca do titular nos documentos anteriores a ele (cursor + bulk de {@code batchSize}).
+     *
+     * @return documentos atualizados
+     */
+    long backfillHolderSearch(int batchSize);
+
+    /**
+     * Percorre com cursor as chaves que casam com o filtro dentro da faixa de {@code _id}, em lotes de
+     * {@code batchSize} documentos (memória constante, independente do tamanho da coleção).
+     */
+    void forEach(PixKeyFilter filter, IdRange range, int batchSize, Consumer<PixKey> consumer);
+
+    /** Percorre com cursor todos os keyValue cadastrados (projeção só do campo, memória constante). */
+    void forEachKeyValue(Consumer<String> consumer);
+
+    /**
+     * Percorre com cursor as chaves ATIVAS entregando {@code id} e o titular normalizado
+     * ({@link br.com.itau.pixkeys.domain.model.HolderSearch}); projeção só do id e do titular.
+     */
+    void forEachActiveHolder(BiConsumer<String, String> consumer);
+
+    /** Busca por ID em pix_keys_archive (chaves inativas movidas pelo arquivamento). */
+    Optional<PixKey> findArchivedById(String id);
+
+    /** Busca em lote ({@code $in} em {@code _id}) em pix_keys_archive. */
+    List<PixKey> findAllArchivedById(Collection<String> ids);
+}
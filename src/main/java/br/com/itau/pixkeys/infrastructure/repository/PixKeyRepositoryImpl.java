@@ -0,0 +1,432 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.AccountUpdate;
+import br.com.itau.pixkeys.domain.model.HolderSearch;
+import br.com.itau.pixkeys.domain.model.HolderUpdate;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Implementação do fragmento {@link PixKeyRepositoryCustom} (sufixo Impl detectado pelo Spring Data).
+ */
+class PixKeyRepositoryImpl implements PixKeyRepositoryCustom {
+
+    // Um documento por agência+conta: { _id: "agencia:conta", used: <vagas em uso> }
+    static final String ACCOUNT_SLOTS = "pix_key_account_slots";
+    static final String PIX_KEYS = "pix_keys";
+    // Chaves inativas antigas movidas pelo job de arquivamento (mesmo formato de documento)
+    static final String PIX_KEYS_ARCHIVE = "pix_keys_archive";
+    // Índices por conta (ver PixKey): um parcial por status
+    static final String ACTIVE_ACCOUNT_INDEX = "idx_account_active";
+    static final String INACTIVE_ACCOUNT_INDEX = "idx_account_inactive";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate template;
+
+    PixKeyRepositoryImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public boolean tryReserveAccountSlot(String agency, String account, int limit) {
+        String id = slotId(agency, account);
+
+        // Caminho normal: 1 round trip, atômico no documento da conta
+        if (incrementIfBelow(id, limit)) return true;
+        if (template.exists(query(where("_id").is(id)), ACCOUNT_SLOTS)) return false;
+
+        // Primeira reserva da conta: semeia com as chaves ativas já existentes e tenta de novo
+        long active = template.count(query(activeOf(agency, account)).withHint(ACTIVE_ACCOUNT_INDEX), PixKey.class);
+        try {
+            template.insert(new Document("_id", id).append("used", (int) active), ACCOUNT_SLOTS);
+        } catch (DuplicateKeyException ignored) {
+            // outra requisição semeou a conta primeiro
+        }
+        return incrementIfBelow(id, limit);
+    }
+
+    @Override
+    public void releaseAccountSlot(String agency, String account) {
+        template.updateFirst(
+                query(where("_id").is(slotId(agency, account)).and("used").gt(0)),
+                new Update().inc("used", -1),
+                ACCOUNT_SLOTS);
+    }
+
+    @Override
+    public long reconcileAccountSlots(String agency, String account) {
+        long active = template.count(query(activeOf(agency, account)).withHint(ACTIVE_ACCOUNT_INDEX), PixKey.class);
+        template.upsert(query(where("_id").is(slotId(agency, account))), new Update().set("used", (int) active),
+                ACCOUNT_SLOTS);
+        return active;
+    }
+
+    @Override
+    public Optional<PixKey> inactivateIfActive(String id, Long expectedVersion, Instant inactivatedAt) {
+        Update update = new Update()
+                .set("status", KeyStatus.INACTIVE)
+                .set("inactivatedAt", inactivatedAt);
+        return modifyIfActive(activeById(id, expectedVersion), update);
+    }
+
+    @Override
+    public AccountInactivation inactivateAllActive(String agency, String account, Instant inactivatedAt) {
+        // 1) IDs das ativas (coberta pelo índice parcial)
+        Query active = query(activeOf(agency, account)).withHint(ACTIVE_ACCOUNT_INDEX);
+        active.fields().include("_id");
+        List<Object> ids = template.find(active, Document.class, PIX_KEYS).stream().map(d -> d.get("_id")).toList();
+        if (ids.isEmpty()) return AccountInactivation.none();
+
+        // 2) Uma escrita só nesses IDs ainda ATIVOS: modifiedCount é exatamente o que esta operação inativou,
+        // mesmo com inativações unitárias concorrentes (a que vencer a corrida devolve a própria vaga)
+        UpdateResult result = template.updateMulti(
+                query(where("_id").in(ids).and("status").is(KeyStatus.ACTIVE)),
+                new Update().set("status", KeyStatus.INACTIVE).set("inactivatedAt", inactivatedAt),
+                PixKey.class); // com a classe da entidade o @Version também é incrementado
+        if (result.getModifiedCount() == 0) return AccountInactivation.none();
+        List<PixKey> keys = template.find(query(where("_id").in(ids).and("status").is(KeyStatus.INACTIVE)), PixKey.class);
+        return new AccountInactivation(keys, result.getModifiedCount());
+    }
+
+    @Override
+    public List<PixKey> updateHolderOfActive(String agency, String account, HolderUpdate change) {
+        Criteria activeOfAccount = activeOf(agency, account);
+        UpdateResult result = template.updateMulti(query(activeOfAccount),
+                new Update().set("holderName", change.holderName()).set("holderSurname", change.holderSurname())
+                        .set(HolderSearch.FIELD, HolderSearch.of(change.holderName(), change.holderSurname())),
+                PixKey.class); // com a classe da entidade o @Version também é incrementado
+        if (result.getMatchedCount() == 0) return List.of();
+        return template.find(query(activeOfAccount), PixKey.class);
+    }
+
+    @Override
+    public Optional<PixKey> updateAccountIfActive(String id, String agency, String account,
+                                                  Long expectedVersion, AccountUpdate change) {
+        Query q = activeById(id, expectedVersion);
+        q.addCriteria(where("agency").is(agency).and("account").is(account));
+        Update update = new Update()
+                .set("accountType", change.accountType())
+                .set("agency", change.agency())
+                .set("account", change.account())
+                .set("holderName", change.holderName())
+                .set("holderSurname", change.holderSurname())
+                .set(HolderSearch.FIELD, HolderSearch.of(change.holderName(), change.holderSurname()));
+        return modifyIfActive(q, update);
+    }
+
+    // findAndModify incrementa o @Version automaticamente e devolve o documento novo no mesmo round trip
+    private Optional<PixKey> modifyIfActive(Query q, Update update) {
+        return Optional.ofNullable(template.findAndModify(
+                q, update, FindAndModifyOptions.options().returnNew(true), PixKey.class));
+    }
+
+    // Predicado que habilita o índice parcial idx_account_active (precisa conter o status: ACTIVE do filtro)
+    static Criteria activeOf(String agency, String account) {
+        return where("agency").is(agency).and("account").is(account).and("status").is(KeyStatus.ACTIVE);
+    }
+
+    private static Query activeById(String id, Long expectedVersion) {
+        Query q = query(where("_id").is(id).and("status").is(KeyStatus.ACTIVE));
+        if (expectedVersion != null) {
+            q.addCriteria(where("version").is(expectedVersion));
+        }
+        return q;
+    }
+
+    @Override
+    public List<AccountKeySummary> findAccountSummaries(String agency, String account, KeyStatus status) {
+        List<AccountKeySummary> summaries = new ArrayList<>();
+        // Ativas primeiro: cada status sai do seu índice (o parcial das ativas não enxerga as inativas)
+        if (status != KeyStatus.INACTIVE) {
+            appendSummaries(query(activeOf(agency, account)).withHint(ACTIVE_ACCOUNT_INDEX), summaries);
+        }
+        if (status != KeyStatus.ACTIVE) {
+            appendSummaries(query(where("agency").is(agency).and("account").is(account).and("status").is(KeyStatus.INACTIVE))
+                    .withHint(INACTIVE_ACCOUNT_INDEX), summaries);
+        }
+        return summaries;
+    }
+
+    // Nas ativas só há campos do índice (inclusive _id): IXSCAN + PROJECTION_COVERED, sem FETCH
+    private void appendSummaries(Query q, List<AccountKeySummary> summaries) {
+        q.with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+        q.fields().include("_id", "keyType", "keyValue", "status", "createdAt");
+        try (Stream<Document> docs = template.stream(q, Document.class, PIX_KEYS)) {
+            docs.forEach(d -> summaries.add(new AccountKeySummary(
+                    d.getString("_id"),
+                    KeyType.valueOf(d.getString("keyType")),
+                    d.getString("keyValue"),
+                    KeyStatus.valueOf(d.getString("status")),
+                    d.getDate("createdAt").toInstant())));
+        }
+    }
+
+    @Override
+    public List<PixKey> search(PixKeyFilter filter, KeysetCursor after, int limit) {
+        Criteria criteria = after == null ? filter.toCriteria() : new Criteria().andOperator(filter.toCriteria(), after.toCriteria());
+        Query q = query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        return template.find(q, PixKey.class);
+    }
+
+    @Override
+    public List<PixKey> findByHolderPrefix(String prefix, HolderCursor after, int limit) {
+        // Faixa [prefixo, prefixo + U+FFFF): prefixo ancorado lido como intervalo do índice, sem regex;
+        // o filtro de status é o do índice parcial idx_holder_search
+        List<Criteria> parts = new ArrayList<>(3);
+        parts.add(where(HolderSearch.FIELD).gte(prefix).lt(prefix + Character.MAX_VALUE));
+        parts.add(where("status").is(KeyStatus.ACTIVE));
+        if (after != null) parts.add(after.toCriteria());
+        Query q = query(new Criteria().andOperator(parts))
+                .with(Sort.by(Sort.Direction.ASC, HolderSearch.FIELD, "_id"))
+                .limit(limit);
+        return template.find(q, PixKey.class);
+    }
+
+    @Override
+    public long backfillHolderSearch(int batchSize) {
+        Query missing = query(where(HolderSearch.FIELD).exists(false)).cursorBatchSize(batchSize);
+        missing.fields().include("holderName", "holderSurname");
+        long updated = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        try (Stream<Document> docs = template.stream(missing, Document.class, PIX_KEYS)) {
+            for (Document d : (Iterable<Document>) docs::iterator) {
+                batch.add(d);
+                if (batch.size() == batchSize) {
+                    updated += writeHolderSearch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return batch.isEmpty() ? updated : updated + writeHolderSearch(batch);
+    }
+
+    // O filtro repete o titular lido: se ele mudou no meio do caminho, a escrita nova já gravou o campo
+    private int writeHolderSearch(List<Document> docs) {
+        BulkOperations bulk = template.bulkOps(BulkMode.UNORDERED, PIX_KEYS);
+        for (Document d : docs) {
+            String name = d.getString("holderName");
+            String surname = d.getString("holderSurname");
+            bulk.updateOne(
+                    query(where("_id").is(d.get("_id")).and("holderName").is(name).and("holderSurname").is(surname)
+                            .and(HolderSearch.FIELD).exists(false)),
+                    new Update().set(HolderSearch.FIELD, HolderSearch.of(name, surname)));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public void forEach(PixKeyFilter filter, IdRange range, int batchSize, Consumer<PixKey> consumer) {
+        Query q = query(new Criteria().andOperator(filter.toCriteria(), range.toCriteria())).cursorBatchSize(batchSize);
+        try (Stream<PixKey> keys = template.stream(q, PixKey.class)) {
+            keys.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void forEachKeyValue(Consumer<String> consumer) {
+        Query q = new Query();
+        q.fields().include("keyValue").exclude("_id");
+        try (Stream<Document> docs = template.stream(q, Document.class, PIX_KEYS)) {
+            docs.forEach(d -> consumer.accept(d.getString("keyValue")));
+        }
+    }
+
+    @Override
+    public void forEachActiveHolder(BiConsumer<String, String> consumer) {
+        Query q = query(where("status").is(KeyStatus.ACTIVE));
+        q.fields().include("holderName", "holderSurname");
+        try (Stream<Document> docs = template.stream(q, Document.class, PIX_KEYS)) {
+            docs.forEach(d -> consumer.accept(d.getString("_id"),
+                    HolderSearch.of(d.getString("holderName"), d.getString("holderSurname"))));
+        }
+    }
+
+    @Override
+    public Optional<PixKey> findArchivedById(String id) {
+        return Optional.ofNullable(template.findById(id, PixKey.class, PIX_KEYS_ARCHIVE));
+    }
+
+    @Override
+    public List<PixKey> findAllArchivedById(Collection<String> ids) {
+        if (ids.isEmpty()) return List.of();
+        return template.find(query(where("_id").in(ids)), PixKey.class, PIX_KEYS_ARCHIVE);
+    }
+
+    @Override
+    public Map<AccountRef, Integer> reserveAccountSlots(Map<AccountRef, Integer> requested, int limit) {
+        if (requested.isEmpty()) return Map.of();
+
+        List<String> ids = new ArrayList<>(requested.size());
+        List<Integer> wanted = new ArrayList<>(requested.size());
+        Map<String, AccountRef> byId = new HashMap<>();
+        requested.forEach((ref, n) -> {
+            ids.add(ref.slotId());
+            wanted.add(n);
+            byId.put(ref.slotId(), ref);
+        });
+        seedMissingSlots(byId);
+
+        // Um updateMany com pipeline: cada documento calcula a própria concessão, min(pedido, limite - used),
+        // grava em um campo exclusivo deste lote e soma em "used" — atômico por documento.
+        String grant = "grant_" + UUID.randomUUID().toString().replace("-", "");
+        Document wantedForDoc = new Document("$arrayElemAt", List.of(wanted,
+                new Document("$indexOfArray", List.of(new Document("$literal", ids), "$_id"))));
+        Document granted = new Document("$max", List.of(0, new Document("$min", List.of(
+                wantedForDoc, new Document("$subtract", List.of(limit, "$used"))))));
+        List<Document> pipeline = List.of(
+                new Document("$set", new Document(grant, granted)),
+                new Document("$set", new Document("used", new Document("$add", List.of("$used", "$" + grant)))));
+        Document inIds = new Document("_id", new Document("$in", ids));
+        template.execute(ACCOUNT_SLOTS, c -> c.updateMany(inIds, pipeline));
+
+        // Lê as concessões deste lote e remove o campo temporário
+        Query q = query(where("_id").in(ids));
+        q.fields().include(grant);
+        Map<AccountRef, Integer> result = new HashMap<>();
+        for (Document d : template.find(q, Document.class, ACCOUNT_SLOTS)) {
+            Number n = d.get(grant, Number.class);
+            if (n != null && n.intValue() > 0) result.put(byId.get(d.getString("_id")), n.intValue());
+        }
+        template.updateMulti(query(where("_id").in(ids)), new Update().unset(grant), ACCOUNT_SLOTS);
+        return result;
+    }
+
+    @Override
+    public void releaseAccountSlots(Map<AccountRef, Integer> counts) {
+        // Pipeline used = max(0, used - n): com o contador abaixo de n (deriva), zera em vez de não fazer nada
+        List<UpdateOneModel<Document>> ops = new ArrayList<>(counts.size());
+        for (Map.Entry<AccountRef, Integer> e : counts.entrySet()) {
+            int n = e.getValue();
+            if (n <= 0) continue;
+            Document release = new Document("$set", new Document("used",
+                    new Document("$max", List.of(0, new Document("$subtract", List.of("$used", n))))));
+            ops.add(new UpdateOneModel<>(new Document("_id", e.getKey().slotId()), List.of(release)));
+        }
+        if (!ops.isEmpty()) {
+            template.execute(ACCOUNT_SLOTS, c -> c.bulkWrite(ops, new BulkWriteOptions().ordered(false)));
+        }
+    }
+
+    @Override
+    public Set<String> findExistingKeyValues(Collection<String> keyValues) {
+        if (keyValues.isEmpty()) return Set.of();
+        Query q = query(where("keyValue").in(keyValues));
+        q.fields().include("keyValue").exclude("_id"); // coberta pelo uk_key_value
+        Set<String> found = new HashSet<>();
+        for (Document d : template.find(q, Document.class, PIX_KEYS)) {
+            found.add(d.getString("keyValue"));
+        }
+        return found;
+    }
+
+    @Override
+    public BulkInsertResult insertUnordered(List<PixKey> keys) {
+        if (keys.isEmpty()) return BulkInsertResult.allInserted();
+        List<Document> docs = new ArrayList<>(keys.size());
+        for (PixKey k : keys) {
+            Document d = new Document();
+            template.getConverter().write(k, d);
+            d.putIfAbsent("version", 0L); // bulk não inicializa o @Version como o insert do template
+            d.put(HolderSearch.FIELD, HolderSearch.of(k.holderName(), k.holderSurname())); // nem passa pelo callback
+            docs.add(d);
+        }
+        try {
+            template.bulkOps(BulkMode.UNORDERED, PIX_KEYS).insert(docs).execute();
+            return BulkInsertResult.allInserted();
+        } catch (BulkOperationException e) {
+            // Sem erro por posição ou com erro de write concern, as escritas "sem erro" não foram confirmadas:
+            // relatá-las como gravadas esconderia a perda. O chamador trata o lote como de resultado desconhecido.
+            if (e.getErrors().isEmpty()
+                    || e.getCause() instanceof MongoBulkWriteException bulk && bulk.getWriteConcernError() != null) {
+                throw e;
+            }
+            Set<Integer> duplicates = new HashSet<>();
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError err : e.getErrors()) {
+                (err.getCode() == DUPLICATE_KEY ? duplicates : failed).add(err.getIndex());
+            }
+            return new BulkInsertResult(duplicates, failed);
+        }
+    }
+
+    // Contas sem documento de vagas: semeia com a contagem de ativas (uma agregação para todas)
+    private void seedMissingSlots(Map<String, AccountRef> byId) {
+        Query existing = query(where("_id").in(byId.keySet()));
+        existing.fields().include("_id");
+        Set<String> missing = new HashSet<>(byId.keySet());
+        template.find(existing, Document.class, ACCOUNT_SLOTS).forEach(d -> missing.remove(d.getString("_id")));
+        if (missing.isEmpty()) return;
+
+        List<Criteria> accounts = new ArrayList<>(missing.size());
+        for (String id : missing) {
+            AccountRef ref = byId.get(id);
+            accounts.add(activeOf(ref.agency(), ref.account())); // status em cada ramo: o $or usa o índice parcial
+        }
+        Aggregation countActive = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().orOperator(accounts)),
+                Aggregation.group("agency", "account").count().as("used"));
+        Map<String, Integer> used = new HashMap<>();
+        for (Document d : template.aggregate(countActive, PixKey.class, Document.class)) {
+            Document key = d.get("_id", Document.class);
+            used.put(new AccountRef(key.getString("agency"), key.getString("account")).slotId(), d.getInteger("used"));
+        }
+
+        BulkOperations seeds = template.bulkOps(BulkMode.UNORDERED, ACCOUNT_SLOTS);
+        for (String id : missing) {
+            seeds.insert(new Document("_id", id).append("used", used.getOrDefault(id, 0)));
+        }
+        try {
+            seeds.execute();
+        } catch (BulkOperationException e) {
+            // outra requisição semeou alguma conta primeiro; só duplicidade é esperada aqui
+            if (e.getErrors().stream().anyMatch(err -> err.getCode() != DUPLICATE_KEY)) throw e;
+        }
+    }
+
+    private boolean incrementIfBelow(String id, int limit) {
+        Query q = query(where("_id").is(id).and("used").lt(limit));
+        return template.updateFirst(q, new Update().inc("used", 1), ACCOUNT_SLOTS).getModifiedCount() == 1;
+    }
+
+    private static String slotId(String agency, String account) {
+        return new AccountRef(agency, account).slotId();
+    }
+}
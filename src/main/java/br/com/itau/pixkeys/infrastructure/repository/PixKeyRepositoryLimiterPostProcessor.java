@@ -0,0 +1,34 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envolve o {@link PixKeyRepository} com o {@link MongoConcurrencyLimiter} quando ele está ligado: o serviço e as
+ * cargas de índice passam pelo limitador. Os jobs de consolidação e de arquivamento acessam o Mongo pelos próprios
+ * stores ({@link ConsolidationJobStore}, {@link KeyArchiveStore}), fora dele: cada um roda em uma única thread
+ * com pausa entre lotes e usa a folga do pool do driver deixada por {@code max-concurrent} e
+ * {@code max-concurrent-streams}.
+ */
+@Component
+class PixKeyRepositoryLimiterPostProcessor implements BeanPostProcessor {
+
+    // lazy: um BeanPostProcessor não deve antecipar a criação das próprias dependências
+    private final ObjectProvider<MongoConcurrencyLimiter> limiter;
+
+    PixKeyRepositoryLimiterPostProcessor(ObjectProvider<MongoConcurrencyLimiter> limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof PixKeyRepository)) return bean;
+        MongoConcurrencyLimiter l = limiter.getIfAvailable();
+        if (l == null || !l.isEnabled()) return bean;
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.addAdvice(l);
+        return proxy.getProxy();
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.itau.pixkeys.validation;
+
+/**
+ * Motor de dígitos verificadores (módulo 11) compartilhado por CPF e CNPJ.
+ *
+ * Percorre o valor bruto uma única vez: ignora a máscara, acumula as duas
+ * somas ponderadas e detecta "todos os dígitos iguais" sem alocar nada.
+ */
+final class CheckDigits {
+
+    private static final int[] CPF_W1 = {10, 9, 8, 7, 6, 5, 4, 3, 2};
+    private static final int[] CPF_W2 = {11, 10, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    private static final int[] CNPJ_W1 = {5, 4, 3, 2, 9, 8, 7, 6, 5, 4, 3, 2};
+    private static final int[] CNPJ_W2 = {6, 5, 4, 3, 2, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    private CheckDigits() {
+    }
+
+    /**
+     * CPF: qualquer caractere que não seja dígito é tratado como máscara e ignorado.
+     */
+    static boolean isValidCpf(CharSequence s) {
+        if (s == null) return false;
+        return verify(s, 0, s.length(), CPF_W1, CPF_W2, true);
+    }
+
+    /**
+     * CNPJ: espaços nas pontas são descartados (como {@code strip()}) e, no miolo,
+     * só são aceitos dígitos, espaço e os caracteres de máscara {@code . - /}.
+     */
+    static boolean isValidCnpj(CharSequence s) {
+        if (s == null) return false;
+        int from = 0;
+        int to = s.length();
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        return verify(s, from, to, CNPJ_W1, CNPJ_W2, false);
+    }
+
+    /**
+     * O i-ésimo dígito entra em w1 enquanto {@code i < w1.length} e em w2 enquanto
+     * {@code i < w2.length}; os dígitos nas posições {@code w1.length} e {@code w2.length}
+     * são os DVs informados. Usar o DV1 informado no cálculo do DV2 é equivalente ao
+     * DV1 calculado: se forem diferentes, o valor já é inválido.
+     */
+    private static boolean verify(CharSequence s, int from, int to,
+                                  int[] w1, int[] w2, boolean anyMask) {
+        final int length = w2.length + 1;
+        int count = 0;
+        int sum1 = 0;
+        int sum2 = 0;
+        int dv1 = -1;
+        int dv2 = -1;
+        int first = -1;
+        boolean allEqual = true;
+
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                if (anyMask || isMask(c)) continue;
+                return false;
+            }
+            if (count == length) return false;
+
+            int d = c - '0';
+            if (first < 0) first = d;
+            else if (d != first) allEqual = false;
+
+            if (count < w1.length) sum1 += d * w1[count];
+            else if (count == w1.length) dv1 = d;
+            if (count < w2.length) sum2 += d * w2[count];
+            else dv2 = d;
+            count++;
+        }
+
+        return count == length
+                && !allEqual
+                && dv1 == mod11(sum1)
+                && dv2 == mod11(sum2);
+    }
+
+    private static boolean isMask(char c) {
+        return c == '.' || c == '-' || c == '/' || c == ' ';
+    }
+
+    private static int mod11(int sum) {
+        int mod = sum % 11;
+        return (mod < 2) ? 0 : 11 - mod;
+    }
+}
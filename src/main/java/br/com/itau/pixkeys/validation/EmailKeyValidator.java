@@ -3,13 +3,9 @@ package br.com.itau.pixkeys.validation;
 import br.com.itau.pixkeys.domain.KeyType;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
 @Component
 public class EmailKeyValidator implements KeyValidator {
 
-    private static final Pattern EMAIL =
-            Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
-
     private static final int MAX_LEN = 77;
 
     @Override
@@ -18,21 +14,67 @@ public class EmailKeyValidator implements KeyValidator {
     }
 
     @Override
-    public void validate(String value) {
+    public KeyValidationResult check(String value) {
         if (value == null) {
-            throw new IllegalArgumentException("email nao pode ser nulo");
+            return KeyValidationResult.EMAIL_NULL;
         }
 
         String v = value.strip();
 
         if (v.isBlank()) {
-            throw new IllegalArgumentException("email nao pode ser vazio");
+            return KeyValidationResult.EMAIL_BLANK;
         }
         if (v.length() > MAX_LEN) {
-            throw new IllegalArgumentException("email excede 77 caracteres");
+            return KeyValidationResult.EMAIL_TOO_LONG;
+        }
+        if (!isValidFormat(v)) {
+            return KeyValidationResult.EMAIL_INVALID_FORMAT;
         }
-        if (!EMAIL.matcher(v).matches()) {
-            throw new IllegalArgumentException("formato do email invalido");
+        return KeyValidationResult.VALID;
+    }
+
+    /**
+     * Equivale a {@code ^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}$}, mas em uma única
+     * passada linear (sem backtracking): parte local não vazia, um único '@' e, no domínio,
+     * ao menos um caractere antes do último '.' seguido de 2+ letras.
+     */
+    private static boolean isValidFormat(CharSequence v) {
+        int at = -1;
+        int lastDot = -1;
+        boolean tldAlpha = true;
+
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (at < 0) {
+                if (c == '@') {
+                    if (i == 0) return false;
+                    at = i;
+                } else if (!isAsciiAlnum(c) && c != '.' && c != '_' && c != '%' && c != '+' && c != '-') {
+                    return false;
+                }
+            } else if (c == '.') {
+                lastDot = i;
+                tldAlpha = true;
+            } else if (isAsciiLetter(c)) {
+                // continua válido como TLD
+            } else if ((c >= '0' && c <= '9') || c == '-') {
+                tldAlpha = false;
+            } else {
+                return false;
+            }
         }
+
+        return at >= 0
+                && lastDot > at + 1
+                && v.length() - lastDot - 1 >= 2
+                && tldAlpha;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isAsciiAlnum(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
     }
 }
@@ -0,0 +1,54 @@
+package br.com.itau.pixkeys.validation;
+
+import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
+
+/**
+ * Resultado pré-alocado da validação de uma chave: {@link #VALID} ou um código por motivo de falha.
+ *
+ * Permite rejeitar valores sem criar exceção (nem preencher stack trace); o {@code validate}
+ * lançador é só um adaptador que converte o código na mesma exceção/mensagem de antes.
+ */
+public enum KeyValidationResult {
+
+    VALID(null, false),
+
+    EMAIL_NULL("email nao pode ser nulo", false),
+    EMAIL_BLANK("email nao pode ser vazio", false),
+    EMAIL_TOO_LONG("email excede 77 caracteres", false),
+    EMAIL_INVALID_FORMAT("formato do email invalido", false),
+
+    PHONE_NULL("telefone não pode ser nulo", false),
+    PHONE_BLANK("telefone não pode ser vazio", false),
+    PHONE_MISSING_PREFIX("telefone deve iniciar com +55", false),
+    PHONE_INVALID_DIGITS("telefone inválido (esperado +55 e 10-11 dígitos)", false),
+
+    CPF_INVALID("cpf inválido", false),
+
+    CNPJ_INVALID("cnpj inválido: esperado 14 dígitos válidos (com ou sem máscara)", true),
+
+    RANDOM_INVALID("random inválido: esperado 32 caracteres alfanuméricos", true);
+
+    private final String message;
+    private final boolean businessRule; // true -> BusinessRuleViolationException; false -> IllegalArgumentException
+
+    KeyValidationResult(String message, boolean businessRule) {
+        this.message = message;
+        this.businessRule = businessRule;
+    }
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    /** Mensagem pt-BR do motivo da falha ({@code null} quando válido). */
+    public String message() {
+        return message;
+    }
+
+    /** Adaptador para a API lançadora: não faz nada quando válido. */
+    public void throwIfInvalid() {
+        if (isValid()) return;
+        if (businessRule) throw new BusinessRuleViolationException(message);
+        throw new IllegalArgumentException(message);
+    }
+}
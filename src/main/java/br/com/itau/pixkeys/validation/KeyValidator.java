@@ -6,5 +6,11 @@ public interface KeyValidator {
 
     KeyType supports();
 
-    void validate(String value);
+    /** Valida sem lançar exceção: devolve {@link KeyValidationResult#VALID} ou o motivo da falha. */
+    KeyValidationResult check(String value);
+
+    /** Variante lançadora (IllegalArgumentException ou BusinessRuleViolationException, conforme o tipo). */
+    default void validate(String value) {
+        check(value).throwIfInvalid();
+    }
 }
@@ -11,4 +11,9 @@ public interface KeyValidatorFactory {
     default KeyValidator forType(KeyType type) {
         return get(type);
     }
+
+    // validação sem exceção para o fluxo quente (seleciona a Strategy e devolve o código)
+    default KeyValidationResult check(KeyType type, String value) {
+        return forType(type).check(value);
+    }
 }
@@ -6,28 +6,39 @@ import org.springframework.stereotype.Component;
 @Component
 public class PhoneKeyValidator implements KeyValidator {
 
+    private static final String PREFIX = "+55";
+
     @Override
     public KeyType supports() {
         return KeyType.PHONE;
     }
 
     @Override
-    public void validate(String value) {
+    public KeyValidationResult check(String value) {
         if (value == null) {
-            throw new IllegalArgumentException("telefone não pode ser nulo");
+            return KeyValidationResult.PHONE_NULL;
         }
         String v = value.strip();
         if (v.isBlank()) {
-            throw new IllegalArgumentException("telefone não pode ser vazio");
+            return KeyValidationResult.PHONE_BLANK;
         }
-        if (!v.startsWith("+55")) {
-            throw new IllegalArgumentException("telefone deve iniciar com +55");
+        if (!v.startsWith(PREFIX)) {
+            return KeyValidationResult.PHONE_MISSING_PREFIX;
         }
+        if (!hasDigitsAfterPrefix(v, 10, 11)) {
+            return KeyValidationResult.PHONE_INVALID_DIGITS;
+        }
+        return KeyValidationResult.VALID;
+    }
 
-        String digits = v.substring(3);
-
-        if (!digits.matches("\\d{10,11}")) {
-            throw new IllegalArgumentException("telefone inválido (esperado +55 e 10-11 dígitos)");
+    // Equivale a substring(3).matches("\\d{10,11}"), sem substring nem Pattern
+    private static boolean hasDigitsAfterPrefix(String v, int min, int max) {
+        int digits = v.length() - PREFIX.length();
+        if (digits < min || digits > max) return false;
+        for (int i = PREFIX.length(); i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c < '0' || c > '9') return false;
         }
+        return true;
     }
 }
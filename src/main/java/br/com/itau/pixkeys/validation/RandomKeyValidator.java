@@ -1,15 +1,12 @@
 package br.com.itau.pixkeys.validation;
 
-import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyType;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
-
 @Component
 public class RandomKeyValidator implements KeyValidator {
 
-    private static final Pattern P = Pattern.compile("^[A-Za-z0-9]{32}$");
+    private static final int LENGTH = 32;
 
     @Override
     public KeyType supports() {
@@ -17,17 +14,21 @@ public class RandomKeyValidator implements KeyValidator {
     }
 
     @Override
-    public void validate(String key) {
-        if (key == null) {
-            throw new BusinessRuleViolationException(
-                    "random inválido: esperado 32 caracteres alfanuméricos"
-            );
+    public KeyValidationResult check(String key) {
+        if (key == null || !isAlphanumeric32(key.strip())) {
+            return KeyValidationResult.RANDOM_INVALID;
         }
-        String v = key.strip();
-        if (!P.matcher(v).matches()) {
-            throw new BusinessRuleViolationException(
-                    "random inválido: esperado 32 caracteres alfanuméricos"
-            );
+        return KeyValidationResult.VALID;
+    }
+
+    // Equivale a ^[A-Za-z0-9]{32}$
+    private static boolean isAlphanumeric32(String v) {
+        if (v.length() != LENGTH) return false;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = v.charAt(i);
+            boolean ok = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+            if (!ok) return false;
         }
+        return true;
     }
 }
@@ -3,6 +3,7 @@ package br.com.itau.pixkeys;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 @SpringBootTest(
 		webEnvironment = SpringBootTest.WebEnvironment.NONE,
@@ -18,6 +19,10 @@ class PixKeysApplicationTests {
 	@MockitoBean
 	PixKeyRepository repo;
 
+	// Mocka o MongoTemplate usado pelo fragmento customizado do repositório (PixKeyRepositoryImpl)
+	@MockitoBean
+	MongoTemplate mongoTemplate;
+
 	@Test
 	void contextLoads() {
 	}
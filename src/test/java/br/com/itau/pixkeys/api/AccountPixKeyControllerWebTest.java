@@ -0,0 +1,97 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.AccountKeySummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AccountPixKeyController.class)
+@Import(ApiExceptionHandler.class)
+class AccountPixKeyControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockitoBean
+    PixKeyService service;
+
+    @Test
+    void list_shouldReturnCompactSummary_withOptionalStatus() throws Exception {
+        when(service.listAccountKeys("1250", "00001234", KeyStatus.ACTIVE)).thenReturn(List.of(
+                new AccountKeySummary("id-1", KeyType.EMAIL, "a@b.com", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"))));
+
+        mvc.perform(get("/accounts/{agency}/{account}/pix-keys", "1250", "00001234").param("status", "ACTIVE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.agency").value("1250"))
+                .andExpect(jsonPath("$.keys[0].keyValue").value("a@b.com"))
+                .andExpect(jsonPath("$.keys[0].holderName").doesNotExist());
+        mvc.perform(get("/accounts/{agency}/{account}/pix-keys", "1250", "1234"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void inactivateAll_shouldReturn200_withAffectedKeys() throws Exception {
+        PixKey k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.INACTIVE, Instant.parse("2025-01-01T10:00:00Z"),
+                Instant.parse("2025-02-01T10:00:00Z"), 1L);
+        when(service.inactivateAllOfAccount("1250", "00001234")).thenReturn(List.of(k));
+
+        mvc.perform(post("/accounts/{agency}/{account}/pix-keys:inactivate", "1250", "00001234"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inactivated").value(1))
+                .andExpect(jsonPath("$.keys[0].id").value("id-1"))
+                .andExpect(jsonPath("$.keys[0].status").exists());
+    }
+
+    @Test
+    void inactivateAll_shouldReturn400_whenAgencyIsInvalid() throws Exception {
+        mvc.perform(post("/accounts/{agency}/{account}/pix-keys:inactivate", "12", "00001234"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void updateHolder_shouldReturn200_withUpdatedKeys() throws Exception {
+        PixKey k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Bia", null, KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 2L);
+        when(service.updateHolderOfAccount("1250", "00001234", "Bia", null)).thenReturn(List.of(k));
+
+        mvc.perform(put("/accounts/{agency}/{account}/holder", "1250", "00001234")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"holderName":"Bia"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.keys[0].holderName").value("Bia"));
+    }
+
+    @Test
+    void updateHolder_shouldReturn400_whenHolderNameIsBlank() throws Exception {
+        mvc.perform(put("/accounts/{agency}/{account}/holder", "1250", "00001234")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"holderName":"  "}
+                                """))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.application.job.AgencyConsolidationJob;
+import br.com.itau.pixkeys.infrastructure.repository.AccountMapping;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJob;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AgencyConsolidationController.class)
+@Import(ApiExceptionHandler.class)
+class AgencyConsolidationControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockitoBean
+    AgencyConsolidationJob job;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitCsv_shouldSkipHeader_andReturn202WithLocation() throws Exception {
+        List<AccountMapping> received = new ArrayList<>();
+        when(job.submit(any())).thenAnswer(inv -> {
+            ((Iterator<AccountMapping>) inv.getArgument(0)).forEachRemaining(received::add);
+            return "job-1";
+        });
+        when(job.find("job-1")).thenReturn(Optional.of(new ConsolidationJob("job-1", ConsolidationJob.Status.RUNNING,
+                2, 0, 0, 0, List.of(), Instant.now(), Instant.now(), null, null)));
+
+        mvc.perform(post("/jobs/agency-consolidations").contentType("text/csv")
+                        .content("fromAgency,fromAccount,toAgency,toAccount\n1250,00001234,9999,00009999\n\n1250,00000001,9999,00000002\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/jobs/agency-consolidations/job-1"))
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.totalMappings").value(2));
+
+        assertEquals(List.of(
+                new AccountMapping(1, new AccountRef("1250", "00001234"), new AccountRef("9999", "00009999")),
+                new AccountMapping(2, new AccountRef("1250", "00000001"), new AccountRef("9999", "00000002"))), received);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitCsv_shouldReturn400_withLineNumber_whenLineIsInvalid() throws Exception {
+        when(job.submit(any())).thenAnswer(inv -> {
+            ((Iterator<AccountMapping>) inv.getArgument(0)).forEachRemaining(m -> { });
+            return "job-1";
+        });
+
+        mvc.perform(post("/jobs/agency-consolidations").contentType("text/csv")
+                        .content("1250,00001234,9999,00009999\n1250,123,9999,00009999\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(org.hamcrest.Matchers.containsString("linha 2")));
+    }
+
+    @Test
+    void submitJson_shouldReturn400_whenMappingIsInvalid() throws Exception {
+        mvc.perform(post("/jobs/agency-consolidations").contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"mappings":[{"fromAgency":"12","fromAccount":"00001234","toAgency":"9999","toAccount":"00009999"}]}
+                                """))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(job);
+    }
+
+    @Test
+    void status_shouldReturnProgress() throws Exception {
+        Instant start = Instant.parse("2025-01-01T10:00:00Z");
+        when(job.find("job-1")).thenReturn(Optional.of(new ConsolidationJob("job-1", ConsolidationJob.Status.COMPLETED,
+                4, 4, 100, 1, List.of("k9"), start, start.plusSeconds(10), start.plusSeconds(10), null)));
+
+        mvc.perform(get("/jobs/agency-consolidations/{id}", "job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.progress").value(1.0))
+                .andExpect(jsonPath("$.keysPerSecond").value(10.0))
+                .andExpect(jsonPath("$.rejectedSample[0]").value("k9"));
+    }
+
+    @Test
+    void resume_shouldReturn404_whenJobDoesNotExist() throws Exception {
+        when(job.find("nope")).thenReturn(Optional.empty());
+
+        mvc.perform(post("/jobs/agency-consolidations/{id}:resume", "nope"))
+                .andExpect(status().isNotFound());
+        verify(job, never()).resume(any());
+    }
+}
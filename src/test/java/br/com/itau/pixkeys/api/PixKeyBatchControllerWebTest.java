@@ -0,0 +1,115 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.application.service.BatchCreateItem;
+import br.com.itau.pixkeys.application.service.BatchCreateResult;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PixKeyBatchController.class)
+@Import(ApiExceptionHandler.class)
+class PixKeyBatchControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockitoBean
+    PixKeyService service;
+
+    @Test
+    void batch_shouldReturnPerItemStatus_400ForInvalidPayload_andServiceOutcomesForTheRest() throws Exception {
+        // Por quê: item com payload inválido não derruba o lote; os demais seguem para o service.
+        when(service.createAll(anyList())).thenReturn(List.of(
+                new BatchCreateResult(BatchCreateResult.Outcome.CREATED, "id-1", null),
+                new BatchCreateResult(BatchCreateResult.Outcome.REJECTED, null, "limite de chaves por conta atingido")));
+
+        mvc.perform(post("/pix-keys:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"items":[
+                              {"keyType":"EMAIL","keyValue":"a@b.com","accountType":"corrente","agency":"1250","account":"00001234","holderName":"Ana"},
+                              {"keyType":"EMAIL","keyValue":"x@y.com","accountType":"corrente","agency":"12","account":"00001234","holderName":"Ana"},
+                              {"keyType":"EMAIL","keyValue":"c@d.com","accountType":"corrente","agency":"1250","account":"00001234","holderName":"Ana"}
+                            ]}
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[0].id").value("id-1"))
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[1].fields.agency").value("agencia deve ter 4 digitos"))
+                .andExpect(jsonPath("$.items[2].index").value(2))
+                .andExpect(jsonPath("$.items[2].status").value(422))
+                .andExpect(jsonPath("$.items[2].detail").value("limite de chaves por conta atingido"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BatchCreateItem>> sent = ArgumentCaptor.forClass(List.class);
+        verify(service).createAll(sent.capture());
+        assertEquals(List.of("a@b.com", "c@d.com"), sent.getValue().stream().map(BatchCreateItem::keyValue).toList());
+    }
+
+    @Test
+    void batch_shouldReturn400_whenItemsEmpty() throws Exception {
+        mvc.perform(post("/pix-keys:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Erro de validação"));
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void batchGet_shouldKeepRequestOrder_andMarkNotFound() throws Exception {
+        PixKey k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 0L);
+        when(service.findAllByIds(List.of("nope", "id-1"))).thenReturn(List.of(Optional.empty(), Optional.of(k)));
+
+        mvc.perform(post("/pix-keys:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"nope\",\"id-1\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(1))
+                .andExpect(jsonPath("$.notFound").value(1))
+                .andExpect(jsonPath("$.items[0].ref").value("nope"))
+                .andExpect(jsonPath("$.items[0].found").value(false))
+                .andExpect(jsonPath("$.items[0].key").doesNotExist())
+                .andExpect(jsonPath("$.items[1].found").value(true))
+                .andExpect(jsonPath("$.items[1].key.keyValue").value("a@b.com"));
+    }
+
+    @Test
+    void batchGet_shouldReturn400_whenBothOrNoneSelectorsInformed() throws Exception {
+        mvc.perform(post("/pix-keys:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"a\"],\"keyValues\":[\"b\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fields.exactlyOneSelector").exists());
+        mvc.perform(post("/pix-keys:batchGet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+}
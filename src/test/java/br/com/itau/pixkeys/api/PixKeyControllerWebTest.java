@@ -5,26 +5,41 @@ import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import br.com.itau.pixkeys.api.dto.PageToken;
+import br.com.itau.pixkeys.application.service.HolderIndexUnavailableException;
+import br.com.itau.pixkeys.application.service.HolderMatch;
+import br.com.itau.pixkeys.application.service.InvalidSearchException;
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+import br.com.itau.pixkeys.application.service.PixKeyQuery;
 import br.com.itau.pixkeys.application.service.PixKeyService;
 import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.MongoLimiterRejectedException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @WebMvcTest(PixKeyController.class)          // cliente de teste do Spring MVC (sem servidor, sem rede)
 @Import(ApiExceptionHandler.class)           // inclui o handler para mapear 400/404/422
@@ -98,7 +113,7 @@ class PixKeyControllerWebTest {
                 "Silva",
                 KeyStatus.ACTIVE,
                 Instant.parse("2025-01-01T10:00:00Z"),
-                null
+                null, null
         );
         when(service.findById("abc")).thenReturn(found);       // stub do service: encontrado
 
@@ -140,6 +155,51 @@ class PixKeyControllerWebTest {
         verify(service).findById("xyz"); // garante o encaminhamento correto do id
     }
 
+    @Test
+    void get_shouldReturn503WithRetryAfter_whenMongoLimiterIsExhausted() throws Exception {
+        when(service.findById("abc"))
+                .thenThrow(new MongoLimiterRejectedException("limite de chamadas simultâneas ao Mongo atingido (80)"));
+
+        mvc.perform(get("/pix-keys/{id}", "abc").accept(APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.title").value("Serviço sobrecarregado"));
+    }
+
+    @Test
+    void get_shouldNotReport503_forOtherTransientMongoFailures() {
+        // falha transitória do driver não é sobrecarga do limitador: sem 503 nem Retry-After
+        when(service.findById("abc")).thenThrow(new TransientDataAccessResourceException("socket fechado"));
+
+        Exception ex = assertThrows(Exception.class, () -> mvc.perform(get("/pix-keys/{id}", "abc").accept(APPLICATION_JSON)));
+        assertInstanceOf(TransientDataAccessResourceException.class, ex.getCause());
+    }
+
+    @Test
+    void getByValue_shouldReturn200_andBody_whenActiveKeyFound() throws Exception {
+        PixKey found = new PixKey(
+                "abc", KeyType.EMAIL, "ana@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, null
+        );
+        when(service.findActiveByKeyValue("ana@b.com")).thenReturn(found);
+
+        mvc.perform(get("/pix-keys/by-value/{keyValue}", "ana@b.com").accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("abc"))
+                .andExpect(jsonPath("$.keyValue").value("ana@b.com"))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+    }
+
+    @Test
+    void getByValue_shouldReturn404_whenNotFoundOrInactive() throws Exception {
+        when(service.findActiveByKeyValue("+5511999990000"))
+                .thenThrow(new NotFoundException("pix key não encontrada: +5511999990000"));
+
+        mvc.perform(get("/pix-keys/by-value/{keyValue}", "+5511999990000").accept(APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.title").value("Recurso não encontrado"));
+    }
+
     @Test
     void put_shouldReturn200_andUpdatedBody_whenServiceSucceeds() throws Exception {
         // Por quê: comprova contrato HTTP (200) e payload atualizado quando o service devolve a entidade.
@@ -155,9 +215,9 @@ class PixKeyControllerWebTest {
                 "Silva",
                 KeyStatus.ACTIVE,
                 Instant.parse("2025-01-01T10:00:00Z"),
-                null
+                null, null
         );
-        when(service.updateAccount(eq("abc"), any(), anyString(), anyString(), anyString(), any()))
+        when(service.updateAccount(eq("abc"), any(), anyString(), anyString(), anyString(), any(), any()))
                 .thenReturn(updated);           // stub do service: sucesso
 
         mvc.perform(put("/pix-keys/{id}/account", "abc")
@@ -179,7 +239,7 @@ class PixKeyControllerWebTest {
     @Test
     void put_shouldReturn404_whenIdNotFound() throws Exception {
         // Por quê: o case exige 404 quando o ID não existe.
-        when(service.updateAccount(anyString(), any(), anyString(), anyString(), anyString(), any()))
+        when(service.updateAccount(anyString(), any(), anyString(), anyString(), anyString(), any(), any()))
                 .thenThrow(new NotFoundException("pix key não encontrada: xyz"));
 
         mvc.perform(put("/pix-keys/{id}/account", "xyz")
@@ -192,10 +252,72 @@ class PixKeyControllerWebTest {
                 .andExpect(jsonPath("$.detail").value("pix key não encontrada: xyz"));
     }
 
+    @Test
+    void get_shouldReturnVersionAsQuotedETag() throws Exception {
+        PixKey found = new PixKey("abc", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 3L);
+        when(service.findById("abc")).thenReturn(found);
+
+        mvc.perform(get("/pix-keys/{id}", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void writes_shouldAcceptQuotedEntityTags_inIfMatch() throws Exception {
+        PixKey inactivated = new PixKey("abc", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.INACTIVE, Instant.parse("2025-01-01T10:00:00Z"),
+                Instant.parse("2025-02-01T10:00:00Z"), 4L);
+        when(service.inactivate("abc", 3L)).thenReturn(inactivated);
+
+        mvc.perform(post("/pix-keys/{id}:inactivate", "abc").header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void writes_shouldReturn409_whenIfMatchIsWeak() throws Exception {
+        // If-Match usa comparação forte: W/"3" nunca confere, mesmo com a versão atual
+        mvc.perform(post("/pix-keys/{id}:inactivate", "abc").header(HttpHeaders.IF_MATCH, "W/\"3\""))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title").value("Conflito de versão"));
+        mvc.perform(put("/pix-keys/{id}/account", "abc")
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"accountType":"corrente","agency":"1250","account":"00001234","holderName":"Ana","holderSurname":"Silva"}
+                        """))
+                .andExpect(status().isConflict());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void writes_shouldReturn400_whenIfMatchIsNotASingleVersionTag() throws Exception {
+        mvc.perform(post("/pix-keys/{id}:inactivate", "abc").header(HttpHeaders.IF_MATCH, "\"abc\", \"3\""))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    // PUT 409 - If-Match com versão desatualizada
+    @Test
+    void put_shouldReturn409_whenIfMatchVersionIsStale() throws Exception {
+        when(service.updateAccount(eq("abc"), any(), anyString(), anyString(), anyString(), any(), eq(3L)))
+                .thenThrow(new OptimisticLockingFailureException("pix key alterada concorrentemente: abc"));
+
+        mvc.perform(put("/pix-keys/{id}/account", "abc")
+                        .header(HttpHeaders.IF_MATCH, "3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"accountType":"corrente","agency":"1250","account":"00001234","holderName":"Ana","holderSurname":"Silva"}
+                        """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title").value("Conflito de versão"));
+    }
+
     // PUT 422 - regra de negócio (limite de chaves)
     @Test
     void put_shouldReturn422_whenBusinessRuleFails() throws Exception {
-        when(service.updateAccount(anyString(), any(), anyString(), anyString(), anyString(), any()))
+        when(service.updateAccount(anyString(), any(), anyString(), anyString(), anyString(), any(), any()))
                 .thenThrow(new BusinessRuleViolationException("limite de chaves por conta atingido"));
 
         mvc.perform(put("/pix-keys/{id}/account", "abc")
@@ -238,4 +360,102 @@ class PixKeyControllerWebTest {
                 .andExpect(jsonPath("$.title").value("Regra de negócio inválida"))
                 .andExpect(jsonPath("$.detail").value("chave já inativada"));
     }
+
+    @Test
+    void search_shouldPassFilters_andReturnOpaqueNextToken() throws Exception {
+        var k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 1L);
+        var query = new PixKeyQuery(KeyStatus.ACTIVE, KeyType.EMAIL, "1250", "00001234", null, null, null);
+        var next = new PixKeyPage.Position(k.createdAt(), k.id());
+        when(service.search(query, null, 1)).thenReturn(new PixKeyPage(List.of(k), next));
+
+        String token = PageToken.encode(next);
+        mvc.perform(get("/pix-keys")
+                        .param("status", "ACTIVE").param("keyType", "EMAIL")
+                        .param("agency", "1250").param("account", "00001234").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("id-1"))
+                .andExpect(jsonPath("$.nextPageToken").value(token));
+
+        // o token volta como pageToken e vira o mesmo cursor
+        when(service.search(query, next, 1)).thenReturn(new PixKeyPage(List.of(), null));
+        mvc.perform(get("/pix-keys")
+                        .param("status", "ACTIVE").param("keyType", "EMAIL")
+                        .param("agency", "1250").param("account", "00001234").param("limit", "1")
+                        .param("pageToken", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextPageToken").doesNotExist());
+    }
+
+    @Test
+    void search_shouldReturn400_whenPageTokenIsTamperedOrLimitOutOfRange() throws Exception {
+        mvc.perform(get("/pix-keys").param("pageToken", "nao-e-um-token"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/pix-keys").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void search_shouldReturn400_whenFilterCombinationHasNoIndex() throws Exception {
+        when(service.search(any(), isNull(), eq(20))).thenThrow(
+                new InvalidSearchException("keyType e status devem ser informados juntos (ou com agency e account)"));
+
+        mvc.perform(get("/pix-keys").param("keyType", "EMAIL"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void search_shouldNotMapUnrelatedIllegalArgumentException_to400() {
+        // erro de programação/mapeamento mais abaixo não pode virar erro do cliente
+        when(service.search(any(), isNull(), eq(20))).thenThrow(new IllegalArgumentException("falha interna"));
+
+        Exception ex = assertThrows(Exception.class, () -> mvc.perform(get("/pix-keys")));
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+    }
+
+    @Test
+    void searchByHolder_shouldReturnPage_andMap400ForShortPrefixOrForeignToken() throws Exception {
+        var k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "João", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 1L);
+        var next = new HolderPage.Position("joao silva", "id-1");
+        when(service.searchByHolderPrefix("joão", null, 1)).thenReturn(new HolderPage(List.of(k), next));
+        when(service.searchByHolderPrefix("j", null, 20))
+                .thenThrow(new InvalidSearchException("prefixo do titular deve ter ao menos 2 caracteres"));
+
+        mvc.perform(get("/pix-keys/by-holder").param("prefix", "joão").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].holderName").value("João"))
+                .andExpect(jsonPath("$.nextPageToken").value(PageToken.encode(next)));
+        mvc.perform(get("/pix-keys/by-holder").param("prefix", "j"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/pix-keys/by-holder").param("prefix", "jo")
+                        .param("pageToken", PageToken.encode(new PixKeyPage.Position(Instant.EPOCH, "x"))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchByHolder_shouldReturn400_whenStatusIsGiven() throws Exception {
+        mvc.perform(get("/pix-keys/by-holder").param("prefix", "joão").param("status", "INACTIVE"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void holderMatches_shouldReturnRankedKeys_and503WhileIndexIsLoading() throws Exception {
+        var k = new PixKey("id-1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234",
+                "João", "da Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 1L);
+        when(service.findHolderMatches("Joao Silva", 5)).thenReturn(List.of(new HolderMatch(k, 0.78)));
+        when(service.findHolderMatches("Ana Costa", 20)).thenThrow(new HolderIndexUnavailableException("índice de titulares indisponível"));
+
+        mvc.perform(get("/pix-keys/holder-matches").param("name", "Joao Silva").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].score").value(0.78))
+                .andExpect(jsonPath("$[0].key.id").value("id-1"));
+        mvc.perform(get("/pix-keys/holder-matches").param("name", "Ana Costa"))
+                .andExpect(status().isServiceUnavailable());
+        mvc.perform(get("/pix-keys/holder-matches").param("name", "Jo"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,93 @@
+package br.com.itau.pixkeys.api;
+
+import br.com.itau.pixkeys.application.service.PixKeyExport;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.MongoLimiterRejectedException;
+import br.com.itau.pixkeys.application.service.PixKeyQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PixKeyExportController.class)
+@Import(ApiExceptionHandler.class)
+class PixKeyExportControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockitoBean
+    PixKeyService service;
+
+    private static PixKey key(String id) {
+        return new PixKey(id, KeyType.EMAIL, id + "@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T10:00:00Z"), null, 1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_shouldStreamOneJsonPerLine_withFilters() throws Exception {
+        PixKeyQuery filter = new PixKeyQuery(KeyStatus.ACTIVE, KeyType.EMAIL, null, null, null,
+                Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-02-01T00:00:00Z"));
+        PixKeyExport export = mock(PixKeyExport.class);
+        when(service.openExport(eq(filter), eq(2))).thenReturn(export);
+        doAnswer(inv -> {
+            Consumer<PixKey> sink = inv.getArgument(0);
+            sink.accept(key("k1"));
+            sink.accept(key("k2"));
+            return null;
+        }).when(export).writeTo(any(Consumer.class));
+
+        MvcResult started = mvc.perform(get("/pix-keys:export")
+                        .param("status", "ACTIVE").param("keyType", "EMAIL")
+                        .param("createdFrom", "2025-01-01T00:00:00Z").param("createdTo", "2025-02-01T00:00:00Z")
+                        .param("parallelism", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("(?s)\\{\"id\":\"k1\".*}\n\\{\"id\":\"k2\".*}\n")));
+        verify(export).close(); // devolve as permissões de cursor
+    }
+
+    @Test
+    void export_shouldReturn503BeforeStreaming_whenCursorPermitsAreExhausted() throws Exception {
+        when(service.openExport(any(), eq(4)))
+                .thenThrow(new MongoLimiterRejectedException("limite de chamadas simultâneas ao Mongo atingido (10)"));
+
+        mvc.perform(get("/pix-keys:export").param("parallelism", "4"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void export_shouldReturn400_whenParallelismIsOutOfRange() throws Exception {
+        mvc.perform(get("/pix-keys:export").param("parallelism", "17"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -27,6 +28,9 @@ class OpenApiDocsAvailabilityTest {
     @MockitoBean
     PixKeyRepository repo; // <-- mocka o repo para o contexto subir sem Mongo
 
+    @MockitoBean
+    MongoTemplate mongoTemplate; // <-- usado pelo fragmento customizado do repositório
+
     @LocalServerPort
     int port;
 
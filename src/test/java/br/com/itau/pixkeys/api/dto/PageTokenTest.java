@@ -0,0 +1,44 @@
+package br.com.itau.pixkeys.api.dto;
+
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.InvalidSearchException;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTokenTest {
+
+    @Test
+    void shouldRoundTrip_andBeUrlSafe() {
+        var cursor = new PixKeyPage.Position(Instant.parse("2025-01-01T10:00:00.123Z"), "6f1c2d3e-aaaa-bbbb-cccc-000000000001");
+
+        String token = PageToken.encode(cursor);
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, PageToken.decode(token));
+    }
+
+    @Test
+    void shouldReject_foreignOrTamperedTokens() {
+        assertNull(PageToken.decode(null));
+        assertThrows(InvalidSearchException.class, () -> PageToken.decode("%%%"));
+        assertThrows(InvalidSearchException.class, () -> PageToken.decode("djI6MTp4")); // "v2:1:x"
+        assertThrows(InvalidSearchException.class, () -> PageToken.decode("djE6YWJjOng")); // "v1:abc:x"
+    }
+
+    @Test
+    void holderToken_shouldRoundTrip_withColonsAndAccentsInName_andNotMixWithSearchToken() {
+        var cursor = new HolderPage.Position("joao: sao paulo", "6f1c2d3e-aaaa-bbbb-cccc-000000000001");
+
+        String token = PageToken.encode(cursor);
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, PageToken.decodeHolder(token));
+        assertThrows(InvalidSearchException.class, () -> PageToken.decode(token));
+        String searchToken = PageToken.encode(new PixKeyPage.Position(Instant.EPOCH, "x"));
+        assertThrows(InvalidSearchException.class, () -> PageToken.decodeHolder(searchToken));
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.itau.pixkeys.application.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizeTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void shouldGrowAdditively_whenFullBatchesAreFast_upToMax() {
+        var size = new AdaptiveBatchSize(500, 100, 700, Duration.ofMillis(500));
+
+        size.record(500, FAST);
+        assertEquals(600, size.current());
+        size.record(600, FAST);
+        size.record(700, FAST);
+        assertEquals(700, size.current());
+    }
+
+    @Test
+    void shouldHalve_whenBatchIsSlow_downToMin() {
+        var size = new AdaptiveBatchSize(500, 100, 5_000, Duration.ofMillis(500));
+
+        size.record(500, SLOW);
+        assertEquals(250, size.current());
+        size.record(250, SLOW);
+        size.record(125, SLOW);
+        assertEquals(100, size.current());
+    }
+
+    @Test
+    void shouldNotGrow_onPartialBatch() {
+        var size = new AdaptiveBatchSize(500, 100, 5_000, Duration.ofMillis(500));
+
+        size.record(42, FAST); // fim do arquivo
+
+        assertEquals(500, size.current());
+    }
+}
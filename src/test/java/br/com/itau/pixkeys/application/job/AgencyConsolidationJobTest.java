@@ -0,0 +1,189 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.cache.PixKeyCache;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.AccountMapping;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJob;
+import br.com.itau.pixkeys.infrastructure.repository.ConsolidationJobStore;
+import br.com.itau.pixkeys.infrastructure.repository.KeyMove;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AgencyConsolidationJob: consolidação de agências em lotes com checkpoint")
+class AgencyConsolidationJobTest {
+
+    private static final AccountRef OLD = new AccountRef("1250", "00001234");
+    private static final AccountRef NEW = new AccountRef("9999", "00009999");
+
+    @Mock ConsolidationJobStore store;
+    @Mock PixKeyRepository repo;
+
+    private final PixKeyCache cache = new PixKeyCache(new PixKeysProperties());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AgencyConsolidationJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new AgencyConsolidationJob(store, repo, cache, new PixKeysProperties());
+        job.bindTo(registry);
+    }
+
+    private static PixKey key(String id, KeyStatus status) {
+        return new PixKey(id, KeyType.EMAIL, id + "@b.com", AccountType.CHECKING, OLD.agency(), OLD.account(),
+                "Ana", "Silva", status, Instant.parse("2025-01-01T10:00:00Z"),
+                status == KeyStatus.INACTIVE ? Instant.parse("2025-02-01T10:00:00Z") : null, 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sourceKeys(PixKey... keys) {
+        doAnswer(inv -> {
+            Consumer<PixKey> c = inv.getArgument(1);
+            for (PixKey k : keys) c.accept(k);
+            return null;
+        }).when(store).forEachKeyOf(eq(Set.of(OLD)), any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Deve mover até completar 5 ativas no destino, rejeitar o excedente e levar as inativas")
+    @SuppressWarnings("unchecked")
+    void apply_shouldMoveWithinLimit_rejectExcess_andAlwaysMoveInactive() {
+        // DADO: destino com 4 ativas (só 1 vaga concedida); origem com 2 ativas e 1 inativa
+        sourceKeys(key("a1", KeyStatus.ACTIVE), key("a2", KeyStatus.ACTIVE), key("i1", KeyStatus.INACTIVE));
+        when(repo.reserveAccountSlots(Map.of(NEW, 2), 5)).thenReturn(Map.of(NEW, 1));
+        when(store.moveKeys(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(store.findAccountsOf(List.of("a1"))).thenReturn(Map.of("a1", NEW));
+
+        // QUANDO
+        var result = job.apply(List.of(new AccountMapping(1, OLD, NEW)));
+
+        // ENTÃO: a1 e i1 movidas em um único bulk; a2 fica na origem
+        ArgumentCaptor<List<KeyMove>> moves = ArgumentCaptor.forClass(List.class);
+        verify(store).moveKeys(moves.capture());
+        assertEquals(List.of("a1", "i1"), moves.getValue().stream().map(KeyMove::id).toList());
+        assertTrue(moves.getValue().stream().allMatch(m -> m.from().equals(OLD) && m.to().equals(NEW)));
+        assertEquals(2, result.moved());
+        assertEquals(List.of("a2"), result.rejectedIds());
+
+        assertEquals(List.of(KeyStatus.ACTIVE, KeyStatus.INACTIVE),
+                moves.getValue().stream().map(KeyMove::status).toList());
+
+        // a vaga do destino fica com a1; a origem devolve a sua
+        verify(repo).releaseAccountSlots(Map.of(OLD, 1));
+        assertEquals(1.0, registry.get("pix-keys.consolidation.keys").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve continuar do checkpoint gravado e concluir o job")
+    @SuppressWarnings("unchecked")
+    void run_shouldResumeFromCheckpoint_andComplete() {
+        // DADO: checkpoint no seq 1; resta o mapeamento 2
+        when(store.findJob("job-1")).thenReturn(Optional.of(new ConsolidationJob("job-1",
+                ConsolidationJob.Status.RUNNING, 2, 1, 0, 0, List.of(), Instant.now(), Instant.now(), null, null)));
+        when(store.loadMappings("job-1", 1, 500)).thenReturn(List.of(new AccountMapping(2, OLD, NEW)));
+        when(store.loadMappings("job-1", 2, 500)).thenReturn(List.of());
+        sourceKeys(key("a1", KeyStatus.ACTIVE));
+        when(repo.reserveAccountSlots(Map.of(NEW, 1), 5)).thenReturn(Map.of(NEW, 1));
+        when(store.moveKeys(anyList())).thenReturn(1);
+        when(store.findAccountsOf(List.of("a1"))).thenReturn(Map.of("a1", NEW));
+        when(store.checkpoint(eq("job-1"), anyString(), eq(2L), eq(1L), eq(List.of()), any())).thenReturn(true);
+
+        // QUANDO
+        job.run("job-1");
+
+        // ENTÃO
+        verify(store, never()).loadMappings("job-1", 0, 500);
+        verify(store).finish("job-1", ConsolidationJob.Status.COMPLETED, null);
+    }
+
+    @Test
+    @DisplayName("Deve parar sem concluir quando outra instância assume a posse")
+    @SuppressWarnings("unchecked")
+    void run_shouldStop_whenLeaseIsLost() {
+        when(store.findJob("job-1")).thenReturn(Optional.of(new ConsolidationJob("job-1",
+                ConsolidationJob.Status.RUNNING, 1, 0, 0, 0, List.of(), Instant.now(), Instant.now(), null, null)));
+        when(store.loadMappings("job-1", 0, 500)).thenReturn(List.of(new AccountMapping(1, OLD, NEW)));
+        sourceKeys();
+        when(repo.reserveAccountSlots(Map.of(), 5)).thenReturn(Map.of());
+        when(store.checkpoint(eq("job-1"), anyString(), eq(1L), eq(0L), eq(List.of()), any())).thenReturn(false);
+
+        job.run("job-1");
+
+        verify(store, never()).finish(anyString(), any(), any());
+        verify(store, never()).moveKeys(anyList());
+        // primeiro lote da execução: vagas recontadas antes de reservar (o dono anterior pode ter caído no meio)
+        verify(repo).reconcileAccountSlots(OLD.agency(), OLD.account());
+        verify(repo).reconcileAccountSlots(NEW.agency(), NEW.account());
+    }
+
+    @Test
+    @DisplayName("Deve devolver ao destino a vaga de uma chave que não mudou de conta e manter a da origem")
+    @SuppressWarnings("unchecked")
+    void apply_shouldReturnTargetSlot_whenKeyWasNotMoved() {
+        // DADO: a1 foi inativada entre o cursor e o bulk; o filtro por status não a move
+        sourceKeys(key("a1", KeyStatus.ACTIVE));
+        when(repo.reserveAccountSlots(Map.of(NEW, 1), 5)).thenReturn(Map.of(NEW, 1));
+        when(store.moveKeys(anyList())).thenReturn(0);
+        when(store.findAccountsOf(List.of("a1"))).thenReturn(Map.of("a1", OLD));
+
+        // QUANDO
+        var result = job.apply(List.of(new AccountMapping(1, OLD, NEW)));
+
+        // ENTÃO
+        assertEquals(0, result.moved());
+        verify(repo).releaseAccountSlots(Map.of(NEW, 1));
+    }
+
+    @Test
+    @DisplayName("Deve recalcular as vagas das contas do lote quando o bulk falha sem confirmação")
+    @SuppressWarnings("unchecked")
+    void apply_shouldReconcileSlots_whenBulkFails() {
+        // DADO: o bulk falhou sem dizer o que gravou; trocas podem ainda chegar depois da leitura
+        sourceKeys(key("a1", KeyStatus.ACTIVE), key("a2", KeyStatus.ACTIVE));
+        when(repo.reserveAccountSlots(Map.of(NEW, 2), 5)).thenReturn(Map.of(NEW, 2));
+        when(store.moveKeys(anyList())).thenThrow(new IllegalStateException("mongo fora"));
+
+        // QUANDO
+        assertThrows(IllegalStateException.class, () -> job.apply(List.of(new AccountMapping(1, OLD, NEW))));
+
+        // ENTÃO: origem e destino recontados pelas ativas, sem desconto por diferença
+        verify(repo).reconcileAccountSlots(OLD.agency(), OLD.account());
+        verify(repo).reconcileAccountSlots(NEW.agency(), NEW.account());
+        verify(repo, never()).releaseAccountSlots(anyMap());
+    }
+
+    @Test
+    @DisplayName("Deve marcar como FAILED as cargas interrompidas antes de retomar os jobs em execução")
+    void resumeInterrupted_shouldFailStaleLoading_andResumeRunning() {
+        when(store.failStaleLoading(any())).thenReturn(1L);
+        when(store.findRunningJobIds()).thenReturn(List.of());
+
+        job.resumeInterrupted();
+
+        verify(store).failStaleLoading(any());
+        verify(store).findRunningJobIds();
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.ArchivalRun;
+import br.com.itau.pixkeys.infrastructure.repository.KeyArchiveStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KeyArchivalJob: arquivamento de inativas em lotes com checkpoint")
+class KeyArchivalJobTest {
+
+    private static final Instant CUTOFF = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock KeyArchiveStore store;
+
+    private final PixKeysProperties properties = new PixKeysProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private KeyArchivalJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties.getArchive().setBatchSize(2);
+        properties.getArchive().setPauseBetweenBatches(Duration.ZERO);
+        job = new KeyArchivalJob(store, properties);
+        job.bindTo(registry);
+    }
+
+    private static Document doc(String id, String inactivatedAt) {
+        return new Document("_id", id).append("inactivatedAt", Date.from(Instant.parse(inactivatedAt)));
+    }
+
+    @Test
+    @DisplayName("Deve arquivar lote a lote, avançando o checkpoint, e concluir no lote parcial")
+    void run_shouldArchiveInBatches_checkpointEach_andFinishOnPartialBatch() {
+        // DADO: dois lotes (cheio + parcial); uma chave do primeiro foi alterada durante a cópia
+        ArchivalRun start = new ArchivalRun(CUTOFF, null, null, 0);
+        List<Document> first = List.of(doc("a", "2024-01-01T00:00:00Z"), doc("b", "2024-01-02T00:00:00Z"));
+        List<Document> second = List.of(doc("c", "2024-01-03T00:00:00Z"));
+        when(store.loadBatch(any(), eq(2))).thenReturn(first).thenReturn(second);
+        when(store.archive(first)).thenReturn(1L);
+        when(store.archive(second)).thenReturn(1L);
+        when(store.checkpoint(anyString(), any(), anyLong(), any())).thenReturn(true);
+
+        // QUANDO
+        long archived = job.run(start);
+
+        // ENTÃO: o segundo lote parte do último documento do primeiro
+        assertEquals(2, archived);
+        ArgumentCaptor<ArchivalRun> loaded = ArgumentCaptor.forClass(ArchivalRun.class);
+        verify(store, times(2)).loadBatch(loaded.capture(), eq(2));
+        assertEquals(start, loaded.getAllValues().get(0));
+        assertEquals("b", loaded.getAllValues().get(1).lastId());
+        assertEquals(Instant.parse("2024-01-02T00:00:00Z"), loaded.getAllValues().get(1).lastInactivatedAt());
+        verify(store).finish(anyString());
+        assertEquals(2.0, registry.get("pix-keys.archive.keys").tag("result", "archived").counter().count());
+        assertEquals(1.0, registry.get("pix-keys.archive.keys").tag("result", "skipped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve retomar do checkpoint gravado em vez de recomeçar")
+    void runNow_shouldResumeFromStoredCheckpoint() {
+        // DADO: passada interrompida depois da chave "b"
+        ArchivalRun interrupted = new ArchivalRun(CUTOFF, Instant.parse("2024-01-02T00:00:00Z"), "b", 10);
+        when(store.tryAcquire(anyString(), any(), any())).thenReturn(Optional.of(interrupted));
+        when(store.loadBatch(interrupted, 2)).thenReturn(List.of());
+
+        // QUANDO
+        job.runNow();
+
+        // ENTÃO
+        verify(store).loadBatch(interrupted, 2);
+        verify(store).finish(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve parar sem concluir quando outra instância assume a posse")
+    void run_shouldStopWithoutFinishing_whenLeaseIsLost() {
+        // DADO
+        List<Document> batch = List.of(doc("a", "2024-01-01T00:00:00Z"), doc("b", "2024-01-02T00:00:00Z"));
+        when(store.loadBatch(any(), eq(2))).thenReturn(batch);
+        when(store.archive(batch)).thenReturn(2L);
+        when(store.checkpoint(anyString(), any(), anyLong(), any())).thenReturn(false);
+
+        // QUANDO
+        job.run(new ArchivalRun(CUTOFF, null, null, 0));
+
+        // ENTÃO
+        verify(store, times(1)).loadBatch(any(), anyInt());
+        verify(store, never()).finish(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve liberar a posse e manter a passada retomável quando o banco falha")
+    void runNow_shouldReleaseLease_onFailure() {
+        // DADO
+        when(store.tryAcquire(anyString(), any(), any())).thenReturn(Optional.of(new ArchivalRun(CUTOFF, null, null, 0)));
+        when(store.loadBatch(any(), anyInt())).thenThrow(new IllegalStateException("mongo fora"));
+
+        // QUANDO
+        assertEquals(0, job.runNow());
+
+        // ENTÃO
+        verify(store).release(anyString(), eq("mongo fora"));
+        verify(store, never()).finish(anyString());
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.itau.pixkeys.application.job;
+
+import br.com.itau.pixkeys.application.service.BatchCreateItem;
+import br.com.itau.pixkeys.application.service.BatchCreateResult;
+import br.com.itau.pixkeys.application.service.PixKeyService;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.validation.EmailKeyValidator;
+import br.com.itau.pixkeys.validation.SimpleKeyValidatorFactory;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("PixKeyImporter: importação em streaming com validação paralela e arquivo de rejeições")
+class PixKeyImporterTest {
+
+    @TempDir Path dir;
+
+    private final PixKeyService service = mock(PixKeyService.class);
+    private final List<List<BatchCreateItem>> batches = Collections.synchronizedList(new ArrayList<>());
+    private PixKeysProperties properties;
+    private PixKeyImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PixKeysProperties();
+        properties.getImport().setChunkSize(2);
+        properties.getImport().setValidationThreads(3);
+        properties.getImport().setInitialBatchSize(2);
+        properties.getImport().setMinBatchSize(1);
+        importer = new PixKeyImporter(service,
+                new SimpleKeyValidatorFactory(List.of(new EmailKeyValidator())),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                JsonMapper.builder().findAndAddModules().build(),
+                properties);
+        // cada lote: o valor "taken@..." já existe; o resto é gravado
+        when(service.createAllValidated(anyList())).thenAnswer(inv -> {
+            List<BatchCreateItem> items = inv.getArgument(0);
+            batches.add(items);
+            return items.stream()
+                    .map(i -> i.keyValue().startsWith("taken")
+                            ? new BatchCreateResult(BatchCreateResult.Outcome.REJECTED, null, "chave ja cadastrada")
+                            : new BatchCreateResult(BatchCreateResult.Outcome.CREATED, "id-" + i.keyValue(), null))
+                    .toList();
+        });
+    }
+
+    private static String json(String email, String agency) {
+        return "{\"keyType\":\"EMAIL\",\"keyValue\":\"" + email + "\",\"accountType\":\"corrente\",\"agency\":\""
+                + agency + "\",\"account\":\"00001234\",\"holderName\":\"Ana\",\"holderSurname\":\"Silva\"}";
+    }
+
+    @Test
+    @DisplayName("NDJSON: grava os válidos em lotes na ordem do arquivo e lista as rejeições com linha e motivo")
+    void importFile_ndjson_shouldWriteValidInOrder_andListRejects() throws IOException {
+        Path input = dir.resolve("keys.ndjson");
+        Files.write(input, List.of(
+                json("a@b.com", "1250"),
+                "{nao e json",
+                json("email-invalido", "1250"),
+                "",
+                json("c@d.com", "12"),
+                json("taken@b.com", "1250"),
+                json("e@f.com", "1250")));
+        Path rejects = dir.resolve("rejects.ndjson");
+
+        ImportReport report = importer.importFile(input, rejects);
+
+        assertEquals(7, report.lines());
+        assertEquals(2, report.created());
+        assertEquals(4, report.rejected());
+        assertEquals(0, report.failed());
+        assertEquals(List.of("a@b.com", "taken@b.com", "e@f.com"),
+                batches.stream().flatMap(List::stream).map(BatchCreateItem::keyValue).toList());
+
+        List<String> lines = Files.readAllLines(rejects);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"line\":2,\"reason\":\"registro ilegível"));
+        assertTrue(lines.get(1).contains("\"line\":3,\"reason\":\"formato do email invalido\""));
+        assertTrue(lines.get(2).contains("\"line\":5,\"reason\":\"agency: agencia deve ter 4 digitos\""));
+        assertTrue(lines.get(3).contains("\"line\":6,\"reason\":\"chave ja cadastrada\""));
+    }
+
+    @Test
+    @DisplayName("CSV: aceita cabeçalho em qualquer ordem de colunas e campos entre aspas")
+    void importFile_csv_shouldHonorHeader_andQuotedFields() throws IOException {
+        Path input = dir.resolve("keys.csv");
+        Files.write(input, List.of(
+                "keyValue,keyType,accountType,agency,account,holderName,holderSurname",
+                "a@b.com,EMAIL,corrente,1250,00001234,\"Ana, Maria\",Silva",
+                "b@b.com,EMAIL,corrente,1250,00001234,Ana"));
+
+        ImportReport report = importer.importFile(input, dir.resolve("r.ndjson"));
+
+        assertEquals(1, report.created());
+        assertEquals(1, report.rejected());
+        assertEquals("Ana, Maria", batches.get(0).get(0).holderName());
+        assertTrue(Files.readString(dir.resolve("r.ndjson")).contains("esperadas 7 colunas, encontradas 6"));
+    }
+
+    @Test
+    @DisplayName("Falha de escrita: o lote inteiro vai para as rejeições como falha e a importação continua")
+    void importFile_shouldRecordWriteFailure_andContinue() throws IOException {
+        when(service.createAllValidated(anyList()))
+                .thenThrow(new IllegalStateException("timeout"))
+                .thenAnswer(inv -> {
+                    List<BatchCreateItem> items = inv.getArgument(0);
+                    return items.stream()
+                            .map(i -> new BatchCreateResult(BatchCreateResult.Outcome.CREATED, "id", null))
+                            .toList();
+                });
+        Path input = dir.resolve("keys.ndjson");
+        Files.write(input, IntStream.range(0, 5).mapToObj(i -> json("k" + i + "@b.com", "1250")).toList());
+
+        ImportReport report = importer.importFile(input, dir.resolve("r.ndjson"));
+
+        assertEquals(2, report.failed());
+        assertEquals(3, report.created());
+        assertFalse(report.clean());
+        assertTrue(Files.readAllLines(dir.resolve("r.ndjson")).get(0).contains("falha ao gravar: timeout"));
+    }
+
+    @Test
+    @DisplayName("Gravação sem confirmação: a linha vai para as rejeições com o ID e conta como desconhecida")
+    void importFile_shouldRecordUnknownOutcome_withId() throws IOException {
+        when(service.createAllValidated(anyList())).thenAnswer(inv -> {
+            List<BatchCreateItem> items = inv.getArgument(0);
+            return items.stream()
+                    .map(i -> i.keyValue().startsWith("k0")
+                            ? new BatchCreateResult(BatchCreateResult.Outcome.UNKNOWN, "id-k0",
+                                    "gravação sem confirmação; verificar pelo id")
+                            : new BatchCreateResult(BatchCreateResult.Outcome.CREATED, "id", null))
+                    .toList();
+        });
+        Path input = dir.resolve("keys.ndjson");
+        Files.write(input, IntStream.range(0, 2).mapToObj(i -> json("k" + i + "@b.com", "1250")).toList());
+
+        ImportReport report = importer.importFile(input, dir.resolve("r.ndjson"));
+
+        assertEquals(1, report.unknown());
+        assertEquals(1, report.created());
+        assertFalse(report.clean());
+        assertTrue(Files.readString(dir.resolve("r.ndjson")).contains("(id id-k0)"));
+    }
+}
@@ -0,0 +1,210 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.application.service.BatchCreateResult.Outcome;
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
+import br.com.itau.pixkeys.infrastructure.repository.BulkInsertResult;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
+import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PixKeyService.createAll: criação em lote")
+class PixKeyServiceBatchTest {
+
+    private static final AccountRef ACCOUNT_A = new AccountRef("1250", "00001234");
+    private static final AccountRef ACCOUNT_B = new AccountRef("2222", "00002222");
+
+    @Mock KeyValidatorFactory factory;
+    @Mock PixKeyRepository repo;
+
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
+
+    @BeforeEach
+    void setUpService() {
+        service = fixture.service(factory, repo);
+    }
+
+    private static BatchCreateItem email(String value, AccountRef account) {
+        return new BatchCreateItem(KeyType.EMAIL, value, AccountType.CHECKING,
+                account.agency(), account.account(), "Ana", "Silva");
+    }
+
+    @Test
+    @DisplayName("Deve gravar os válidos em um único bulk e rejeitar por item (validador, repetição, duplicidade)")
+    void createAll_shouldInsertValidOnes_inSingleBulk_andRejectPerItem() {
+        // DADO: item 1 inválido no validador, item 2 repete o 0, item 3 já cadastrado no banco
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(factory.check(KeyType.EMAIL, "invalido")).thenReturn(KeyValidationResult.EMAIL_INVALID_FORMAT);
+        when(repo.findExistingKeyValues(Set.of("a@b.com", "c@d.com", "e@f.com"))).thenReturn(Set.of("c@d.com"));
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 1, ACCOUNT_B, 1), 5))
+                .thenReturn(Map.of(ACCOUNT_A, 1, ACCOUNT_B, 1));
+        when(repo.insertUnordered(anyList())).thenReturn(BulkInsertResult.allInserted());
+
+        // QUANDO
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("a@b.com", ACCOUNT_A),
+                email("invalido", ACCOUNT_A),
+                email("a@b.com", ACCOUNT_B),
+                email("c@d.com", ACCOUNT_B),
+                email("e@f.com", ACCOUNT_B)));
+
+        // ENTÃO: resultado na ordem da entrada
+        assertEquals(List.of(Outcome.CREATED, Outcome.REJECTED, Outcome.REJECTED, Outcome.REJECTED, Outcome.CREATED),
+                out.stream().map(BatchCreateResult::outcome).toList());
+        assertNotNull(out.get(0).id());
+        assertEquals("chave repetida no lote", out.get(2).reason());
+        assertEquals("chave já cadastrada para outro correntista", out.get(3).reason());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PixKey>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(repo).insertUnordered(inserted.capture());
+        assertEquals(List.of("a@b.com", "e@f.com"), inserted.getValue().stream().map(PixKey::keyValue).toList());
+        verify(repo, never()).insert(any(PixKey.class));
+        verify(repo, never()).releaseAccountSlots(anyMap());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar por limite os itens além das vagas concedidas para a conta")
+    void createAll_shouldRejectItemsBeyondGrantedSlots() {
+        // DADO: 3 chaves para a conta A, mas só 2 vagas livres
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 3), 5)).thenReturn(Map.of(ACCOUNT_A, 2));
+        when(repo.insertUnordered(anyList())).thenReturn(BulkInsertResult.allInserted());
+
+        // QUANDO
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A), email("3@x.com", ACCOUNT_A)));
+
+        // ENTÃO: os primeiros ficam com as vagas
+        assertEquals(List.of(Outcome.CREATED, Outcome.CREATED, Outcome.REJECTED),
+                out.stream().map(BatchCreateResult::outcome).toList());
+        assertEquals("limite de chaves por conta atingido", out.get(2).reason());
+    }
+
+    @Test
+    @DisplayName("Deve devolver as vagas dos itens que o bulk não gravou (corrida no uk_key_value)")
+    void createAll_shouldReleaseSlots_forItemsNotInserted() {
+        // DADO: o segundo item perde a corrida para outra requisição
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 2), 5)).thenReturn(Map.of(ACCOUNT_A, 2));
+        when(repo.insertUnordered(anyList())).thenReturn(new BulkInsertResult(Set.of(1), Set.of()));
+
+        // QUANDO
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A)));
+
+        // ENTÃO: 422 para o perdedor e a vaga volta para a conta
+        assertEquals(Outcome.CREATED, out.get(0).outcome());
+        assertEquals(Outcome.REJECTED, out.get(1).outcome());
+        assertEquals("chave já cadastrada para outro correntista", out.get(1).reason());
+        verify(repo).releaseAccountSlots(Map.of(ACCOUNT_A, 1));
+    }
+
+    @Test
+    @DisplayName("Deve manter os resultados por item e recontar a conta quando a devolução de vagas falha após o bulk")
+    void createAll_shouldKeepPerItemResults_whenSlotReleaseFailsAfterInsert() {
+        // DADO: o bulk gravou o primeiro item; a devolução da vaga do segundo cai
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 2), 5)).thenReturn(Map.of(ACCOUNT_A, 2));
+        when(repo.insertUnordered(anyList())).thenReturn(new BulkInsertResult(Set.of(1), Set.of()));
+        doThrow(new QueryTimeoutException("timeout")).when(repo).releaseAccountSlots(anyMap());
+
+        // QUANDO
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A)));
+
+        // ENTÃO: o item gravado continua CREATED (reimportá-lo daria duplicidade) e a conta é recontada
+        assertEquals(List.of(Outcome.CREATED, Outcome.REJECTED), out.stream().map(BatchCreateResult::outcome).toList());
+        verify(repo).reconcileAccountSlots(ACCOUNT_A.agency(), ACCOUNT_A.account());
+    }
+
+    @Test
+    @DisplayName("Deve dar FAILED por item e recontar as contas quando a reserva de vagas falha sem confirmação")
+    void createAll_shouldFailPerItem_andReconcile_whenSlotReservationFails() {
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 1, ACCOUNT_B, 1), 5)).thenThrow(new QueryTimeoutException("timeout"));
+
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_B)));
+
+        assertEquals(List.of(Outcome.FAILED, Outcome.FAILED), out.stream().map(BatchCreateResult::outcome).toList());
+        verify(repo, never()).insertUnordered(anyList());
+        verify(repo).reconcileAccountSlots(ACCOUNT_A.agency(), ACCOUNT_A.account());
+        verify(repo).reconcileAccountSlots(ACCOUNT_B.agency(), ACCOUNT_B.account());
+    }
+
+    @Test
+    @DisplayName("Bulk sem confirmação: confere pelos IDs, dá CREATED ao que foi gravado e UNKNOWN ao resto sem devolver vagas")
+    @SuppressWarnings("unchecked")
+    void createAll_shouldSettleByIds_whenBulkFailsWithoutConfirmation() {
+        // DADO: o bulk estoura o tempo depois de gravar só o primeiro item
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(Map.of(ACCOUNT_A, 2), 5)).thenReturn(Map.of(ACCOUNT_A, 2));
+        ArgumentCaptor<List<PixKey>> inserted = ArgumentCaptor.forClass(List.class);
+        when(repo.insertUnordered(inserted.capture())).thenThrow(new QueryTimeoutException("timeout"));
+        when(repo.findAllById(anyIterable())).thenAnswer(inv -> List.of(inserted.getValue().get(0)));
+
+        // QUANDO
+        List<BatchCreateResult> out = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A)));
+
+        // ENTÃO: o segundo traz o ID para conferência; nenhuma vaga volta por diferença (a gravação pode chegar depois)
+        assertEquals(List.of(Outcome.CREATED, Outcome.UNKNOWN), out.stream().map(BatchCreateResult::outcome).toList());
+        assertEquals(inserted.getValue().get(1).id(), out.get(1).id());
+        verify(repo, never()).releaseAccountSlots(anyMap());
+    }
+
+    @Test
+    @DisplayName("Item UNKNOWN não ocupa a vaga da conta para sempre: a conta é recontada pelas ativas")
+    @SuppressWarnings("unchecked")
+    void createAll_shouldNotPermanentlyReduceCapacity_forUnknownItems() {
+        // DADO: conta com 3 chaves ativas; o bulk de 2 estoura o tempo e nenhuma chega ao banco
+        int[] used = {3};
+        when(factory.check(eq(KeyType.EMAIL), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.reserveAccountSlots(anyMap(), eq(5))).thenAnswer(inv -> {
+            Map<AccountRef, Integer> requested = inv.getArgument(0);
+            int n = Math.min(requested.get(ACCOUNT_A), 5 - used[0]);
+            used[0] += n;
+            return n == 0 ? Map.of() : Map.of(ACCOUNT_A, n);
+        });
+        when(repo.insertUnordered(anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(BulkInsertResult.allInserted());
+        when(repo.findAllById(anyIterable())).thenReturn(List.of());
+        when(repo.reconcileAccountSlots(ACCOUNT_A.agency(), ACCOUNT_A.account())).thenAnswer(inv -> {
+            used[0] = 3; // recontagem pelas ativas em idx_account_active
+            return 3L;
+        });
+
+        // QUANDO: o lote fica UNKNOWN e o cliente reenvia os mesmos itens
+        List<BatchCreateResult> first = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A)));
+        List<BatchCreateResult> retry = service.createAll(List.of(
+                email("1@x.com", ACCOUNT_A), email("2@x.com", ACCOUNT_A)));
+
+        // ENTÃO: o reenvio cabe nas 2 vagas livres em vez de bater no limite
+        assertEquals(List.of(Outcome.UNKNOWN, Outcome.UNKNOWN), first.stream().map(BatchCreateResult::outcome).toList());
+        assertEquals(List.of(Outcome.CREATED, Outcome.CREATED), retry.stream().map(BatchCreateResult::outcome).toList());
+        assertEquals(5, used[0]);
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.IdRange;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PixKeyService.exportAll: varredura com cursor, sequencial ou por faixas de _id")
+class PixKeyServiceExportTest {
+
+    @Mock KeyValidatorFactory factory;
+    @Mock PixKeyRepository repo;
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
+
+    @BeforeEach
+    void setUpService() {
+        service = fixture.service(factory, repo);
+    }
+
+    private static final PixKeyQuery ACTIVE = new PixKeyQuery(KeyStatus.ACTIVE, null, null, null, null, null, null);
+
+    private static PixKey key(String id) {
+        return new PixKey(id, KeyType.EMAIL, id + "@b.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.now(), null, 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rangeYields(IdRange range, PixKey... keys) {
+        doAnswer(inv -> {
+            Consumer<PixKey> sink = inv.getArgument(3);
+            for (PixKey k : keys) sink.accept(k);
+            return null;
+        }).when(repo).forEach(eq(ACTIVE.toFilter()), eq(range), eq(1000), any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Sem paralelismo: um único cursor sobre todos os IDs")
+    void exportAll_shouldUseSingleCursor_whenParallelismIsOne() {
+        rangeYields(IdRange.all(), key("a"), key("b"));
+        List<String> out = new ArrayList<>();
+
+        service.exportAll(ACTIVE, 1, k -> out.add(k.id()));
+
+        assertEquals(List.of("a", "b"), out);
+        verifyNoInteractions(factory);
+    }
+
+    @Test
+    @DisplayName("Com paralelismo: uma varredura por faixa, cobrindo todo o espaço de IDs")
+    void exportAll_shouldScanEachRange_whenParallel() {
+        List<IdRange> ranges = IdRange.split(4);
+        assertEquals(List.of(new IdRange(null, "4"), new IdRange("4", "8"), new IdRange("8", "c"), new IdRange("c", null)),
+                ranges);
+        for (IdRange r : ranges) rangeYields(r, key(r.fromInclusive() + "-k"));
+        Set<String> out = ConcurrentHashMap.newKeySet();
+
+        service.exportAll(ACTIVE, 4, k -> out.add(k.id()));
+
+        assertEquals(Set.of("null-k", "4-k", "8-k", "c-k"), out);
+    }
+
+    @Test
+    @DisplayName("Paralelismo acima do configurado é limitado por pix-keys.export.max-parallelism")
+    @SuppressWarnings("unchecked")
+    void exportAll_shouldCapParallelism_andPropagateFailure() {
+        fixture.properties.getExport().setMaxParallelism(2);
+        rangeYields(new IdRange("8", null), key("x"));
+        doThrow(new IllegalStateException("cursor caiu"))
+                .when(repo).forEach(eq(ACTIVE.toFilter()), eq(new IdRange(null, "8")), eq(1000), any(Consumer.class));
+
+        var ex = assertThrows(IllegalStateException.class, () -> service.exportAll(ACTIVE, 16, k -> { }));
+
+        assertEquals("cursor caiu", ex.getMessage());
+        verify(repo, times(2)).forEach(eq(ACTIVE.toFilter()), any(IdRange.class), eq(1000), any(Consumer.class));
+    }
+}
@@ -5,15 +5,21 @@ import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.cache.HolderTrigramIndex;
+import br.com.itau.pixkeys.infrastructure.repository.KeysetCursor;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -21,6 +27,7 @@ import static org.mockito.Mockito.*;
  * Garante que a busca por ID funciona corretamente, cobrindo:
  *  - cenário em que a chave não é encontrada (lança NotFoundException)
  *  - cenário em que a chave existe (retorna a entidade corretamente)
+ *  - leituras repetidas servidas pelo cache e escritas locais refletidas nele
  */
 class PixKeyServiceFindTest {
 
@@ -29,7 +36,9 @@ class PixKeyServiceFindTest {
     PixKeyRepository repo = mock(PixKeyRepository.class);
 
     // Instância do serviço com mocks injetados
-    PixKeyService service = new PixKeyService(factory, repo);
+    PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    HolderTrigramIndex holderIndex = fixture.holderIndex;
+    PixKeyService service = fixture.service(factory, repo);
 
     @Test
     @DisplayName("Deve lançar NotFoundException quando ID não for encontrado")
@@ -59,7 +68,7 @@ class PixKeyServiceFindTest {
                 "Silva",
                 KeyStatus.ACTIVE,
                 Instant.parse("2025-01-01T00:00:00Z"),
-                null
+                null, null
         );
 
         when(repo.findById("abc-123")).thenReturn(Optional.of(entity));
@@ -72,4 +81,217 @@ class PixKeyServiceFindTest {
         assertEquals(KeyType.EMAIL, result.keyType());
         verify(repo).findById("abc-123");
     }
+
+    @Test
+    @DisplayName("Deve buscar no arquivo só quando o ID não estiver na coleção quente")
+    void findById_shouldFallBackToArchive_onlyOnMiss() {
+        // Arrange: chave inativa antiga já movida para o arquivo
+        var archived = new PixKey("old-1", KeyType.EMAIL, "old@b.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.INACTIVE, Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-02-01T00:00:00Z"), 2L);
+        var hot = new PixKey("abc-123", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        when(repo.findById("old-1")).thenReturn(Optional.empty());
+        when(repo.findArchivedById("old-1")).thenReturn(Optional.of(archived));
+        when(repo.findById("abc-123")).thenReturn(Optional.of(hot));
+
+        // Act & Assert
+        assertEquals(KeyStatus.INACTIVE, service.findById("old-1").status());
+        assertEquals("abc-123", service.findById("abc-123").id());
+        verify(repo).findArchivedById("old-1");
+        verify(repo, never()).findArchivedById("abc-123");
+    }
+
+    @Test
+    @DisplayName("Deve servir leituras repetidas pelo cache e não guardar ausências")
+    void findById_shouldHitCache_onRepeatedReads_andNotCacheMisses() {
+        var entity = PixKey.create(
+                KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        when(repo.findById(entity.id())).thenReturn(Optional.of(entity));
+        when(repo.findById("nope")).thenReturn(Optional.empty());
+
+        service.findById(entity.id());
+        service.findById(entity.id());
+        assertThrows(NotFoundException.class, () -> service.findById("nope"));
+        assertThrows(NotFoundException.class, () -> service.findById("nope"));
+
+        verify(repo, times(1)).findById(entity.id());
+        verify(repo, times(2)).findById("nope");
+    }
+
+    @Test
+    @DisplayName("Deve refletir a inativação no cache sem esperar o TTL")
+    void findById_shouldReturnInactivatedEntity_afterLocalInactivate() {
+        var entity = PixKey.create(
+                KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        when(repo.findById(entity.id())).thenReturn(Optional.of(entity));
+        when(repo.inactivateIfActive(eq(entity.id()), isNull(), any(Instant.class)))
+                .thenReturn(Optional.of(entity.inactivate()));
+
+        service.findById(entity.id());          // aquece o cache com a versão ATIVA
+        service.inactivate(entity.id());
+
+        assertEquals(KeyStatus.INACTIVE, service.findById(entity.id()).status());
+    }
+
+    @Test
+    @DisplayName("findActiveByKeyValue: deve guardar ausência (cache negativo) e normalizar o valor")
+    void findActiveByKeyValue_shouldCacheMisses_andStripValue() {
+        when(repo.findByKeyValueAndStatus("x@y.com", KeyStatus.ACTIVE)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> service.findActiveByKeyValue(" x@y.com "));
+        assertThrows(NotFoundException.class, () -> service.findActiveByKeyValue("x@y.com"));
+
+        // segunda tentativa não vai ao banco
+        verify(repo, times(1)).findByKeyValueAndStatus("x@y.com", KeyStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("findActiveByKeyValue: criação local substitui a ausência em cache")
+    void findActiveByKeyValue_shouldSeeLocalCreate_evenAfterCachedMiss() {
+        when(repo.findByKeyValueAndStatus("novo@y.com", KeyStatus.ACTIVE)).thenReturn(Optional.empty());
+        when(factory.check(any(), anyString())).thenReturn(KeyValidationResult.VALID);
+        when(repo.tryReserveAccountSlot(anyString(), anyString(), anyInt())).thenReturn(true);
+        when(repo.insert(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThrows(NotFoundException.class, () -> service.findActiveByKeyValue("novo@y.com"));
+        String id = service.create(KeyType.EMAIL, "novo@y.com", AccountType.CHECKING,
+                "1234", "00001234", "Ana", "Silva");
+
+        assertEquals(id, service.findActiveByKeyValue("novo@y.com").id());
+        verify(repo, times(1)).findByKeyValueAndStatus("novo@y.com", KeyStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("findAllByIds: um único $in só para os IDs fora do cache, na ordem pedida e com marcador de ausência")
+    void findAllByIds_shouldLoadOnlyMisses_inOneQuery_andKeepRequestOrder() {
+        var cached = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        var loaded = PixKey.create(KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        when(repo.findById(cached.id())).thenReturn(Optional.of(cached));
+        when(repo.findAllById(anyIterable())).thenReturn(List.of(loaded));
+        service.findById(cached.id()); // aquece o cache unitário
+
+        List<Optional<PixKey>> out = service.findAllByIds(List.of("nope", loaded.id(), cached.id()));
+
+        assertEquals(Optional.empty(), out.get(0));
+        assertEquals(loaded, out.get(1).orElseThrow());
+        assertEquals(cached, out.get(2).orElseThrow());
+        verify(repo).findAllById(Set.of("nope", loaded.id()));
+        // o lote alimenta o mesmo cache do GET unitário
+        assertEquals(loaded, service.findById(loaded.id()));
+        verify(repo, never()).findById(loaded.id());
+    }
+
+    @Test
+    @DisplayName("findAllByIds: o que faltar na coleção quente sai de um único $in no arquivo")
+    void findAllByIds_shouldFallBackToArchive_onlyForHotMisses() {
+        var hot = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        var archived = new PixKey("old-1", KeyType.EMAIL, "old@b.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.INACTIVE, Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-02-01T00:00:00Z"), 2L);
+        when(repo.findAllById(anyIterable())).thenReturn(List.of(hot));
+        when(repo.findAllArchivedById(anyCollection())).thenReturn(List.of(archived));
+
+        List<Optional<PixKey>> out = service.findAllByIds(List.of(hot.id(), "old-1", "nope"));
+
+        assertEquals(hot, out.get(0).orElseThrow());
+        assertEquals(archived, out.get(1).orElseThrow());
+        assertTrue(out.get(2).isEmpty());
+        // só os IDs ausentes da coleção quente vão ao arquivo
+        verify(repo).findAllArchivedById(argThat(ids -> Set.copyOf(ids).equals(Set.of("old-1", "nope"))));
+    }
+
+    @Test
+    @DisplayName("findAllActiveByKeyValues: normaliza, consulta uma vez e guarda ausências no cache por valor")
+    void findAllActiveByKeyValues_shouldQueryOnce_andCacheMisses() {
+        var active = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        when(repo.findByKeyValueInAndStatus(Set.of("a@b.com", "x@y.com"), KeyStatus.ACTIVE)).thenReturn(List.of(active));
+
+        List<Optional<PixKey>> out = service.findAllActiveByKeyValues(List.of(" a@b.com ", "x@y.com"));
+
+        assertEquals(active, out.get(0).orElseThrow());
+        assertTrue(out.get(1).isEmpty());
+        // ausência ficou no cache negativo compartilhado com o GET by-value
+        assertThrows(NotFoundException.class, () -> service.findActiveByKeyValue("x@y.com"));
+        verify(repo, never()).findByKeyValueAndStatus(anyString(), any());
+        verify(repo, times(1)).findByKeyValueInAndStatus(anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("search: lê limit+1 e devolve o cursor da última chave quando há próxima página")
+    void search_shouldReturnNextCursor_onlyWhenThereIsAnotherPage() {
+        var query = new PixKeyQuery(KeyStatus.ACTIVE, null, "1234", "00001234", null, null, null);
+        var filter = query.toFilter();
+        var k1 = new PixKey("k1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-03T00:00:00Z"), null, 1L);
+        var k2 = new PixKey("k2", KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-02T00:00:00Z"), null, 1L);
+        var k3 = new PixKey("k3", KeyType.EMAIL, "e@f.com", AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        when(repo.search(filter, null, 3)).thenReturn(List.of(k1, k2, k3));
+        var cursor = new KeysetCursor(k2.createdAt(), "k2");
+        when(repo.search(filter, cursor, 3)).thenReturn(List.of(k3));
+
+        PixKeyPage first = service.search(query, null, 2);
+        PixKeyPage last = service.search(query, first.next(), 2);
+
+        assertEquals(List.of(k1, k2), first.items());
+        assertEquals(new PixKeyPage.Position(k2.createdAt(), "k2"), first.next());
+        assertEquals(List.of(k3), last.items());
+        assertNull(last.next());
+    }
+
+    @Test
+    @DisplayName("search: recusa combinações de filtros sem índice para a ordenação, antes de ir ao banco")
+    void search_shouldRejectFilterCombinationsWithoutIndex() {
+        var typeOnly = new PixKeyQuery(null, KeyType.EMAIL, null, null, null, null, null);
+        var holderOnly = new PixKeyQuery(null, null, null, null, "Ana", null, null);
+        var agencyOnly = new PixKeyQuery(KeyStatus.ACTIVE, null, "1234", null, null, null, null);
+
+        assertThrows(InvalidSearchException.class, () -> service.search(typeOnly, null, 20));
+        assertThrows(InvalidSearchException.class, () -> service.search(holderOnly, null, 20));
+        assertThrows(InvalidSearchException.class, () -> service.search(agencyOnly, null, 20));
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    @DisplayName("searchByHolderPrefix: normaliza o prefixo e pagina pelo nome normalizado")
+    void searchByHolderPrefix_shouldNormalizePrefix_andPageByNormalizedName() {
+        var k1 = new PixKey("k1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234",
+                "João", "Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        var k2 = new PixKey("k2", KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001235",
+                "Joana", "Souza", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        when(repo.findByHolderPrefix("jo", null, 2)).thenReturn(List.of(k1, k2));
+
+        HolderPage page = service.searchByHolderPrefix(" JÓ ", null, 1);
+
+        assertEquals(List.of(k1), page.items());
+        assertEquals(new HolderPage.Position("joao silva", "k1"), page.next());
+        assertThrows(InvalidSearchException.class, () -> service.searchByHolderPrefix(" á ", null, 1));
+    }
+
+    @Test
+    @DisplayName("findHolderMatches: ranqueia pelo índice e descarta o que deixou de estar ativo")
+    void findHolderMatches_shouldRankFromIndex_andDropKeysNoLongerActive() {
+        assertThrows(HolderIndexUnavailableException.class, () -> service.findHolderMatches("joao silva", 10));
+
+        var exact = new PixKey("k1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234",
+                "João", "da Silva", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        var typo = new PixKey("k2", KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001235",
+                "Joao", "Silvs", KeyStatus.ACTIVE, Instant.parse("2025-01-01T00:00:00Z"), null, 1L);
+        holderIndex.load("k1", "joao da silva");
+        holderIndex.load("k2", "joao silvs");
+        holderIndex.load("k3", "joao silva");   // inativada por outra instância
+        holderIndex.load("k4", "maria souza");
+        holderIndex.markReady();
+        when(repo.findAllById(anyIterable())).thenReturn(List.of(exact, typo,
+                new PixKey("k3", KeyType.EMAIL, "e@f.com", AccountType.CHECKING, "1234", "00001236",
+                        "Joao", "Silva", KeyStatus.INACTIVE, Instant.parse("2025-01-01T00:00:00Z"),
+                        Instant.parse("2025-01-02T00:00:00Z"), 2L)));
+
+        List<HolderMatch> matches = service.findHolderMatches("Joao Silva", 10);
+
+        assertEquals(List.of("k1", "k2"), matches.stream().map(m -> m.key().id()).toList());
+        assertTrue(matches.get(0).score() > matches.get(1).score());
+    }
 }
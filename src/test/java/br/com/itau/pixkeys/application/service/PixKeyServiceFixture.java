@@ -0,0 +1,42 @@
+package br.com.itau.pixkeys.application.service;
+
+import br.com.itau.pixkeys.infrastructure.cache.HolderTrigramIndex;
+import br.com.itau.pixkeys.infrastructure.cache.KeyValueBloomFilter;
+import br.com.itau.pixkeys.infrastructure.cache.PixKeyCache;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import br.com.itau.pixkeys.infrastructure.repository.MongoConcurrencyLimiter;
+import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * Monta o {@link PixKeyService} dos testes unitários: validação e repositório vêm do teste (mocks); cache,
+ * Bloom filter, índice de titulares e limitador (desligado) são os reais, em memória, todos sobre as mesmas {@link #properties}.
+ * Um colaborador novo do serviço entra aqui, não em cada classe de teste.
+ */
+final class PixKeyServiceFixture {
+
+    final PixKeysProperties properties = new PixKeysProperties();
+    final PixKeyCache cache;
+    final KeyValueBloomFilter bloomFilter;
+    final HolderTrigramIndex holderIndex;
+    final MongoConcurrencyLimiter limiter;
+
+    PixKeyServiceFixture() {
+        this(p -> { });
+    }
+
+    /** {@code config} é aplicada antes de criar os colaboradores (ex.: o Bloom filter só existe em CHECK_FIRST). */
+    PixKeyServiceFixture(Consumer<PixKeysProperties> config) {
+        config.accept(properties);
+        cache = new PixKeyCache(properties);
+        bloomFilter = new KeyValueBloomFilter(properties);
+        holderIndex = new HolderTrigramIndex(properties);
+        limiter = new MongoConcurrencyLimiter(properties);
+    }
+
+    PixKeyService service(KeyValidatorFactory factory, PixKeyRepository repo) {
+        return new PixKeyService(factory, repo, properties, cache, bloomFilter, holderIndex, limiter);
+    }
+}
@@ -6,21 +6,25 @@ import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.AccountInactivation;
+import br.com.itau.pixkeys.infrastructure.repository.AccountRef;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,20 +34,27 @@ class PixKeyServiceInactivateTest {
     @Mock KeyValidatorFactory factory; // não usado na inativação; mantido por dependência do service
     @Mock PixKeyRepository repo;
 
-    @InjectMocks PixKeyService service;
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
+
+    @BeforeEach
+    void setUpService() {
+        service = fixture.service(factory, repo);
+    }
 
     @Test
     @DisplayName("Deve lançar NotFoundException quando ID não existir")
     void shouldThrowNotFound_whenIdAbsent() {
-        // arrange
+        // arrange: escrita condicional não casa e a chave não existe
+        when(repo.inactivateIfActive(eq("x"), isNull(), any(Instant.class))).thenReturn(Optional.empty());
         when(repo.findById("x")).thenReturn(Optional.empty());
 
         // act + assert
         assertThrows(NotFoundException.class, () -> service.inactivate("x"));
 
-        // verify
+        // verify: sem devolução de vaga
+        verify(repo).inactivateIfActive(eq("x"), isNull(), any(Instant.class));
         verify(repo).findById("x");
-        verify(repo, never()).save(any());
         verifyNoMoreInteractions(repo);
         verifyNoInteractions(factory);
     }
@@ -51,14 +62,15 @@ class PixKeyServiceInactivateTest {
     @Test
     @DisplayName("Deve lançar 422 quando a chave já estiver INATIVA")
     void shouldThrow422_whenAlreadyInactive() {
-        // arrange: chave já inativa no repositório
+        // arrange: chave já inativa no repositório (filtro status: ACTIVE não casa)
         PixKey inactive = new PixKey(
                 "id1", KeyType.EMAIL, "a@b.com",
                 AccountType.CHECKING, "1234", "00001234",
                 "Ana", "Silva", KeyStatus.INACTIVE,
                 Instant.parse("2024-01-01T00:00:00Z"),
-                Instant.parse("2024-01-02T00:00:00Z")
+                Instant.parse("2024-01-02T00:00:00Z"), 1L
         );
+        when(repo.inactivateIfActive(eq("id1"), isNull(), any(Instant.class))).thenReturn(Optional.empty());
         when(repo.findById("id1")).thenReturn(Optional.of(inactive));
 
         // act + assert
@@ -68,50 +80,106 @@ class PixKeyServiceInactivateTest {
                 "mensagem deve indicar que já está inativada");
 
         // verify
+        verify(repo).inactivateIfActive(eq("id1"), isNull(), any(Instant.class));
         verify(repo).findById("id1");
-        verify(repo, never()).save(any());
         verifyNoMoreInteractions(repo);
         verifyNoInteractions(factory);
     }
 
     @Test
-    @DisplayName("Deve salvar e retornar a chave inativada quando estiver ATIVA")
-    void shouldSaveInactive_whenActive() {
-        // arrange: chave ativa existente
-        PixKey active = new PixKey(
+    @DisplayName("Deve inativar em uma única escrita condicional, sem leitura prévia, e devolver a vaga")
+    void shouldInactivateInSingleWrite_whenActive() {
+        // arrange: o repositório devolve o documento já atualizado
+        PixKey inactivated = new PixKey(
                 "id2", KeyType.EMAIL, "a@b.com",
                 AccountType.CHECKING, "1234", "00001234",
-                "Ana", "Silva", KeyStatus.ACTIVE,
+                "Ana", "Silva", KeyStatus.INACTIVE,
                 Instant.parse("2024-01-01T00:00:00Z"),
-                null
+                Instant.parse("2024-01-02T00:00:00Z"), 1L
         );
-        when(repo.findById("id2")).thenReturn(Optional.of(active));
-        when(repo.save(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.inactivateIfActive(eq("id2"), isNull(), any(Instant.class)))
+                .thenReturn(Optional.of(inactivated));
 
         // act
         PixKey result = service.inactivate("id2");
 
-        // assert: status/timestamp
+        // assert: devolve o documento novo
+        assertSame(inactivated, result);
         assertEquals(KeyStatus.INACTIVE, result.status());
-        assertNotNull(result.inactivatedAt(), "timestamp de inativação deve ser definido");
-
-        // assert: invariantes preservadas
-        ArgumentCaptor<PixKey> captor = ArgumentCaptor.forClass(PixKey.class);
-        verify(repo).save(captor.capture());
-        PixKey saved = captor.getValue();
-
-        assertEquals("id2", saved.id());
-        assertEquals(KeyType.EMAIL, saved.keyType());
-        assertEquals("a@b.com", saved.keyValue());
-        assertEquals("1234", saved.agency());
-        assertEquals("00001234", saved.account());
-        assertEquals(AccountType.CHECKING, saved.accountType());
-        assertEquals("Ana", saved.holderName());
-        assertEquals("Silva", saved.holderSurname());
 
-        // verify
-        verify(repo).findById("id2");
+        // verify: sem findById/save; vaga da conta devolvida após a inativação
+        verify(repo).inactivateIfActive(eq("id2"), isNull(), any(Instant.class));
+        verify(repo).releaseAccountSlot("1234", "00001234");
         verifyNoMoreInteractions(repo);
         verifyNoInteractions(factory);
     }
+
+    @Test
+    @DisplayName("Deve lançar conflito (409) quando a versão informada não conferir")
+    void shouldThrowConflict_whenExpectedVersionDiffers() {
+        // arrange: chave ativa, mas já na versão 3
+        PixKey active = new PixKey(
+                "id3", KeyType.EMAIL, "a@b.com",
+                AccountType.CHECKING, "1234", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE,
+                Instant.parse("2024-01-01T00:00:00Z"),
+                null, 3L
+        );
+        when(repo.inactivateIfActive(eq("id3"), eq(2L), any(Instant.class))).thenReturn(Optional.empty());
+        when(repo.findById("id3")).thenReturn(Optional.of(active));
+
+        // act + assert
+        assertThrows(OptimisticLockingFailureException.class, () -> service.inactivate("id3", 2L));
+
+        // verify: nada gravado, vaga mantida
+        verify(repo, never()).releaseAccountSlot(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Conta: inativa todas em uma escrita, atualiza o cache de cada chave e devolve as vagas de uma vez")
+    void inactivateAllOfAccount_shouldUpdateCache_andReleaseSlotsInBulk() {
+        // arrange: a chave está em cache como ATIVA
+        PixKey active = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva");
+        when(repo.findById(active.id())).thenReturn(Optional.of(active));
+        service.findById(active.id());
+        PixKey inactivated = active.inactivate();
+        PixKey other = PixKey.create(KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva")
+                .inactivate();
+        when(repo.inactivateAllActive(eq("1234"), eq("00001234"), any(Instant.class)))
+                .thenReturn(new AccountInactivation(List.of(inactivated, other), 2));
+
+        // act
+        List<PixKey> out = service.inactivateAllOfAccount("1234", "00001234");
+
+        // assert: devolve as afetadas e o cache já reflete a inativação
+        assertEquals(List.of(inactivated, other), out);
+        assertEquals(KeyStatus.INACTIVE, service.findById(active.id()).status());
+        verify(repo).releaseAccountSlots(Map.of(new AccountRef("1234", "00001234"), 2));
+        verify(repo, times(1)).findById(active.id());
+    }
+
+    @Test
+    @DisplayName("Conta sem chaves ativas: lista vazia e nenhuma vaga devolvida")
+    void inactivateAllOfAccount_shouldReturnEmpty_whenNoActiveKeys() {
+        when(repo.inactivateAllActive(eq("1234"), eq("00001234"), any(Instant.class))).thenReturn(AccountInactivation.none());
+
+        assertTrue(service.inactivateAllOfAccount("1234", "00001234").isEmpty());
+        verify(repo, never()).releaseAccountSlots(anyMap());
+    }
+
+    @Test
+    @DisplayName("Conta: devolve só as vagas que esta operação inativou, não as de uma inativação concorrente")
+    void inactivateAllOfAccount_shouldReleaseOnlyWhatThisCallInactivated() {
+        // arrange: duas chaves alcançadas, mas uma delas foi inativada por outra requisição no meio do caminho
+        PixKey mine = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva").inactivate();
+        PixKey concurrent = PixKey.create(KeyType.EMAIL, "c@d.com", AccountType.CHECKING, "1234", "00001234", "Ana", "Silva").inactivate();
+        when(repo.inactivateAllActive(eq("1234"), eq("00001234"), any(Instant.class)))
+                .thenReturn(new AccountInactivation(List.of(mine, concurrent), 1));
+
+        // act
+        service.inactivateAllOfAccount("1234", "00001234");
+
+        // assert
+        verify(repo).releaseAccountSlots(Map.of(new AccountRef("1234", "00001234"), 1));
+    }
 }
@@ -5,6 +5,7 @@ import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
 import br.com.itau.pixkeys.validation.KeyValidator;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +14,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
 
 import java.util.Optional;
 
@@ -26,9 +28,10 @@ import static org.mockito.Mockito.*;
  * Escopo: testar as regras de criação de uma nova chave Pix (create).
  *
  * Cenários cobertos:
- *  - Criação bem-sucedida (campos válidos, chave única, dentro do limite).
- *  - Falha por duplicidade de chave (unicidade global).
+ *  - Criação bem-sucedida (campos válidos, chave única, dentro do limite) via insert.
+ *  - Falha por duplicidade de chave (violação do índice uk_key_value no insert).
  *  - Falha por limite máximo de chaves por conta atingido.
+ *  - Insert sem confirmação (timeout): a leitura por _id decide entre criada, vaga devolvida ou recálculo.
  *
  * Estratégia: teste unitário isolado da camada de serviço,
  * com dependências simuladas (mocks do Repository e do Factory).
@@ -43,24 +46,25 @@ class PixKeyServiceCreateTest {
     @Mock KeyValidator validator;
     @Mock PixKeyRepository repo;
 
-    @InjectMocks PixKeyService service;
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
 
     @BeforeEach
     void setup() {
+        service = fixture.service(factory, repo);
         lenient().when(factory.forType(any())).thenReturn(validator);
-        lenient().doNothing().when(validator).validate(anyString());
+        lenient().when(validator.check(anyString())).thenReturn(KeyValidationResult.VALID);
     }
 
     @Test
     @DisplayName("Deve criar e retornar ID quando válida, única e abaixo do limite")
     void shouldCreate_andReturnId_whenValid_andUnderLimit_andNotDuplicate() {
-        // DADO: formato válido e chave única
-        doNothing().when(validator).validate("ana@example.com");
-        when(repo.findByKeyValue("ana@example.com")).thenReturn(Optional.empty());
-        when(repo.countByAgencyAndAccount("1250", "00001234")).thenReturn(3L);
+        // DADO: formato válido e conta abaixo do limite
+        when(validator.check("ana@example.com")).thenReturn(KeyValidationResult.VALID);
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
 
-        // DADO: mock salva e devolve a própria entidade criada
-        when(repo.save(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+        // DADO: mock insere e devolve a própria entidade criada
+        when(repo.insert(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // QUANDO: cria chave Pix
         String id = service.create(
@@ -73,7 +77,7 @@ class PixKeyServiceCreateTest {
         assertNotNull(id, "o id gerado não deve ser nulo");
 
         ArgumentCaptor<PixKey> captor = ArgumentCaptor.forClass(PixKey.class);
-        verify(repo).save(captor.capture());
+        verify(repo).insert(captor.capture());
         PixKey saved = captor.getValue();
 
         assertAll("campos persistidos",
@@ -86,45 +90,86 @@ class PixKeyServiceCreateTest {
                 () -> assertEquals("Silva", saved.holderSurname())
         );
 
-        // Verifica interações esperadas
-        verify(validator).validate("ana@example.com");
-        verify(repo).findByKeyValue("ana@example.com");
-        verify(repo).countByAgencyAndAccount("1250", "00001234");
+        // Verifica interações esperadas: sem consulta prévia de unicidade (modo OPTIMISTIC)
+        verify(validator).check("ana@example.com");
+        verify(repo).tryReserveAccountSlot("1250", "00001234", 5);
         verifyNoMoreInteractions(repo);
     }
 
     @Test
-    @DisplayName("Deve lançar exceção quando chave já existir (duplicada)")
+    @DisplayName("Deve lançar exceção quando chave já existir (índice uk_key_value rejeita o insert)")
     void shouldFail_whenDuplicateKeyValue() {
-        // DADO: chave duplicada já existente
-        PixKey existing = PixKey.create(
-                KeyType.EMAIL, "dup@example.com",
-                AccountType.CHECKING, "1250", "00001234",
-                "Ana", "Silva"
-        );
-        when(repo.findByKeyValue("dup@example.com")).thenReturn(Optional.of(existing));
+        // DADO: conta com espaço, mas o índice único rejeita o valor já cadastrado
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
+        when(repo.insert(any(PixKey.class))).thenThrow(new DuplicateKeyException("E11000 uk_key_value"));
 
-        // QUANDO + ENTÃO: falha por regra de unicidade global
-        assertThrows(BusinessRuleViolationException.class, () ->
+        // QUANDO + ENTÃO: falha por regra de unicidade global (mesma mensagem do 422)
+        var ex = assertThrows(BusinessRuleViolationException.class, () ->
                 service.create(
                         KeyType.EMAIL, "dup@example.com",
                         AccountType.CHECKING, "1250", "00001234",
                         "Ana", "Silva"
                 )
         );
+        assertEquals("chave já cadastrada para outro correntista", ex.getMessage());
 
-        // ENTÃO: não verifica limite nem salva
-        verify(repo).findByKeyValue("dup@example.com");
-        verify(repo, never()).countByAgencyAndAccount(anyString(), anyString());
+        // ENTÃO: nenhuma consulta prévia nem upsert (save); vaga reservada é devolvida
+        verify(repo, never()).existsByKeyValue(anyString());
         verify(repo, never()).save(any());
+        verify(repo).releaseAccountSlot("1250", "00001234");
+    }
+
+    @Test
+    @DisplayName("Deve tratar como criada a chave gravada apesar do timeout, sem devolver a vaga")
+    void shouldCreate_whenInsertTimesOut_butKeyWasStored() {
+        // DADO: o insert chegou ao banco, mas a resposta não
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
+        ArgumentCaptor<PixKey> inserted = ArgumentCaptor.forClass(PixKey.class);
+        when(repo.insert(inserted.capture())).thenThrow(new QueryTimeoutException("socket timeout"));
+        when(repo.findById(anyString())).thenAnswer(inv -> Optional.of(inserted.getValue()));
+
+        // QUANDO
+        String id = service.create(KeyType.EMAIL, "ana@example.com", AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva");
+
+        // ENTÃO
+        assertEquals(inserted.getValue().id(), id);
+        verify(repo, never()).releaseAccountSlot(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Deve devolver a vaga só quando a leitura por _id confirma que a chave não foi gravada")
+    void shouldReleaseSlot_whenInsertTimesOut_andKeyIsAbsent() {
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
+        when(repo.insert(any(PixKey.class))).thenThrow(new QueryTimeoutException("socket timeout"));
+        when(repo.findById(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(QueryTimeoutException.class, () -> service.create(
+                KeyType.EMAIL, "ana@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));
+
+        verify(repo).releaseAccountSlot("1250", "00001234");
+        verify(repo, never()).reconcileAccountSlots(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Deve recalcular as vagas da conta quando nem a leitura por _id responde")
+    void shouldReconcileSlots_whenInsertAndReadBackFail() {
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
+        when(repo.insert(any(PixKey.class))).thenThrow(new QueryTimeoutException("socket timeout"));
+        when(repo.findById(anyString())).thenThrow(new QueryTimeoutException("mongo fora"));
+
+        assertThrows(QueryTimeoutException.class, () -> service.create(
+                KeyType.EMAIL, "ana@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));
+
+        verify(repo, never()).releaseAccountSlot(anyString(), anyString());
+        verify(repo).reconcileAccountSlots("1250", "00001234");
     }
 
     @Test
     @DisplayName("Deve lançar exceção quando limite máximo de chaves por conta for atingido")
     void shouldFail_whenAccountLimitReached() {
-        // DADO: chave única mas limite atingido
-        when(repo.findByKeyValue("+5511999990001")).thenReturn(Optional.empty());
-        when(repo.countByAgencyAndAccount("1250", "00001234")).thenReturn(5L); // limite atingido
+        // DADO: limite atingido
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(false); // limite atingido
 
         // QUANDO + ENTÃO: falha por regra de negócio
         assertThrows(BusinessRuleViolationException.class, () ->
@@ -135,9 +180,8 @@ class PixKeyServiceCreateTest {
                 )
         );
 
-        // ENTÃO: não salva no repositório
-        verify(repo).findByKeyValue("+5511999990001");
-        verify(repo).countByAgencyAndAccount("1250", "00001234");
-        verify(repo, never()).save(any());
+        // ENTÃO: não insere no repositório
+        verify(repo).tryReserveAccountSlot("1250", "00001234", 5);
+        verify(repo, never()).insert(any(PixKey.class));
     }
 }
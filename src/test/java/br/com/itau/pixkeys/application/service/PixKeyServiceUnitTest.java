@@ -4,8 +4,11 @@ import br.com.itau.pixkeys.api.NotFoundException;
 import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.AccountUpdate;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import br.com.itau.pixkeys.validation.KeyValidationResult;
 import br.com.itau.pixkeys.validation.KeyValidator;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +16,6 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -46,42 +48,45 @@ class PixKeyServiceUnitTest {
     @Mock KeyValidator validator;
     @Mock PixKeyRepository repo;
 
-    @InjectMocks PixKeyService service;
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
 
     @BeforeEach
     void setup() {
+        service = fixture.service(factory, repo);
         // Factory sempre devolve o mock de validator
         lenient().when(factory.forType(any())).thenReturn(validator);
         // Validação padrão: não faz nada (cada teste define o comportamento específico)
-        lenient().doNothing().when(validator).validate(anyString());
+        lenient().when(validator.check(anyString())).thenReturn(KeyValidationResult.VALID);
     }
 
     @Test
     @DisplayName("create(): deve lançar 422 quando a validação Strategy falhar")
     void create_random_invalid_throws422() {
-        // DADO: Strategy lança erro de validação
-        doThrow(new BusinessRuleViolationException("random inválido: esperado 32 caracteres alfanuméricos"))
-                .when(validator).validate("bad");
+        // DADO: Strategy rejeita o valor (código de falha, sem exceção)
+        when(validator.check("bad")).thenReturn(KeyValidationResult.RANDOM_INVALID);
 
         // QUANDO + ENTÃO
-        assertThrows(BusinessRuleViolationException.class, () ->
+        var ex = assertThrows(BusinessRuleViolationException.class, () ->
                 service.create(
                         KeyType.RANDOM, "bad",
                         AccountType.CHECKING, "1250", "00001234",
                         "Ana", "Silva"
                 )
         );
+        assertEquals("random inválido: esperado 32 caracteres alfanuméricos", ex.getMessage());
 
-        // ENTÃO: não deve consultar duplicidade nem salvar
-        verify(repo, never()).findByKeyValue(anyString());
-        verify(repo, never()).save(any());
+        // ENTÃO: não deve consultar duplicidade nem inserir
+        verify(repo, never()).existsByKeyValue(anyString());
+        verify(repo, never()).insert(any(PixKey.class));
     }
 
     @Test
-    @DisplayName("create(): deve lançar 422 quando chave duplicada (não verifica limite)")
+    @DisplayName("create() CHECK_FIRST: deve lançar 422 quando chave duplicada (não verifica limite)")
     void create_duplicate_throws422_and_doesNotCheckLimit() {
-        // DADO: chave já cadastrada
-        when(repo.findByKeyValue("dup@example.com")).thenReturn(Optional.of(mock(PixKey.class)));
+        // DADO: modo com consulta prévia e chave já cadastrada
+        fixture.properties.getCreate().setMode(PixKeysProperties.CreateMode.CHECK_FIRST);
+        when(repo.existsByKeyValue("dup@example.com")).thenReturn(true);
 
         // QUANDO + ENTÃO
         assertThrows(BusinessRuleViolationException.class, () ->
@@ -92,18 +97,36 @@ class PixKeyServiceUnitTest {
                 )
         );
 
-        // ENTÃO: não consulta limite nem salva
-        verify(repo).findByKeyValue("dup@example.com");
-        verify(repo, never()).countByAgencyAndAccount(anyString(), anyString());
-        verify(repo, never()).save(any());
+        // ENTÃO: não consulta limite nem insere
+        verify(repo).existsByKeyValue("dup@example.com");
+        verify(repo, never()).tryReserveAccountSlot(anyString(), anyString(), anyInt());
+        verify(repo, never()).insert(any(PixKey.class));
+    }
+
+    @Test
+    @DisplayName("create() CHECK_FIRST: Bloom filter carregado pula a consulta de unicidade para valor nunca visto")
+    void create_checkFirst_bloomFilterAbsent_skipsExistsQuery() {
+        // DADO: modo com consulta prévia e filtro pronto (carga inicial concluída, sem o valor)
+        var checkFirst = new PixKeyServiceFixture(p -> p.getCreate().setMode(PixKeysProperties.CreateMode.CHECK_FIRST));
+        service = checkFirst.service(factory, repo);
+        checkFirst.bloomFilter.markReady();
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(true);
+        when(repo.insert(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // QUANDO
+        service.create(KeyType.EMAIL, "new@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+
+        // ENTÃO: não foi ao banco para checar duplicidade e o valor passou a constar no filtro
+        verify(repo, never()).existsByKeyValue(anyString());
+        verify(repo).insert(any(PixKey.class));
+        assertTrue(checkFirst.bloomFilter.mightContain("new@example.com"));
     }
 
     @Test
     @DisplayName("create(): deve lançar 422 quando limite por conta atingido")
     void create_limitReached_throws422_and_doesNotSave() {
-        // DADO: chave é única, mas limite da conta atingido
-        when(repo.findByKeyValue("ok@example.com")).thenReturn(Optional.empty());
-        when(repo.countByAgencyAndAccount("1250", "00001234")).thenReturn(5L);
+        // DADO: limite da conta atingido
+        when(repo.tryReserveAccountSlot("1250", "00001234", 5)).thenReturn(false);
 
         // QUANDO + ENTÃO
         assertThrows(BusinessRuleViolationException.class, () ->
@@ -114,9 +137,9 @@ class PixKeyServiceUnitTest {
                 )
         );
 
-        // ENTÃO: verificou o limite e não salvou
-        verify(repo).countByAgencyAndAccount("1250", "00001234");
-        verify(repo, never()).save(any());
+        // ENTÃO: verificou o limite e não inseriu
+        verify(repo).tryReserveAccountSlot("1250", "00001234", 5);
+        verify(repo, never()).insert(any(PixKey.class));
     }
 
     @Test
@@ -128,8 +151,8 @@ class PixKeyServiceUnitTest {
                 AccountType.CHECKING, "1250", "00001234",
                 "Ana", "Silva"
         );
-        when(repo.findById("IDX")).thenReturn(Optional.of(current));
-        when(repo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.updateAccountIfActive(eq("IDX"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class)))
+                .thenAnswer(inv -> Optional.of(current.apply(inv.getArgument(4))));
 
         // QUANDO: atualiza apenas o tipo da conta
         PixKey updated = service.updateAccount(
@@ -138,7 +161,7 @@ class PixKeyServiceUnitTest {
 
         // ENTÃO
         assertEquals(AccountType.SAVINGS, updated.accountType());
-        verify(repo, never()).countByAgencyAndAccount(anyString(), anyString());
+        verify(repo, never()).tryReserveAccountSlot(anyString(), anyString(), anyInt());
     }
 
     @Test
@@ -151,15 +174,15 @@ class PixKeyServiceUnitTest {
                 "Ana", "Silva"
         );
         when(repo.findById("ID2")).thenReturn(Optional.of(current));
-        when(repo.countByAgencyAndAccount("2222", "00002222")).thenReturn(5L);
+        when(repo.tryReserveAccountSlot("2222", "00002222", 5)).thenReturn(false);
 
         // QUANDO + ENTÃO
         assertThrows(BusinessRuleViolationException.class, () ->
                 service.updateAccount("ID2", AccountType.SAVINGS, "2222", "00002222", "Ana", "Silva")
         );
 
-        // ENTÃO
-        verify(repo, never()).save(any());
+        // ENTÃO: não grava na conta de origem
+        verify(repo, never()).updateAccountIfActive(eq("ID2"), eq("1250"), eq("00001234"), any(), any());
     }
 
     @Test
@@ -5,20 +5,25 @@ import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
 import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.AccountUpdate;
+import br.com.itau.pixkeys.domain.model.HolderUpdate;
 import br.com.itau.pixkeys.domain.model.PixKey;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
 import br.com.itau.pixkeys.validation.KeyValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,59 +32,68 @@ class PixKeyServiceUpdateTest {
 
     @Mock KeyValidatorFactory factory; // dependência não usada aqui; mantida pelo construtor do service
     @Mock PixKeyRepository repo;
-    @InjectMocks PixKeyService service; // SUT
+    private final PixKeyServiceFixture fixture = new PixKeyServiceFixture();
+    PixKeyService service;
+
+    @BeforeEach
+    void setUpService() {
+        service = fixture.service(factory, repo);
+    }
+
+    private static PixKey activeKey() {
+        return new PixKey(
+                "k1", KeyType.EMAIL, "a@b.com",
+                AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva", KeyStatus.ACTIVE, Instant.now(), null, 1L
+        );
+    }
 
     @Test
     @DisplayName("Deve mover para outra conta quando abaixo do limite e persistir alterações")
     void updateAccount_shouldSave_whenMovingToAnotherAccount_underLimit() {
         // DADO: chave ativa na conta A (1250/00001234)
-        PixKey current = new PixKey(
-                "k1", KeyType.EMAIL, "a@b.com",
-                AccountType.CHECKING, "1250", "00001234",
-                "Ana", "Silva", KeyStatus.ACTIVE, Instant.now(), null
-        );
+        PixKey current = activeKey();
         when(repo.findById("k1")).thenReturn(Optional.of(current));
-        when(repo.countByAgencyAndAccount("2222", "00002222")).thenReturn(0L);
-        when(repo.save(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.tryReserveAccountSlot("2222", "00002222", 5)).thenReturn(true);
+        when(repo.updateAccountIfActive(eq("k1"), eq("2222"), eq("00002222"), isNull(), any(AccountUpdate.class)))
+                .thenReturn(Optional.empty()); // não está na conta destino
+        when(repo.updateAccountIfActive(eq("k1"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class)))
+                .thenAnswer(inv -> Optional.of(current.apply(inv.getArgument(4))));
 
         // QUANDO: muda para conta B (2222/00002222)
         PixKey out = service.updateAccount("k1", AccountType.SAVINGS,
-                "2222", "00002222", "Ana Paula", "Silva");
+                "2222", "00002222", " Ana Paula ", "Silva");
 
-        // ENTÃO: campos atualizados e persistência efetuada
+        // ENTÃO: campos atualizados (normalizados) e escrita condicionada à conta de origem
         assertEquals("2222", out.agency());
         assertEquals("00002222", out.account());
         assertEquals(AccountType.SAVINGS, out.accountType());
         assertEquals("Ana Paula", out.holderName());
-        verify(repo).countByAgencyAndAccount("2222", "00002222");
-        verify(repo).save(any(PixKey.class));
+        verify(repo).updateAccountIfActive(eq("k1"), eq("2222"), eq("00002222"), isNull(), any(AccountUpdate.class));
         verify(repo).findById("k1");
+        verify(repo).tryReserveAccountSlot("2222", "00002222", 5);
+        verify(repo).updateAccountIfActive(eq("k1"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class));
+        verify(repo).releaseAccountSlot("1250", "00001234"); // vaga transferida: libera a origem
         verifyNoMoreInteractions(repo);
     }
 
     @Test
-    @DisplayName("Não deve checar limite quando permanecer na mesma agência/conta; apenas atualiza titular")
-    void updateAccount_shouldIgnoreLimit_whenStayingInSameAccount_andUpdateHolderName() {
-        // DADO: chave ativa na mesma conta (1250/00001234)
-        PixKey current = new PixKey(
-                "k1", KeyType.EMAIL, "a@b.com",
-                AccountType.CHECKING, "1250", "00001234",
-                "Ana", "Silva", KeyStatus.ACTIVE, Instant.now(), null
-        );
-        when(repo.findById("k1")).thenReturn(Optional.of(current));
-        when(repo.save(any(PixKey.class))).thenAnswer(inv -> inv.getArgument(0));
+    @DisplayName("Mesma agência/conta: uma única escrita condicional, sem leitura prévia nem checagem de limite")
+    void updateAccount_shouldUpdateInSingleWrite_whenStayingInSameAccount() {
+        // DADO: a escrita condicional na mesma conta casa
+        PixKey current = activeKey();
+        when(repo.updateAccountIfActive(eq("k1"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class)))
+                .thenAnswer(inv -> Optional.of(current.apply(inv.getArgument(4))));
 
         // QUANDO: atualiza apenas dados do titular
         PixKey out = service.updateAccount("k1", AccountType.CHECKING,
                 "1250", "00001234", "Ana Paula", "Silva");
 
-        // ENTÃO: mantém agência/conta, altera titular e não consulta limite
+        // ENTÃO: mantém agência/conta, altera titular e não lê nem consulta limite
         assertEquals("1250", out.agency());
         assertEquals("00001234", out.account());
         assertEquals("Ana Paula", out.holderName());
-        verify(repo, never()).countByAgencyAndAccount(anyString(), anyString());
-        verify(repo).save(any(PixKey.class));
-        verify(repo).findById("k1");
+        verify(repo).updateAccountIfActive(eq("k1"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class));
         verifyNoMoreInteractions(repo);
     }
 
@@ -92,8 +106,8 @@ class PixKeyServiceUpdateTest {
         // QUANDO + ENTÃO
         assertThrows(NotFoundException.class, () ->
                 service.updateAccount("x", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));
+        verify(repo).updateAccountIfActive(eq("x"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class));
         verify(repo).findById("x");
-        verify(repo, never()).save(any());
         verifyNoMoreInteractions(repo);
     }
 
@@ -101,47 +115,102 @@ class PixKeyServiceUpdateTest {
     @DisplayName("Deve lançar 422 quando o destino já atingiu o limite por conta")
     void updateAccount_shouldThrow422_whenLimitReachedOnTarget() {
         // DADO: chave ativa e conta destino no limite
-        PixKey current = new PixKey(
-                "k1", KeyType.EMAIL, "a@b.com",
-                AccountType.CHECKING, "1250", "00001234",
-                "Ana", "Silva", KeyStatus.ACTIVE, Instant.now(), null
-        );
-        when(repo.findById("k1")).thenReturn(Optional.of(current));
-        when(repo.countByAgencyAndAccount("2222", "00002222")).thenReturn(5L);
+        when(repo.findById("k1")).thenReturn(Optional.of(activeKey()));
+        when(repo.tryReserveAccountSlot("2222", "00002222", 5)).thenReturn(false);
 
         // QUANDO + ENTÃO
         BusinessRuleViolationException ex = assertThrows(BusinessRuleViolationException.class, () ->
                 service.updateAccount("k1", AccountType.SAVINGS, "2222", "00002222", "Ana Paula", "Silva"));
         assertTrue(ex.getMessage() == null || ex.getMessage().toLowerCase().contains("limite"));
+        verify(repo).updateAccountIfActive(eq("k1"), eq("2222"), eq("00002222"), isNull(), any(AccountUpdate.class));
         verify(repo).findById("k1");
-        verify(repo).countByAgencyAndAccount("2222", "00002222");
-        verify(repo, never()).save(any());
+        verify(repo).tryReserveAccountSlot("2222", "00002222", 5);
         verifyNoMoreInteractions(repo);
     }
 
     @Test
     @DisplayName("Deve lançar 422 quando a chave estiver INATIVA (bloqueia atualização)")
     void updateAccount_shouldThrow422_whenCurrentKeyIsInactive() {
-        // DADO: chave inativa
+        // DADO: chave inativa (filtro status: ACTIVE não casa)
         PixKey inactive = new PixKey(
                 "k1", KeyType.EMAIL, "a@b.com",
                 AccountType.CHECKING, "1250", "00001234",
-                "Ana", "Silva", KeyStatus.INACTIVE, Instant.now(), Instant.now()
+                "Ana", "Silva", KeyStatus.INACTIVE, Instant.now(), Instant.now(), 2L
         );
         when(repo.findById("k1")).thenReturn(Optional.of(inactive));
 
-        // então: domínio barra atualização de chave inativa
+        // então: atualização de chave inativa é barrada
         assertThrows(BusinessRuleViolationException.class, () ->
                 service.updateAccount("k1", AccountType.SAVINGS, "2222", "00002222", "Ana Paula", "Silva"));
 
-        //  verifique as interações esperadas
+        // ❌ sem reserva de vaga nem segunda escrita quando a chave está INACTIVE
+        verify(repo).updateAccountIfActive(eq("k1"), eq("2222"), eq("00002222"), isNull(), any(AccountUpdate.class));
         verify(repo).findById("k1");
+        verifyNoMoreInteractions(repo);
+    }
 
-        // ❌ essas chamadas não devem ocorrer quando a chave está INACTIVE
-        verify(repo, never()).countByAgencyAndAccount(anyString(), anyString());
-        verify(repo, never()).save(any());
+    @Test
+    @DisplayName("Deve devolver a vaga reservada no destino quando a gravação falhar")
+    void updateAccount_shouldReleaseTargetSlot_whenSaveFails() {
+        // DADO: vaga reservada no destino, mas a gravação falha
+        when(repo.findById("k1")).thenReturn(Optional.of(activeKey()));
+        when(repo.tryReserveAccountSlot("2222", "00002222", 5)).thenReturn(true);
+        when(repo.updateAccountIfActive(eq("k1"), eq("2222"), eq("00002222"), isNull(), any(AccountUpdate.class)))
+                .thenReturn(Optional.empty()); // não está na conta destino
+        when(repo.updateAccountIfActive(eq("k1"), eq("1250"), eq("00001234"), isNull(), any(AccountUpdate.class)))
+                .thenThrow(new IllegalStateException("mongo indisponível"));
 
-        // agora sim podemos afirmar que não há outras interações
-        verifyNoMoreInteractions(repo);
+        // QUANDO + ENTÃO
+        assertThrows(IllegalStateException.class, () ->
+                service.updateAccount("k1", AccountType.SAVINGS, "2222", "00002222", "Ana", "Silva"));
+
+        // ENTÃO: compensa no destino e mantém a vaga da origem
+        verify(repo).releaseAccountSlot("2222", "00002222");
+        verify(repo, never()).releaseAccountSlot("1250", "00001234");
+    }
+
+    @Test
+    @DisplayName("Deve lançar conflito (409) sem reservar vaga quando a versão informada não conferir")
+    void updateAccount_shouldThrowConflict_whenExpectedVersionDiffers() {
+        // DADO: chave na versão 1, cliente enviou versão 0
+        when(repo.findById("k1")).thenReturn(Optional.of(activeKey()));
+
+        // QUANDO + ENTÃO
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                service.updateAccount("k1", AccountType.SAVINGS, "2222", "00002222", "Ana", "Silva", 0L));
+        verify(repo, never()).tryReserveAccountSlot(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve devolver a vaga do destino quando a chave mudar entre a leitura e a escrita")
+    void updateAccount_shouldReleaseTargetSlot_whenConditionalWriteMisses() {
+        // DADO: leitura vê a chave ativa, mas a escrita condicional não casa (alteração concorrente)
+        when(repo.findById("k1")).thenReturn(Optional.of(activeKey()));
+        when(repo.tryReserveAccountSlot("2222", "00002222", 5)).thenReturn(true);
+
+        // QUANDO + ENTÃO
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                service.updateAccount("k1", AccountType.SAVINGS, "2222", "00002222", "Ana", "Silva"));
+        verify(repo).releaseAccountSlot("2222", "00002222");
+        verify(repo, never()).releaseAccountSlot("1250", "00001234");
+    }
+
+    @Test
+    @DisplayName("Titular da conta: normaliza uma vez, grava com um updateMany e atualiza o cache de cada chave")
+    void updateHolderOfAccount_shouldNormalize_writeOnce_andRefreshCache() {
+        // DADO: chave em cache com o titular antigo
+        when(repo.findById("k1")).thenReturn(Optional.of(activeKey()));
+        service.findById("k1");
+        PixKey renamed = activeKey().apply(AccountUpdate.of(AccountType.CHECKING, "1250", "00001234", "Bia", ""));
+        when(repo.updateHolderOfActive("1250", "00001234", new HolderUpdate("Bia", "")))
+                .thenReturn(List.of(renamed));
+
+        // QUANDO: nome com espaços e sobrenome em branco (mesma normalização de updateAccount)
+        List<PixKey> out = service.updateHolderOfAccount("1250", "00001234", "  Bia ", "   ");
+
+        // ENTÃO
+        assertEquals(List.of(renamed), out);
+        assertEquals("Bia", service.findById("k1").holderName());
+        verify(repo, times(1)).findById("k1");
     }
 }
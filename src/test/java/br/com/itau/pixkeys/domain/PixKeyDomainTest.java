@@ -1,5 +1,6 @@
 package br.com.itau.pixkeys.domain;
 
+import br.com.itau.pixkeys.domain.model.HolderSearch;
 import br.com.itau.pixkeys.domain.model.PixKey;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -40,4 +41,13 @@ class PixKeyDomainTest {
         // agora aciona o outro ramo (erro)
         assertThrows(BusinessRuleViolationException.class, inactive::inactivate);
     }
+
+    @Test
+    @DisplayName("HolderSearch: remove acentos, baixa caixa e colapsa espaços como no AccountType.from")
+    void holderSearch_normalizesLikeAccountType() {
+        assertEquals("joao da silva", HolderSearch.of("  João ", "DA   Sîlva"));
+        assertEquals("ana", HolderSearch.of("Ana", ""));
+        assertEquals("conceicao", HolderSearch.normalize("CONCEIÇÃO"));
+        assertEquals("", HolderSearch.normalize(null));
+    }
 }
@@ -0,0 +1,113 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolderTrigramIndexTest {
+
+    HolderTrigramIndex index = new HolderTrigramIndex(new PixKeysProperties());
+
+    private static List<String> ids(List<HolderTrigramIndex.Match> matches) {
+        return matches.stream().map(HolderTrigramIndex.Match::id).toList();
+    }
+
+    @Test
+    void search_shouldRankNearMatches_ignoringAccentsMissingWordsAndTypos() {
+        index.load("a", "joao da silva");
+        index.load("b", "joao silva");
+        index.load("c", "joana silveira");
+        index.load("d", "maria souza");
+
+        List<HolderTrigramIndex.Match> found = index.search("João Silvaa", 10);
+
+        assertEquals(List.of("b", "a"), ids(found).subList(0, 2));
+        assertFalse(ids(found).contains("d"));
+        assertTrue(found.get(0).score() >= found.get(1).score());
+        assertEquals(List.of("b"), ids(index.search("joao silva", 1)));
+    }
+
+    @Test
+    void accept_shouldFollowCreateUpdateAndInactivate() {
+        PixKey key = PixKey.create(KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        index.accept(key);
+        assertEquals(List.of(key.id()), ids(index.search("ana silva", 5)));
+
+        index.accept(key.updateAccount(AccountType.CHECKING, "1250", "00001234", "Beatriz", "Costa"));
+        assertTrue(index.search("ana silva", 5).isEmpty());
+        assertEquals(List.of(key.id()), ids(index.search("beatriz costa", 5)));
+
+        index.accept(key.inactivate());
+        assertTrue(index.search("beatriz costa", 5).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void load_shouldNotResurrectKeysRemovedWhileLoading_andCompactionKeepsResults() {
+        index.remove("gone");
+        index.load("gone", "joao silva");
+        index.markReady();
+        assertTrue(index.search("joao silva", 5).isEmpty());
+
+        for (int i = 0; i < 3_000; i++) index.put("k" + i, "titular " + i);
+        for (int i = 0; i < 2_500; i++) index.remove("k" + i);
+        index.put("keep", "joao silva");
+
+        assertEquals(501, index.size());
+        assertEquals(List.of("keep"), ids(index.search("joao silva", 5)));
+        assertEquals(List.of("k2999"), ids(index.search("titular 2999", 1)));
+        assertTrue(index.memoryBytesPerEntry() > 0);
+    }
+
+    @Test
+    void search_shouldSkipTrigramsAboveFrequencyCap_andStillRankByAllSharedTrigrams() {
+        PixKeysProperties properties = new PixKeysProperties();
+        properties.getHolderIndex().setMaxTrigramPostings(100);
+        HolderTrigramIndex capped = new HolderTrigramIndex(properties);
+        for (int i = 0; i < 500; i++) capped.load("s" + i, "ana silva " + i);
+        capped.load("target", "joao silva");
+        capped.load("typo", "joao silvia");
+
+        List<HolderTrigramIndex.Match> found = capped.search("joao silva", 5);
+
+        // "silva" aparece em 502 titulares: não gera candidatos, mas conta na semelhança de quem tem "joao"
+        assertEquals(List.of("target", "typo"), ids(found));
+        assertEquals(1.0, found.get(0).score());
+    }
+
+    @Test
+    void search_shouldFindExactlyWhatAnExhaustiveJaccardScanFinds() {
+        String[] names = {"joao", "jose", "maria", "mariana", "ana", "silva", "silveira", "souza", "sousa", "lima"};
+        Random random = new Random(42);
+        Map<String, String> holders = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            String holder = names[random.nextInt(names.length)] + " " + names[random.nextInt(names.length)];
+            holders.put("k" + i, holder);
+            index.load("k" + i, holder);
+        }
+
+        for (String query : List.of("joao silva", "mariana souza", "ana lima", "jose sousa")) {
+            long[] q = HolderTrigramIndex.trigrams(query);
+            long expected = holders.values().stream().filter(h -> jaccard(q, HolderTrigramIndex.trigrams(h)) >= 0.3).count();
+            assertEquals(expected, index.search(query, 10_000).size(), query);
+        }
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        Set<Long> sa = Arrays.stream(a).boxed().collect(Collectors.toSet());
+        long shared = Arrays.stream(b).filter(sa::contains).count();
+        return (double) shared / (a.length + b.length - shared);
+    }
+}
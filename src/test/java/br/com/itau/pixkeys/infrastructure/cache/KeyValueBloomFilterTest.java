@@ -0,0 +1,75 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueBloomFilterTest {
+
+    private static PixKeysProperties checkFirst(long expected, double fpp) {
+        PixKeysProperties p = new PixKeysProperties();
+        p.getCreate().setMode(PixKeysProperties.CreateMode.CHECK_FIRST);
+        p.getBloomFilter().setExpectedInsertions(expected);
+        p.getBloomFilter().setFalsePositiveRate(fpp);
+        return p;
+    }
+
+    @Test
+    void mightContain_shouldNeverReturnFalse_forAnInsertedValue() {
+        KeyValueBloomFilter filter = new KeyValueBloomFilter(checkFirst(10_000, 0.01));
+        for (int i = 0; i < 10_000; i++) filter.put("user" + i + "@example.com");
+        filter.markReady();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"), "falso negativo em " + i);
+        }
+        assertEquals(10_000, filter.insertions());
+    }
+
+    @Test
+    void mightContain_shouldAnswerMaybe_untilTheInitialLoadIsMarkedReady() {
+        KeyValueBloomFilter filter = new KeyValueBloomFilter(checkFirst(1_000, 0.01));
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("never-seen@example.com"));
+
+        filter.markReady();
+        assertFalse(filter.mightContain("never-seen@example.com"));
+    }
+
+    @Test
+    void disabledOrOptimisticMode_shouldAllocateNothing_andAlwaysAnswerMaybe() {
+        PixKeysProperties off = checkFirst(1_000_000, 0.01);
+        off.getBloomFilter().setEnabled(false);
+        PixKeysProperties optimistic = new PixKeysProperties(); // modo padrão: OPTIMISTIC
+
+        for (PixKeysProperties p : new PixKeysProperties[]{off, optimistic}) {
+            KeyValueBloomFilter filter = new KeyValueBloomFilter(p);
+            filter.put("a@example.com");
+            filter.markReady();
+
+            assertFalse(filter.isEnabled());
+            assertEquals(0, filter.memoryBytes());
+            assertEquals(0, filter.insertions());
+            assertTrue(filter.mightContain("b@example.com"));
+        }
+    }
+
+    @Test
+    void measuredFalsePositiveRate_shouldStayNearTheConfiguredRate_atExpectedLoad() {
+        KeyValueBloomFilter filter = new KeyValueBloomFilter(checkFirst(50_000, 0.01));
+        for (int i = 0; i < 50_000; i++) filter.put("in" + i + "@example.com");
+        filter.markReady();
+
+        int trials = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < trials; i++) {
+            if (filter.mightContain("out" + i + "@example.com")) falsePositives++;
+        }
+        double measured = (double) falsePositives / trials;
+
+        assertTrue(measured > 0.005 && measured < 0.015, "fpp medida " + measured);
+        assertEquals(0.01, filter.expectedFpp(), 0.002);
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.itau.pixkeys.infrastructure.cache;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyStatus;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PixKeyCacheTest {
+
+    private final PixKeyCache cache = new PixKeyCache(new PixKeysProperties());
+
+    private static PixKey key(KeyStatus status, long version) {
+        return new PixKey("k1", KeyType.EMAIL, "a@b.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva",
+                status, Instant.parse("2025-01-01T10:00:00Z"),
+                status == KeyStatus.INACTIVE ? Instant.parse("2025-02-01T10:00:00Z") : null, version);
+    }
+
+    // escrita local em outra thread enquanto a carga em lote ainda está no banco
+    private static void concurrently(Runnable write) {
+        try {
+            CompletableFuture.runAsync(write).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Optional<PixKey> notLoaded(String ignored) {
+        throw new AssertionError("deveria vir do cache");
+    }
+
+    @Test
+    void findAllById_shouldNotOverwriteAPutMadeWhileLoading() {
+        PixKey stale = key(KeyStatus.ACTIVE, 1);
+        PixKey inactivated = key(KeyStatus.INACTIVE, 2);
+
+        Map<String, PixKey> out = cache.findAllById(List.of("k1"), missing -> {
+            concurrently(() -> cache.put(inactivated));
+            return Map.of("k1", stale); // leitura começou antes da inativação
+        });
+
+        assertEquals(stale, out.get("k1")); // a resposta é a do banco naquele instante
+        assertEquals(inactivated, cache.findById("k1", PixKeyCacheTest::notLoaded).orElseThrow());
+    }
+
+    @Test
+    void findAllById_shouldNotCacheWhatWasLoaded_whenAnInvalidateHappenedWhileLoading() {
+        PixKey stale = key(KeyStatus.ACTIVE, 1);
+        PixKey fresh = key(KeyStatus.INACTIVE, 2);
+
+        cache.findAllById(List.of("k1"), missing -> {
+            concurrently(() -> cache.invalidate(fresh));
+            return Map.of("k1", stale);
+        });
+
+        assertEquals(fresh, cache.findById("k1", id -> Optional.of(fresh)).orElseThrow());
+    }
+
+    @Test
+    void findAllActiveByKeyValue_shouldNotCacheAMiss_overACreateMadeWhileLoading() {
+        PixKey created = key(KeyStatus.ACTIVE, 1);
+
+        Map<String, Optional<PixKey>> out = cache.findAllActiveByKeyValue(List.of("a@b.com"), missing -> {
+            concurrently(() -> cache.put(created));
+            return Map.of(); // leitura começou antes do cadastro
+        });
+
+        assertTrue(out.get("a@b.com").isEmpty());
+        assertEquals(created, cache.findActiveByKeyValue("a@b.com", PixKeyCacheTest::notLoaded).orElseThrow());
+    }
+
+    @Test
+    void findAllById_shouldCacheLoadedEntries_andServeHitsWithoutLoading() {
+        PixKey stored = key(KeyStatus.ACTIVE, 1);
+        cache.findAllById(List.of("k1", "nope"), missing -> Map.of("k1", stored));
+
+        Map<String, PixKey> out = cache.findAllById(List.of("k1"), missing -> {
+            throw new AssertionError("deveria vir do cache");
+        });
+
+        assertEquals(Map.of("k1", stored), out);
+    }
+}
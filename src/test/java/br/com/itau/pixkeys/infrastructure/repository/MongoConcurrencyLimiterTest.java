@@ -0,0 +1,154 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.infrastructure.config.PixKeysProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class MongoConcurrencyLimiterTest {
+
+    PixKeyRepository target = mock(PixKeyRepository.class);
+    PixKeysProperties properties = new PixKeysProperties();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MongoConcurrencyLimiter limiter;
+    PixKeyRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        properties.getMongoLimiter().setEnabled(true);
+        properties.getMongoLimiter().setMaxConcurrent(1);
+        properties.getMongoLimiter().setMaxConcurrentStreams(2);
+        properties.getExport().setMaxParallelism(1);
+        properties.getMongoLimiter().setAcquireTimeout(Duration.ofMillis(50));
+        limiter = new MongoConcurrencyLimiter(properties);
+        limiter.bindTo(registry);
+        repo = wrap(limiter);
+    }
+
+    private PixKeyRepository wrap(MongoConcurrencyLimiter l) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("limiter", l);
+        return (PixKeyRepository) new PixKeyRepositoryLimiterPostProcessor(beans.getBeanProvider(MongoConcurrencyLimiter.class))
+                .postProcessAfterInitialization(target, "pixKeyRepository");
+    }
+
+    @Test
+    void shouldReject_whenAllPermitsAreHeldPastTheTimeout_andExposeMetrics() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(target.findById("slow")).thenAnswer(inv -> {
+            inside.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        CompletableFuture<Optional<?>> slow = CompletableFuture.supplyAsync(() -> repo.findById("slow"));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        assertThrows(MongoLimiterRejectedException.class, () -> repo.findById("other"));
+        assertEquals(1.0, registry.get("pix-keys.mongo-limiter.permits.in-use").gauge().value());
+        assertEquals(1.0, registry.get("pix-keys.mongo-limiter.rejected").counter().count());
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.permits.in-use").gauge().value());
+        assertEquals(2, registry.get("pix-keys.mongo-limiter.queue").timer().count());
+        verify(target, never()).findById("other");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamingCalls_shouldUseTheirOwnPool_andLeaveShortCallPermitsFree() throws Exception {
+        // cursor longo em andamento e o outro slot de cursores reservado: pool de cursores cheio
+        MongoConcurrencyLimiter.StreamPermits reserved = limiter.reserveStreams(1);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            inside.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(target).forEachKeyValue(any(Consumer.class));
+
+        CompletableFuture<Void> export = CompletableFuture.runAsync(() -> repo.forEachKeyValue(v -> { }));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        // chamadas curtas seguem passando; um segundo cursor espera o pool próprio e é rejeitado
+        assertDoesNotThrow(() -> repo.findById("other"));
+        assertThrows(MongoLimiterRejectedException.class, () -> repo.forEachActiveHolder((id, holder) -> { }));
+        assertEquals(2.0, registry.get("pix-keys.mongo-limiter.streams.in-use").gauge().value());
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.permits.in-use").gauge().value());
+
+        release.countDown();
+        export.get(5, TimeUnit.SECONDS);
+        reserved.close();
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.streams.in-use").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reservedStreams_shouldServeCursorsInOtherThreads_andBeAllOrNothing() throws Exception {
+        // exportação com duas faixas: reserva as duas na thread da requisição, cada faixa usa uma sem esperar
+        MongoConcurrencyLimiter.StreamPermits export = limiter.reserveStreams(2);
+        assertThrows(MongoLimiterRejectedException.class, () -> limiter.reserveStreams(1));
+        assertThrows(MongoLimiterRejectedException.class, () -> repo.forEachKeyValue(v -> { }));
+
+        CompletableFuture.runAsync(() -> export.run(() -> repo.forEach(null, IdRange.all(), 10, k -> { })))
+                .get(5, TimeUnit.SECONDS);
+        verify(target).forEach(isNull(), eq(IdRange.all()), eq(10), any(Consumer.class));
+        assertEquals(2.0, registry.get("pix-keys.mongo-limiter.streams.in-use").gauge().value());
+
+        export.close();
+        export.close(); // idempotente
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.streams.in-use").gauge().value());
+        assertDoesNotThrow(() -> limiter.reserveStreams(2).close());
+    }
+
+    @Test
+    void shouldRefuseToStart_whenExportParallelismDoesNotFitTheCursorPool() {
+        properties.getExport().setMaxParallelism(2);
+
+        assertThrows(IllegalArgumentException.class, () -> new MongoConcurrencyLimiter(properties));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nestedCalls_shouldReuseThePoolAlreadyHeld_andRestoreItOnExit() {
+        // callback do cursor voltando ao repositório: chamada curta (pool geral) e depois outro cursor aninhado,
+        // que reaproveita a permissão de cursor da chamada externa em vez de esperar pelo único slot
+        doAnswer(inv -> {
+            ((Consumer<String>) inv.getArgument(0)).accept("k1");
+            return null;
+        }).when(target).forEachKeyValue(any(Consumer.class));
+
+        repo.forEachKeyValue(value -> {
+            repo.findByKeyValue(value);
+            repo.forEachActiveHolder((id, holder) -> { });
+        });
+
+        verify(target).findByKeyValue("k1");
+        verify(target).forEachActiveHolder(any());
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.permits.in-use").gauge().value());
+        assertEquals(0.0, registry.get("pix-keys.mongo-limiter.streams.in-use").gauge().value());
+    }
+
+    @Test
+    void shouldNotWrapTheRepository_whenDisabled() {
+        properties.getMongoLimiter().setEnabled(false);
+
+        assertSame(target, wrap(new MongoConcurrencyLimiter(properties)));
+    }
+}
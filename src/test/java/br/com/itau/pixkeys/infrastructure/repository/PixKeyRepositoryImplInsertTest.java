@@ -0,0 +1,79 @@
+package br.com.itau.pixkeys.infrastructure.repository;
+
+import br.com.itau.pixkeys.domain.AccountType;
+import br.com.itau.pixkeys.domain.KeyType;
+import br.com.itau.pixkeys.domain.model.PixKey;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PixKeyRepositoryImplInsertTest {
+
+    MongoTemplate template = mock(MongoTemplate.class);
+    BulkOperations bulk = mock(BulkOperations.class);
+    PixKeyRepositoryImpl repo = new PixKeyRepositoryImpl(template);
+
+    private final List<PixKey> keys = List.of(key("a@b.com"), key("c@d.com"));
+
+    private static PixKey key(String value) {
+        return PixKey.create(KeyType.EMAIL, value, AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(template.getConverter()).thenReturn(mock(MongoConverter.class));
+        when(template.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq("pix_keys"))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+    }
+
+    private void bulkFailsWith(List<BulkWriteError> errors, WriteConcernError writeConcernError) {
+        var source = new MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                errors, writeConcernError, new ServerAddress(), Set.of());
+        when(bulk.execute()).thenThrow(new BulkOperationException(source.getMessage(), source));
+    }
+
+    private static BulkWriteError duplicateAt(int index) {
+        return new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), index);
+    }
+
+    @Test
+    void insertUnordered_shouldReportDuplicatesByPosition() {
+        bulkFailsWith(List.of(duplicateAt(1)), null);
+
+        BulkInsertResult result = repo.insertUnordered(keys);
+
+        assertTrue(result.isInserted(0));
+        assertEquals(Set.of(1), result.duplicateKeyIndexes());
+    }
+
+    @Test
+    void insertUnordered_shouldRethrow_whenWriteConcernFails_evenWithDuplicates() {
+        bulkFailsWith(List.of(duplicateAt(1)),
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out", new BsonDocument()));
+
+        assertThrows(BulkOperationException.class, () -> repo.insertUnordered(keys));
+    }
+
+    @Test
+    void insertUnordered_shouldRethrow_whenThereAreNoPerPositionErrors() {
+        bulkFailsWith(List.of(), null);
+
+        assertThrows(BulkOperationException.class, () -> repo.insertUnordered(keys));
+    }
+}
@@ -1,17 +1,31 @@
 package br.com.itau.pixkeys.integration;
 
+import br.com.itau.pixkeys.api.NotFoundException;
+import br.com.itau.pixkeys.application.job.KeyArchivalJob;
+import br.com.itau.pixkeys.application.service.BatchCreateItem;
+import br.com.itau.pixkeys.application.service.BatchCreateResult;
+import br.com.itau.pixkeys.application.service.HolderPage;
+import br.com.itau.pixkeys.application.service.PixKeyPage;
+import br.com.itau.pixkeys.application.service.PixKeyQuery;
 import br.com.itau.pixkeys.application.service.PixKeyService;
 import br.com.itau.pixkeys.domain.AccountType;
 import br.com.itau.pixkeys.domain.BusinessRuleViolationException;
+import br.com.itau.pixkeys.domain.KeyStatus;
 import br.com.itau.pixkeys.domain.KeyType;
 import br.com.itau.pixkeys.domain.model.PixKey;
+import br.com.itau.pixkeys.infrastructure.repository.AccountKeySummary;
 import br.com.itau.pixkeys.infrastructure.repository.PixKeyRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -19,6 +33,14 @@ import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
@@ -30,6 +52,9 @@ class PixKeyServiceIntegrationTest {
     @BeforeEach
     void clean() {
         repo.deleteAll();
+        mongoTemplate.dropCollection("pix_key_account_slots"); // vagas por conta não podem vazar entre testes
+        mongoTemplate.dropCollection("pix_keys_archive");
+        mongoTemplate.dropCollection("pix_key_archival");
     }
 
     @Container
@@ -47,6 +72,8 @@ class PixKeyServiceIntegrationTest {
 
     @Autowired PixKeyService service;
     @Autowired PixKeyRepository repo;
+    @Autowired MongoTemplate mongoTemplate;
+    @Autowired KeyArchivalJob archivalJob;
 
     @Test
     void create_then_findById_ok() {
@@ -60,6 +87,19 @@ class PixKeyServiceIntegrationTest {
         assertEquals("it-int@example.com", found.keyValue());
     }
 
+    @Test
+    void reconcileAccountSlots_shouldResetDriftedCounter_toActiveKeys() {
+        service.create(KeyType.EMAIL, "slot-1@example.com", AccountType.CHECKING, "1251", "00001234", "Ana", "Silva");
+        String inactive = service.create(KeyType.EMAIL, "slot-2@example.com", AccountType.CHECKING, "1251", "00001234", "Ana", "Silva");
+        service.inactivate(inactive);
+        // reservas órfãs: contador no limite com uma única chave ativa
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("1251:00001234")),
+                new Update().set("used", 5), "pix_key_account_slots");
+
+        assertEquals(1, repo.reconcileAccountSlots("1251", "00001234"));
+        assertNotNull(service.create(KeyType.EMAIL, "slot-3@example.com", AccountType.CHECKING, "1251", "00001234", "Ana", "Silva"));
+    }
+
     @Test
     void shouldReject_duplicateValue() {
         // primeiro cadastro
@@ -112,4 +152,234 @@ class PixKeyServiceIntegrationTest {
         );
         assertTrue(ex.getMessage().toLowerCase().contains("inativ"));
     }
+
+    @Test
+    void inactivate_releasesAccountSlot() {
+        String first = null;
+        for (int i = 0; i < 5; i++) {
+            String id = service.create(
+                    KeyType.EMAIL, "slot"+i+"@example.com",
+                    AccountType.CHECKING, "1250", "00001234",
+                    "Ana", "Silva"
+            );
+            if (first == null) first = id;
+        }
+        service.inactivate(first);
+
+        // a vaga liberada permite uma nova chave na mesma conta
+        assertNotNull(service.create(
+                KeyType.EMAIL, "slot5@example.com",
+                AccountType.CHECKING, "1250", "00001234",
+                "Ana", "Silva"
+        ));
+    }
+
+    @Test
+    void createAll_respectsExistingKeys_andAccountLimit_inOneBatch() {
+        // conta já com 3 chaves ativas (uma criada pelo fluxo unitário semeia o documento de vagas)
+        for (int i = 0; i < 3; i++) {
+            service.create(KeyType.EMAIL, "pre" + i + "@example.com",
+                    AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        }
+
+        List<BatchCreateItem> items = new ArrayList<>();
+        items.add(new BatchCreateItem(KeyType.EMAIL, "pre0@example.com",
+                AccountType.CHECKING, "3333", "00003333", "Bia", "Souza"));       // já cadastrada
+        for (int i = 0; i < 3; i++) {
+            items.add(new BatchCreateItem(KeyType.EMAIL, "batch" + i + "@example.com",
+                    AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));   // só 2 vagas livres
+        }
+        items.add(new BatchCreateItem(KeyType.EMAIL, "other@example.com",
+                AccountType.CHECKING, "3333", "00003333", "Bia", "Souza"));       // conta nova
+
+        List<BatchCreateResult.Outcome> outcomes = service.createAll(items).stream()
+                .map(BatchCreateResult::outcome).toList();
+
+        assertEquals(List.of(
+                BatchCreateResult.Outcome.REJECTED,
+                BatchCreateResult.Outcome.CREATED,
+                BatchCreateResult.Outcome.CREATED,
+                BatchCreateResult.Outcome.REJECTED,
+                BatchCreateResult.Outcome.CREATED), outcomes);
+        assertEquals(6, repo.count());
+
+        // o documento de vagas ficou coerente: a conta cheia não aceita mais chaves
+        assertThrows(BusinessRuleViolationException.class, () -> service.create(
+                KeyType.EMAIL, "late@example.com",
+                AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));
+    }
+
+    @Test
+    void inactivateAllOfAccount_inactivatesOnlyThatAccount_andFreesItsSlots() {
+        for (int i = 0; i < 5; i++) {
+            service.create(KeyType.EMAIL, "close" + i + "@example.com",
+                    AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        }
+        String other = service.create(KeyType.EMAIL, "keep@example.com",
+                AccountType.CHECKING, "2222", "00002222", "Bia", "Souza");
+
+        List<PixKey> affected = service.inactivateAllOfAccount("1250", "00001234");
+
+        assertEquals(5, affected.size());
+        assertTrue(affected.stream().allMatch(PixKey::isInactive));
+        assertFalse(service.findById(other).isInactive());
+        // vagas devolvidas: a conta volta a aceitar chaves
+        assertNotNull(service.create(KeyType.EMAIL, "reopen@example.com",
+                AccountType.CHECKING, "1250", "00001234", "Ana", "Silva"));
+    }
+
+    @Test
+    void updateHolderOfAccount_updatesOnlyActiveKeysOfThatAccount() {
+        String a = service.create(KeyType.EMAIL, "holder-a@example.com",
+                AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        String b = service.create(KeyType.EMAIL, "holder-b@example.com",
+                AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        service.inactivate(b);
+        String other = service.create(KeyType.EMAIL, "holder-c@example.com",
+                AccountType.CHECKING, "2222", "00002222", "Ana", "Silva");
+
+        List<PixKey> updated = service.updateHolderOfAccount("1250", "00001234", " Bia ", null);
+
+        assertEquals(1, updated.size());
+        assertEquals("Bia", service.findById(a).holderName());
+        assertEquals("", service.findById(a).holderSurname());
+        assertEquals("Ana", service.findById(b).holderName());
+        assertEquals("Ana", service.findById(other).holderName());
+    }
+
+    @Test
+    void exportAll_filtersAndCoversEveryKey_inParallelRanges() {
+        for (int i = 0; i < 20; i++) {
+            service.create(KeyType.EMAIL, "export" + i + "@example.com",
+                    AccountType.CHECKING, "3" + String.format("%03d", i), "00001234", "Ana", "Silva");
+        }
+        String inactive = service.create(KeyType.EMAIL, "export-off@example.com",
+                AccountType.CHECKING, "4000", "00001234", "Ana", "Silva");
+        service.inactivate(inactive);
+
+        Set<String> sequential = ConcurrentHashMap.newKeySet();
+        Set<String> parallel = ConcurrentHashMap.newKeySet();
+        PixKeyQuery activeOnly = new PixKeyQuery(KeyStatus.ACTIVE, KeyType.EMAIL, null, null, null, null, null);
+        service.exportAll(activeOnly, 1, k -> sequential.add(k.id()));
+        service.exportAll(activeOnly, 4, k -> parallel.add(k.id()));
+
+        assertEquals(20, sequential.size());
+        assertEquals(sequential, parallel);
+        assertFalse(sequential.contains(inactive));
+    }
+
+    @Test
+    void search_walksAllPagesWithKeyset_withoutRepeatsOrGaps() {
+        for (int i = 0; i < 7; i++) {
+            service.create(KeyType.EMAIL, "page" + i + "@example.com",
+                    AccountType.CHECKING, "5" + String.format("%03d", i), "00001234", "Ana", "Silva");
+        }
+        PixKeyQuery emails = new PixKeyQuery(KeyStatus.ACTIVE, KeyType.EMAIL, null, null, null, null, null);
+
+        List<String> seen = new ArrayList<>();
+        PixKeyPage.Position after = null;
+        do {
+            PixKeyPage page = service.search(emails, after, 3);
+            page.items().forEach(k -> seen.add(k.id()));
+            after = page.next();
+        } while (after != null);
+
+        assertEquals(7, seen.size());
+        assertEquals(7, Set.copyOf(seen).size());
+    }
+
+    @Test
+    void searchByHolderPrefix_ignoresAccentsAndCase_acrossPages() {
+        service.create(KeyType.EMAIL, "joao1@example.com", AccountType.CHECKING, "6001", "00001234", "João", "Silva");
+        service.create(KeyType.EMAIL, "joao2@example.com", AccountType.CHECKING, "6002", "00001234", "JOAO", "Souza");
+        service.create(KeyType.EMAIL, "joana@example.com", AccountType.CHECKING, "6003", "00001234", "Joana", "Lima");
+        service.create(KeyType.EMAIL, "maria@example.com", AccountType.CHECKING, "6004", "00001234", "Maria", "João");
+
+        List<String> names = new ArrayList<>();
+        HolderPage.Position after = null;
+        do {
+            HolderPage page = service.searchByHolderPrefix("joão", after, 1);
+            page.items().forEach(k -> names.add(k.holderName() + " " + k.holderSurname()));
+            after = page.next();
+        } while (after != null);
+
+        assertEquals(List.of("João Silva", "JOAO Souza"), names);
+    }
+
+    @Test
+    void findHolderMatches_followsCreateUpdateAndInactivate() {
+        String id = service.create(KeyType.EMAIL, "fuzzy@example.com", AccountType.CHECKING, "6101", "00001234",
+                "João", "da Silva");
+        assertEquals(id, service.findHolderMatches("Joao Silva", 5).get(0).key().id());
+
+        service.updateHolderOfAccount("6101", "00001234", "Beatriz", "Costa");
+        assertTrue(service.findHolderMatches("Joao Silva", 5).stream().noneMatch(m -> m.key().id().equals(id)));
+        assertEquals(id, service.findHolderMatches("Beatris Costa", 5).get(0).key().id());
+
+        service.inactivate(id);
+        assertTrue(service.findHolderMatches("Beatriz Costa", 5).stream().noneMatch(m -> m.key().id().equals(id)));
+    }
+
+    @Test
+    void listAccountKeys_activeKeysAreCoveredByThePartialAccountIndex() {
+        String first = service.create(KeyType.EMAIL, "list1@example.com", AccountType.CHECKING, "6201", "00001234", "Ana", "Silva");
+        String second = service.create(KeyType.EMAIL, "list2@example.com", AccountType.CHECKING, "6201", "00001234", "Ana", "Silva");
+        service.create(KeyType.EMAIL, "other@example.com", AccountType.CHECKING, "6202", "00001234", "Ana", "Silva");
+        service.inactivate(first);
+
+        List<AccountKeySummary> keys = service.listAccountKeys("6201", "00001234", null);
+
+        assertEquals(List.of(second, first), keys.stream().map(AccountKeySummary::id).toList());
+        assertEquals(KeyStatus.INACTIVE, keys.get(1).status());
+
+        Document plan = mongoTemplate.getDb().runCommand(new Document("explain", new Document("find", "pix_keys")
+                        .append("filter", new Document("agency", "6201").append("account", "00001234").append("status", "ACTIVE"))
+                        .append("projection", new Document("_id", 1).append("keyType", 1).append("keyValue", 1)
+                                .append("status", 1).append("createdAt", 1))
+                        .append("sort", new Document("createdAt", -1).append("_id", -1))
+                        .append("hint", "idx_account_active"))
+                .append("verbosity", "executionStats"));
+        assertEquals(0, plan.get("executionStats", Document.class).getInteger("totalDocsExamined"));
+    }
+
+    @Test
+    void partialIndexes_holdOnlyActiveKeys() {
+        String id = service.create(KeyType.EMAIL, "partial@example.com", AccountType.CHECKING, "6301", "00001234", "Ana", "Silva");
+        service.create(KeyType.EMAIL, "partial2@example.com", AccountType.CHECKING, "6301", "00001234", "Ana", "Silva");
+        service.inactivate(id);
+
+        Document validate = mongoTemplate.getDb().runCommand(new Document("validate", "pix_keys"));
+        Document keysPerIndex = validate.get("keysPerIndex", Document.class);
+        assertEquals(1, ((Number) keysPerIndex.get("idx_account_active")).intValue());
+        assertEquals(1, ((Number) keysPerIndex.get("idx_holder_search")).intValue());
+        assertEquals(1, ((Number) keysPerIndex.get("idx_account_inactive")).intValue());
+        assertTrue(service.searchByHolderPrefix("ana", null, 10).items().stream().noneMatch(k -> k.id().equals(id)));
+    }
+
+    @Test
+    void archival_movesOnlyOldInactiveKeys_andFindByIdFallsBackToArchive() {
+        String old = service.create(KeyType.EMAIL, "arch-old@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        String recent = service.create(KeyType.EMAIL, "arch-new@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        String active = service.create(KeyType.EMAIL, "arch-act@example.com", AccountType.CHECKING, "1250", "00001234", "Ana", "Silva");
+        service.inactivate(old);
+        service.inactivate(recent);
+        // inativação antiga (além da retenção padrão de 180 dias)
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(old)),
+                new Update().set("inactivatedAt", Date.from(Instant.now().minus(Duration.ofDays(400)))),
+                "pix_keys");
+
+        assertEquals(1, archivalJob.runNow());
+
+        assertTrue(repo.findById(old).isEmpty());
+        assertEquals(KeyStatus.INACTIVE, repo.findArchivedById(old).orElseThrow().status());
+        assertTrue(repo.findById(recent).isPresent());
+        assertTrue(repo.findById(active).isPresent());
+        assertEquals(old, service.findById(old).id());
+        assertEquals(old, service.findAllByIds(List.of(old, recent)).get(0).orElseThrow().id());
+        // arquivada é só leitura: escrita responde como inexistente
+        assertThrows(NotFoundException.class, () -> service.inactivate(old));
+        // reexecutar não arquiva nada de novo (passada concluída, nada mais antigo que o corte)
+        assertEquals(0, archivalJob.runNow());
+    }
 }
@@ -0,0 +1,47 @@
+package br.com.itau.pixkeys.validation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckDigitsTest {
+
+    @Test
+    void cpf_shouldIgnoreAnyNonDigit_likeTheOldNormalization() {
+        assertTrue(CheckDigits.isValidCpf("529.982.247-25"));
+        assertTrue(CheckDigits.isValidCpf(" 529 982 247 25 "));
+        assertTrue(CheckDigits.isValidCpf("529x982x247x25"));
+        assertTrue(CheckDigits.isValidCpf(new StringBuilder("52998224725")));
+    }
+
+    @Test
+    void cpf_shouldReject_nullWrongLengthRepeatedOrWrongDigits() {
+        assertFalse(CheckDigits.isValidCpf(null));
+        assertFalse(CheckDigits.isValidCpf(""));
+        assertFalse(CheckDigits.isValidCpf("5299822472"));    // 10 dígitos
+        assertFalse(CheckDigits.isValidCpf("529982247250"));  // 12 dígitos
+        assertFalse(CheckDigits.isValidCpf("11111111111"));
+        assertFalse(CheckDigits.isValidCpf("52998224735"));   // DV1 inválido
+        assertFalse(CheckDigits.isValidCpf("52998224726"));   // DV2 inválido
+    }
+
+    @Test
+    void cnpj_shouldAcceptMaskAndSurroundingWhitespace() {
+        assertTrue(CheckDigits.isValidCnpj("12.345.678/0001-95"));
+        assertTrue(CheckDigits.isValidCnpj("12345678000195"));
+        assertTrue(CheckDigits.isValidCnpj("\t12 345 678 0001 95\n"));
+    }
+
+    @Test
+    void cnpj_shouldReject_disallowedCharsWrongLengthRepeatedOrWrongDigits() {
+        assertFalse(CheckDigits.isValidCnpj(null));
+        assertFalse(CheckDigits.isValidCnpj("   "));
+        assertFalse(CheckDigits.isValidCnpj("12.345.678/0001-9A"));
+        assertFalse(CheckDigits.isValidCnpj("12.345.678\t0001-95")); // tab só é aceito nas pontas
+        assertFalse(CheckDigits.isValidCnpj("1234567800019"));
+        assertFalse(CheckDigits.isValidCnpj("123456780001950"));
+        assertFalse(CheckDigits.isValidCnpj("22222222222222"));
+        assertFalse(CheckDigits.isValidCnpj("12345678000185"));      // DV1 inválido
+        assertFalse(CheckDigits.isValidCnpj("12345678000196"));      // DV2 inválido
+    }
+}
@@ -1,6 +1,11 @@
 package br.com.itau.pixkeys.validation;
 
 import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EmailKeyValidatorTest {
@@ -41,4 +46,31 @@ class EmailKeyValidatorTest {
         String boundary = "a".repeat(71) + "@x.com";
         assertDoesNotThrow(() -> v.validate(boundary));
     }
+
+    @Test
+    void shouldMatchLegacyRegex_onEdgeCases() {
+        // regex antiga usada como oráculo para garantir o mesmo aceite/rejeição
+        Pattern legacy = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+        List<String> inputs = List.of(
+                "a@b.co", "a@b..com", "a@.com", "a@b.c", "a@b.c1m", "a@b.co.1x", "a@b-c.com.br",
+                "a.b_c%d+e-f@x.io", "a@b@c.com", "a b@c.com", "á@b.com", "a@b.com-", "a@-.co",
+                "a@b.", "a@", "@", "a@1.2.3.ab", "a@b.Co"
+        );
+        for (String in : inputs) {
+            boolean expected = legacy.matcher(in).matches();
+            if (expected) {
+                assertDoesNotThrow(() -> v.validate(in), in);
+            } else {
+                assertThrows(IllegalArgumentException.class, () -> v.validate(in), in);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectPathologicalInput_inLinearTime() {
+        // entrada clássica de ReDoS para a regex antiga (dentro do limite de 77 chars)
+        String evil = "a@" + "a.".repeat(36) + "!";
+        assertTimeoutPreemptively(Duration.ofMillis(200),
+                () -> assertThrows(IllegalArgumentException.class, () -> v.validate(evil)));
+    }
 }
@@ -53,7 +53,8 @@ class SimpleKeyValidatorFactoryTest {
             }
 
             @Override
-            public void validate(String value) {
+            public KeyValidationResult check(String value) {
+                return KeyValidationResult.VALID;
             }
         };
         var ex = assertThrows(NullPointerException.class,
@@ -77,4 +78,14 @@ class SimpleKeyValidatorFactoryTest {
                 () -> new SimpleKeyValidatorFactory(list));
         assertTrue(ex.getMessage().toLowerCase().contains("validador não pode ser nulo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void check_shouldDelegateToValidator_andReturnReasonCode_withoutThrowing() {
+        var factory = new SimpleKeyValidatorFactory(List.of(new EmailKeyValidator(), new PhoneKeyValidator()));
+
+        assertSame(KeyValidationResult.VALID, factory.check(KeyType.EMAIL, "ana@exemplo.com"));
+        assertSame(KeyValidationResult.EMAIL_INVALID_FORMAT, factory.check(KeyType.EMAIL, "ana@exemplo"));
+        assertSame(KeyValidationResult.PHONE_MISSING_PREFIX, factory.check(KeyType.PHONE, "11987654321"));
+        assertEquals("telefone deve iniciar com +55", KeyValidationResult.PHONE_MISSING_PREFIX.message());
+    }
+}